@@ -0,0 +1,62 @@
+package com.weitnow.sfs.benchmarks;
+
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.audio.AudioEngine;
+import com.weitnow.sfs.audio.NullAudioBackend;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.CombatEvents;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A tick of a brawl in which every fighter gets hit, with the hits played by the audio engine through a null backend.
+ * The time per hit should stay flat as the number of hits grows, since only a few of them get a voice.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AudioEngineBenchmark {
+    @Param({"8", "512", "4096"})
+    public int hitsPerTick;
+
+    private Fighter[] fighters;
+    private CombatEvents combatEvents;
+    private AudioEngine audio;
+    private NullAudioBackend backend;
+
+    @Setup
+    public void setUp() {
+        fighters = new Fighter[hitsPerTick];
+        for (int i = 0; i < hitsPerTick; i++) {
+            fighters[i] = new Fighter("Fighter " + i, Color.WHITE);
+        }
+        combatEvents = new CombatEvents(Integer.highestOneBit(hitsPerTick - 1) << 1);
+        backend = new NullAudioBackend();
+        audio = new AudioEngine(backend);
+    }
+
+    @Benchmark
+    public long hitTick() {
+        for (Fighter fighter : fighters) {
+            combatEvents.publish(CombatEvents.Type.HIT, null, fighter, Fighter.HIT_STRENGTH, Fighter.State.IDLE);
+        }
+        combatEvents.drain(audio);
+        audio.update(MatchSimulation.TICK_DURATION);
+        return backend.getPlays();
+    }
+}
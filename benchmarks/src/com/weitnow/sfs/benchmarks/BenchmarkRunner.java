@@ -0,0 +1,22 @@
+package com.weitnow.sfs.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all benchmarks with the GC profiler, which reports the allocation rate next to ops/s.
+ * An optional argument restricts the run to benchmarks matching the given regular expression. {@code gradlew
+ * :benchmarks:jmh} runs them the same way, {@code gradlew :benchmarks:jmhJar} builds a jar for {@code java -jar}.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "com\\.weitnow\\.sfs\\.benchmarks\\..*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
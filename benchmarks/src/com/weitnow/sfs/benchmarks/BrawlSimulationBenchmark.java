@@ -0,0 +1,53 @@
+package com.weitnow.sfs.benchmarks;
+
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.BrawlSimulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the fighters in contact with the contact grid compared to testing every pair.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BrawlSimulationBenchmark {
+    @Param({"64", "512", "4096"})
+    public int fighterCount;
+
+    private BrawlSimulation brawl;
+
+    @Setup
+    public void setUp() {
+        Fighter[] fighters = new Fighter[fighterCount];
+        for (int i = 0; i < fighterCount; i++) {
+            fighters[i] = new Fighter("Fighter " + i, Color.WHITE);
+        }
+        brawl = new BrawlSimulation(fighters);
+    }
+
+    @Benchmark
+    public int contactGrid() {
+        return brawl.countContacts();
+    }
+
+    @Benchmark
+    public int pairwise() {
+        return brawl.countContactsPairwise();
+    }
+}
@@ -0,0 +1,76 @@
+package com.weitnow.sfs.benchmarks;
+
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of a single fighter: the per-frame update, the attack window check and the state transitions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FighterBenchmark {
+    private Fighter walking;
+    private Fighter punching;
+    private Fighter fighter;
+
+    @Setup
+    public void setUp() {
+        walking = new Fighter("Walking", Color.WHITE);
+        walking.getReady(MatchSimulation.PLAYER_START_POSITION_X, MatchSimulation.FIGHTER_START_POSITION_Y);
+        walking.moveRight();
+
+        punching = new Fighter("Punching", Color.WHITE);
+        punching.getReady(MatchSimulation.PLAYER_START_POSITION_X, MatchSimulation.FIGHTER_START_POSITION_Y);
+
+        fighter = new Fighter("Fighter", Color.WHITE);
+        fighter.getReady(MatchSimulation.PLAYER_START_POSITION_X, MatchSimulation.FIGHTER_START_POSITION_Y);
+    }
+
+    @Benchmark
+    public float update() {
+        walking.update(MatchSimulation.TICK_DURATION);
+        // walking right forever would overflow eventually, so keep the fighter in the ring
+        MatchSimulation.keepWithinRingBounds(walking);
+        return walking.getPositionX();
+    }
+
+    @Benchmark
+    public boolean isAttackActive() {
+        // keep the punch running, so the check goes through the whole attack window
+        punching.punch();
+        punching.update(MatchSimulation.TICK_DURATION);
+        return punching.isAttackActive();
+    }
+
+    @Benchmark
+    public float stateTransitions() {
+        fighter.punch();
+        fighter.update(MatchSimulation.TICK_DURATION);
+        fighter.kick();
+        fighter.block();
+        fighter.getHit(Fighter.HIT_STRENGTH);
+        fighter.stopBlocking();
+        fighter.update(MatchSimulation.TICK_DURATION);
+        if (fighter.hasLost()) {
+            fighter.getReady(MatchSimulation.PLAYER_START_POSITION_X, MatchSimulation.FIGHTER_START_POSITION_Y);
+        }
+        return fighter.getLife();
+    }
+}
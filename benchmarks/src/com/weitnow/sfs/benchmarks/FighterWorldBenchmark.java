@@ -0,0 +1,73 @@
+package com.weitnow.sfs.benchmarks;
+
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.objects.FighterWorld;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updating a crowd of fighters stored in one fighter world, on one thread and in parallel chunks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FighterWorldBenchmark {
+    @Param({"4096", "65536"})
+    public int fighterCount;
+
+    private FighterWorld world;
+    private int tick;
+
+    @Setup
+    public void setUp() {
+        world = new FighterWorld(fighterCount);
+        for (int i = 0; i < fighterCount; i++) {
+            Fighter fighter = new Fighter(world, "Fighter " + i, Color.WHITE);
+            fighter.getReady(MatchSimulation.PLAYER_START_POSITION_X, MatchSimulation.FIGHTER_START_POSITION_Y);
+        }
+    }
+
+    @Benchmark
+    public int update() {
+        act();
+        world.update(MatchSimulation.TICK_DURATION);
+        return world.getSize();
+    }
+
+    @Benchmark
+    public int updateParallel() {
+        act();
+        world.update(MatchSimulation.TICK_DURATION, ForkJoinPool.commonPool());
+        return world.getSize();
+    }
+
+    private void act() {
+        // every now and then, let half the crowd punch and the other half walk back and forth
+        if (++tick % 60 == 0) {
+            for (int i = 0; i < world.getSize(); i++) {
+                if (i % 2 == 0) {
+                    world.punch(i);
+                } else {
+                    world.setMovement(i, tick % 120 == 0 ? 1 : -1, 0);
+                }
+            }
+        }
+    }
+}
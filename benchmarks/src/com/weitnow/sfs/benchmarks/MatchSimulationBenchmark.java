@@ -0,0 +1,96 @@
+package com.weitnow.sfs.benchmarks;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Vector2;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.CombatEvents;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The match rules that used to live in GameScreen.update: ring bounds, contact distance, and a full simulated tick
+ * of all fighters, paired up into matches.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchSimulationBenchmark {
+    // ticks between two scripted attacks
+    private static final int ATTACK_INTERVAL = 45;
+    // drops the combat events, nobody listens to them here
+    private static final CombatEvents.Listener NO_LISTENER = (type, tick, attacker, defender, damage, state) -> { };
+
+    @Param({"2", "64", "4096"})
+    public int fighterCount;
+
+    private MatchSimulation[] matches;
+    private final Vector2 outside = new Vector2();
+    private final Vector2 near = new Vector2();
+    private int tick;
+
+    @Setup
+    public void setUp() {
+        matches = new MatchSimulation[fighterCount / 2];
+        for (int i = 0; i < matches.length; i++) {
+            matches[i] = new MatchSimulation(new Fighter("Player " + i, Color.WHITE),
+                    new Fighter("Opponent " + i, Color.WHITE));
+            // let the fighters walk towards each other, so they get in contact distance
+            matches[i].getPlayer().moveRight();
+            matches[i].getOpponent().moveLeft();
+        }
+        near.set(MatchSimulation.PLAYER_START_POSITION_X + 1f, MatchSimulation.FIGHTER_START_POSITION_Y);
+    }
+
+    @Benchmark
+    public float keepWithinRingBounds() {
+        outside.set(0f, 100f);
+        MatchSimulation.keepWithinRingBounds(outside);
+        return outside.x;
+    }
+
+    @Benchmark
+    public boolean areWithinContactDistance() {
+        Fighter player = matches[0].getPlayer();
+        return MatchSimulation.areWithinContactDistance(player.getPositionX(), player.getPositionY(), near.x, near.y);
+    }
+
+    @Benchmark
+    public int tick() {
+        tick++;
+        int over = 0;
+        for (MatchSimulation match : matches) {
+            // scripted attacks, the player punches and the opponent kicks
+            if (tick % ATTACK_INTERVAL == 0) {
+                match.getPlayer().punch();
+                match.getOpponent().kick();
+            }
+
+            match.step();
+
+            match.getCombatEvents().drain(NO_LISTENER);
+
+            if (match.isOver()) {
+                over++;
+                match.getReady();
+                match.getPlayer().moveRight();
+                match.getOpponent().moveLeft();
+            }
+        }
+        return over;
+    }
+}
@@ -0,0 +1,51 @@
+package com.weitnow.sfs.benchmarks;
+
+import com.weitnow.sfs.effects.ParticleSystem;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A frame of a brawl's blood: a burst of particles per hit, emitted into a full system and updated. The time per frame
+ * is bounded by the capacity, and the GC profiler should report no allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParticleSystemBenchmark {
+    @Param({"1024", "8192"})
+    public int capacity;
+
+    @Param({"8", "512"})
+    public int hitsPerFrame;
+
+    private ParticleSystem particles;
+
+    @Setup
+    public void setUp() {
+        particles = new ParticleSystem(capacity);
+    }
+
+    @Benchmark
+    public int frame() {
+        for (int i = 0; i < hitsPerFrame; i++) {
+            particles.emit(ParticleSystem.BLOOD, 12, i % 80, 10f, 0f, (i & 1) == 0 ? 1f : -1f);
+        }
+        particles.update(MatchSimulation.TICK_DURATION * 2);
+        return particles.getCount();
+    }
+}
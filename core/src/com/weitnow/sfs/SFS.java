@@ -1,40 +1,117 @@
 package com.weitnow.sfs;
 
 import com.badlogic.gdx.Game;
-import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.weitnow.sfs.audio.AudioBackend;
+import com.weitnow.sfs.audio.AudioEngine;
+import com.weitnow.sfs.audio.GdxAudioBackend;
 import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.objects.FighterWorld;
+import com.weitnow.sfs.profiling.FrameProfiler;
 import com.weitnow.sfs.ressources.Assets;
+import com.weitnow.sfs.ressources.FighterChoice;
 import com.weitnow.sfs.screens.GameScreen;
+import com.weitnow.sfs.screens.LoadingScreen;
+import com.weitnow.sfs.simulation.CombatEvents;
 
 public class SFS extends Game {
     public SpriteBatch batch;
     public Assets assets;
 
     // screens
+    public LoadingScreen loadingScreen;
     public GameScreen gameScreen;
 
+    // plays the combat sounds and the music, created once the assets have finished loading
+    public AudioEngine audio;
+    // plays the audio engine's sounds, the loaded assets unless set before the game is created, e.g. to a
+    // NullAudioBackend when running headless
+    public AudioBackend audioBackend;
+
     //fighters
     public Fighter player, opponent;
+    // roster entries of the fighters, whose skins are acquired while they are in the match
+    private FighterChoice playerChoice, opponentChoice;
+
+    // times the phases of each frame, disabled unless turned on by the launcher or the overlay
+    public final FrameProfiler profiler = new FrameProfiler();
+    // receives every combat event of the match as well, if set, e.g. to record them for profiling
+    public CombatEvents.Listener combatEventRecorder;
+
+    // port the game screen streams the match to spectators on, or -1 to not stream it
+    public int spectatorPort = -1;
 
+    // whether the game screen only simulates the match without drawing it, e.g. when running headless
+    public boolean skipRendering;
+
+    // when the game was created, to measure the time until the first gameplay frame
+    private long createTime;
+    // time from creating the game until the first gameplay frame was drawn, or simulated if rendering is skipped, or -1
+    // if there was no gameplay frame yet
+    public long timeToFirstFrameMillis = -1;
 
     @Override
     public void create() {
+        createTime = TimeUtils.nanoTime();
         batch = new SpriteBatch();
         assets = new Assets();
 
-        // load all assets
+        // start loading all assets and show the loading screen meanwhile
         assets.load();
-        assets.manager.finishLoading();
+        loadingScreen = new LoadingScreen(this);
+        setScreen(loadingScreen);
+    }
+
+    /**
+     * Starts the game once all assets have finished loading.
+     */
+    public void start() {
+        assets.animations = Fighter.createAnimationLibrary(assets.manager);
+        if (audioBackend == null) {
+            audioBackend = new GdxAudioBackend(assets.manager);
+        }
+        audio = new AudioEngine(audioBackend);
+        audio.playMusic();
 
-        // initialize the fighters
-        player = new Fighter(this, "Slim Stallone", new Color(1f, 0.2f, 0.2f, 1f));
-        opponent = new Fighter(this, "Thin Diesel", new Color(0.25f, 0.7f, 1f, 1f));
+        // initialize the fighters with the first two of the roster, side by side in one fighter world
+        Array<FighterChoice> roster = FighterChoice.loadRoster(Gdx.files.internal(Assets.FIGHTER_CHOICES));
+        FighterWorld fighters = new FighterWorld(2);
+        playerChoice = roster.get(0);
+        opponentChoice = roster.get(1);
+        player = createFighter(fighters, playerChoice);
+        opponent = createFighter(fighters, opponentChoice);
 
         // initialize the game screen and switch to it
         gameScreen = new GameScreen(this);
         setScreen(gameScreen);
+        loadingScreen.dispose();
+        loadingScreen = null;
+    }
+
+    private Fighter createFighter(FighterWorld world, FighterChoice choice) {
+        Fighter fighter = new Fighter(this, world, choice.name, choice.getColor());
+        if (choice.skin != null) {
+            fighter.setSkin(assets.skins.acquire(choice.skin));
+        }
+        return fighter;
+    }
+
+    private void releaseSkin(FighterChoice choice) {
+        if (choice != null && choice.skin != null) {
+            assets.skins.release(choice.skin);
+        }
+    }
+
+    /**
+     * Called by the game screen once it has drawn its first frame, or simulated it if rendering is skipped.
+     */
+    public void firstFrameRendered() {
+        timeToFirstFrameMillis = TimeUtils.nanosToMillis(TimeUtils.timeSinceNanos(createTime));
+        Gdx.app.log("SFS", "time to first frame: " + timeToFirstFrameMillis + " ms");
     }
 
     @Override
@@ -44,6 +121,14 @@ public class SFS extends Game {
 
     @Override
     public void dispose() {
+        if (gameScreen != null) {
+            gameScreen.dispose();
+        }
+        releaseSkin(playerChoice);
+        releaseSkin(opponentChoice);
+        if (audio != null) {
+            audio.dispose();
+        }
         batch.dispose();
         assets.dispose();
     }
@@ -0,0 +1,102 @@
+package com.weitnow.sfs.ai;
+
+import com.weitnow.sfs.simulation.MatchSimulation;
+import com.weitnow.sfs.simulation.MatchState;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A CPU controlled opponent that thinks on its own thread. Every frame the render thread hands over a snapshot of
+ * the match and picks up the buttons the last search chose; neither blocks, so the render thread's frame time doesn't
+ * depend on how long the opponent thinks. Snapshots are handed over through a triple buffer: the render thread always
+ * has a buffer to write to, the worker always reads the latest complete snapshot, and snapshots the worker didn't get
+ * to are simply overwritten.
+ */
+public class CpuOpponent {
+    // thinking time per decision
+    public static final long EASY_BUDGET_NANOS = 500_000L;
+    public static final long NORMAL_BUDGET_NANOS = 2_000_000L;
+    public static final long HARD_BUDGET_NANOS = 8_000_000L;
+
+    // set on the latest buffer index while the worker hasn't taken that snapshot yet
+    private static final int NEW_SNAPSHOT = 4;
+    private static final int INDEX_MASK = 3;
+
+    private final MatchSearch search;
+    private final long budgetNanos;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final MatchState[] snapshots = {new MatchState(), new MatchState(), new MatchState()};
+    // buffer written by the render thread
+    private int writeIndex = 0;
+    // buffer holding the latest snapshot
+    private final AtomicInteger latestIndex = new AtomicInteger(1);
+    // buffer read by the worker
+    private int readIndex = 2;
+
+    // the buttons chosen by the latest search
+    private volatile int controls;
+
+    /**
+     * Starts the opponent's worker thread.
+     * @param budgetNanos time the opponent thinks about each decision, see the difficulty constants
+     */
+    public CpuOpponent(long budgetNanos, long seed) {
+        this.budgetNanos = budgetNanos;
+        search = new MatchSearch(seed);
+        worker = new Thread(this::think, "CpuOpponent");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Hands the current state of the match over to the worker. Called by the render thread after updating the match.
+     */
+    public void observe(MatchSimulation match) {
+        match.saveState(snapshots[writeIndex]);
+        writeIndex = latestIndex.getAndSet(writeIndex | NEW_SNAPSHOT) & INDEX_MASK;
+        LockSupport.unpark(worker);
+    }
+
+    /**
+     * @return the {@link com.weitnow.sfs.simulation.Controls} the opponent holds, as chosen by its latest search
+     */
+    public int getControls() {
+        return controls;
+    }
+
+    private void think() {
+        while (running) {
+            if ((latestIndex.get() & NEW_SNAPSHOT) == 0) {
+                // wait for the next snapshot
+                LockSupport.park(this);
+                continue;
+            }
+            readIndex = latestIndex.getAndSet(readIndex) & INDEX_MASK;
+            controls = search.search(snapshots[readIndex], budgetNanos);
+        }
+    }
+
+    public long getSearches() {
+        return search.getSearches();
+    }
+
+    public long getPlayouts() {
+        return search.getPlayouts();
+    }
+
+    /**
+     * Stops the worker thread.
+     */
+    public void dispose() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
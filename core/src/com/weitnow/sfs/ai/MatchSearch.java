@@ -0,0 +1,181 @@
+package com.weitnow.sfs.ai;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.Controls;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import com.weitnow.sfs.simulation.MatchState;
+
+/**
+ * Chooses a fighter's next buttons by searching ahead on a private copy of the match: a Monte Carlo tree search
+ * one move deep. Every candidate move is held for a short while and followed by a random playout of both fighters;
+ * the playouts are spread over the candidates with UCB1, so the promising ones get explored the most, until the time
+ * budget runs out. The search only allocates when it is created.
+ */
+public class MatchSearch {
+    // the buttons the opponent can choose from
+    private static final int[] CANDIDATES = {
+            0,
+            Controls.LEFT, Controls.RIGHT, Controls.UP, Controls.DOWN,
+            Controls.LEFT | Controls.UP, Controls.LEFT | Controls.DOWN,
+            Controls.RIGHT | Controls.UP, Controls.RIGHT | Controls.DOWN,
+            Controls.BLOCK, Controls.PUNCH, Controls.KICK
+    };
+    // ticks a candidate is held before the random playout starts
+    private static final int HOLD_TICKS = 12;
+    // ticks of random play after holding a candidate
+    private static final int PLAYOUT_TICKS = 60;
+    // average ticks between two changes of the held buttons during a playout
+    private static final int TICKS_PER_INPUT_CHANGE = 15;
+    // life difference at which a playout counts as won or lost outright
+    private static final float DECISIVE_LIFE_DIFFERENCE = 4 * Fighter.HIT_STRENGTH;
+    // how much a playout is worth less for every unit of distance between the fighters at its end
+    private static final float DISTANCE_PENALTY = 0.004f;
+    // exploration constant of UCB1
+    private static final float EXPLORATION = 1.4f;
+    // playouts between two checks of the time budget
+    private static final int PLAYOUTS_PER_TIME_CHECK = 8;
+
+    private final MatchSimulation match;
+    private final float[] totalRewards = new float[CANDIDATES.length];
+    private final int[] visits = new int[CANDIDATES.length];
+    // whether the current search is for the player instead of the opponent
+    private boolean forPlayer;
+    // state of the random number generator, xorshift so playouts need no shared Random
+    private long randomState;
+
+    private long playouts;
+    private long searches;
+
+    public MatchSearch(long seed) {
+        match = new MatchSimulation(new Fighter("player", Color.WHITE), new Fighter("opponent", Color.WHITE));
+        match.setCombatEventsEnabled(false);
+        randomState = seed != 0 ? seed : 1;
+    }
+
+    /**
+     * Searches for the opponent's best buttons in the given state of a match.
+     * @param budgetNanos time after which the search stops; at least one playout per candidate is always run
+     * @return the {@link Controls} the opponent should hold
+     */
+    public int search(MatchState state, long budgetNanos) {
+        return search(state, budgetNanos, false);
+    }
+
+    /**
+     * Searches for the best buttons of either fighter in the given state of a match.
+     * @param forPlayer whether to search for the player instead of the opponent
+     * @see #search(MatchState, long)
+     */
+    public int search(MatchState state, long budgetNanos, boolean forPlayer) {
+        this.forPlayer = forPlayer;
+        long startTime = TimeUtils.nanoTime();
+        for (int i = 0; i < CANDIDATES.length; i++) {
+            totalRewards[i] = 0f;
+            visits[i] = 0;
+        }
+
+        // try every candidate once, then keep trying the best ones until the time is up
+        int totalVisits = 0;
+        for (int i = 0; i < CANDIDATES.length; i++) {
+            playout(state, i);
+            totalVisits++;
+        }
+        while (TimeUtils.timeSinceNanos(startTime) < budgetNanos) {
+            for (int i = 0; i < PLAYOUTS_PER_TIME_CHECK; i++) {
+                playout(state, selectCandidate(totalVisits));
+                totalVisits++;
+            }
+        }
+
+        playouts += totalVisits;
+        searches++;
+
+        // the most visited candidate is the one the search is the most confident about
+        int best = 0;
+        for (int i = 1; i < CANDIDATES.length; i++) {
+            if (visits[i] > visits[best]) {
+                best = i;
+            }
+        }
+        return CANDIDATES[best];
+    }
+
+    private int selectCandidate(int totalVisits) {
+        float logVisits = (float) Math.log(totalVisits);
+        int best = 0;
+        float bestScore = -Float.MAX_VALUE;
+        for (int i = 0; i < CANDIDATES.length; i++) {
+            float score = totalRewards[i] / visits[i] + EXPLORATION * (float) Math.sqrt(logVisits / visits[i]);
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private void playout(MatchState state, int candidate) {
+        match.restoreState(state);
+        Fighter self = forPlayer ? match.getPlayer() : match.getOpponent();
+        Fighter other = forPlayer ? match.getOpponent() : match.getPlayer();
+        float selfLife = self.getLife();
+        float otherLife = other.getLife();
+
+        // hold the candidate while the other fighter keeps holding its buttons, then let both fighters play randomly
+        int selfControls = CANDIDATES[candidate];
+        int otherControls = forPlayer ? match.getOpponentControls() : match.getPlayerControls();
+        for (int tick = 0; tick < HOLD_TICKS + PLAYOUT_TICKS && !match.isOver(); tick++) {
+            if (tick >= HOLD_TICKS) {
+                if (nextInt(TICKS_PER_INPUT_CHANGE) == 0) {
+                    selfControls = CANDIDATES[nextInt(CANDIDATES.length)];
+                }
+                if (nextInt(TICKS_PER_INPUT_CHANGE) == 0) {
+                    otherControls = CANDIDATES[nextInt(CANDIDATES.length)];
+                }
+            }
+            if (forPlayer) {
+                match.step(selfControls, otherControls);
+            } else {
+                match.step(otherControls, selfControls);
+            }
+        }
+
+        totalRewards[candidate] += evaluate(self, other, otherLife - other.getLife(), selfLife - self.getLife());
+        visits[candidate]++;
+    }
+
+    /**
+     * @return how good the end of a playout is for the fighter searched for, from 0 to 1
+     */
+    private static float evaluate(Fighter self, Fighter other, float damageDealt, float damageTaken) {
+        if (other.hasLost()) return 1f;
+        if (self.hasLost()) return 0f;
+
+        // trade hits favorably, and stay close enough to land them
+        float reward = 0.5f + 0.5f * (damageDealt - damageTaken) / DECISIVE_LIFE_DIFFERENCE;
+        float distance = Math.abs(self.getPositionX() - other.getPositionX());
+        reward -= DISTANCE_PENALTY * Math.max(distance - MatchSimulation.FIGHTER_CONTACT_DISTANCE_X, 0f);
+        return MathUtils.clamp(reward, 0f, 1f);
+    }
+
+    private int nextInt(int bound) {
+        randomState ^= randomState << 13;
+        randomState ^= randomState >>> 7;
+        randomState ^= randomState << 17;
+        return (int) ((randomState >>> 33) % bound);
+    }
+
+    /**
+     * @return the number of playouts run by all searches so far
+     */
+    public long getPlayouts() {
+        return playouts;
+    }
+
+    public long getSearches() {
+        return searches;
+    }
+}
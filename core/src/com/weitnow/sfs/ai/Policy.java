@@ -0,0 +1,14 @@
+package com.weitnow.sfs.ai;
+
+import com.weitnow.sfs.simulation.MatchSimulation;
+
+/**
+ * Decides which buttons a fighter holds, for matches played without a human.
+ */
+public interface Policy {
+    /**
+     * @param controlsPlayer whether the policy controls the player or the opponent of the match
+     * @return the {@link com.weitnow.sfs.simulation.Controls} the fighter should hold
+     */
+    int decide(MatchSimulation match, boolean controlsPlayer);
+}
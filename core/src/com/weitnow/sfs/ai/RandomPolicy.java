@@ -0,0 +1,32 @@
+package com.weitnow.sfs.ai;
+
+import com.weitnow.sfs.simulation.Controls;
+import com.weitnow.sfs.simulation.MatchSimulation;
+
+import java.util.Random;
+
+/**
+ * Holds random buttons for a random while.
+ */
+public class RandomPolicy implements Policy {
+    // average decisions between two changes of the held buttons
+    private static final int DECISIONS_PER_CHANGE = 20;
+
+    private final Random random;
+    private int controls;
+
+    public RandomPolicy(long seed) {
+        random = new Random(seed);
+    }
+
+    @Override
+    public int decide(MatchSimulation match, boolean controlsPlayer) {
+        if (random.nextInt(DECISIONS_PER_CHANGE) == 0) {
+            controls = random.nextInt(Controls.MASK + 1);
+            // opposite directions cancel out, keep only one of them
+            if ((controls & Controls.LEFT) != 0) controls &= ~Controls.RIGHT;
+            if ((controls & Controls.UP) != 0) controls &= ~Controls.DOWN;
+        }
+        return controls;
+    }
+}
@@ -0,0 +1,59 @@
+package com.weitnow.sfs.ai;
+
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.Controls;
+import com.weitnow.sfs.simulation.MatchSimulation;
+
+import java.util.Random;
+
+/**
+ * Walks up to the other fighter and attacks once within reach, blocking some of the other fighter's
+ * attacks. Cheap enough to play thousands of matches per second.
+ */
+public class ScriptedPolicy implements Policy {
+    // chance of attacking per decision while within contact distance
+    private static final float ATTACK_CHANCE = 0.3f;
+    // chance of blocking per decision while the other fighter attacks
+    private static final float BLOCK_CHANCE = 0.5f;
+    // horizontal distances between which the attacks reach the other fighter's body
+    private static final float MIN_ATTACK_DISTANCE_X = 3f;
+    private static final float MAX_ATTACK_DISTANCE_X = 9f;
+
+    private final Random random;
+
+    public ScriptedPolicy(long seed) {
+        random = new Random(seed);
+    }
+
+    @Override
+    public int decide(MatchSimulation match, boolean controlsPlayer) {
+        Fighter self = controlsPlayer ? match.getPlayer() : match.getOpponent();
+        Fighter other = controlsPlayer ? match.getOpponent() : match.getPlayer();
+        float distanceX = other.getPositionX() - self.getPositionX();
+        float distanceY = other.getPositionY() - self.getPositionY();
+
+        int controls = 0;
+        // line up with the other fighter, then walk up to it
+        if (Math.abs(distanceY) > MatchSimulation.FIGHTER_CONTACT_DISTANCE_Y / 2f) {
+            controls |= distanceY > 0f ? Controls.UP : Controls.DOWN;
+        }
+        if (Math.abs(distanceX) > MAX_ATTACK_DISTANCE_X - 1f) {
+            controls |= distanceX > 0f ? Controls.RIGHT : Controls.LEFT;
+        } else if (Math.abs(distanceX) < MIN_ATTACK_DISTANCE_X) {
+            // too close to hit, back off
+            controls |= distanceX > 0f ? Controls.LEFT : Controls.RIGHT;
+        }
+
+        float absoluteDistanceX = Math.abs(distanceX);
+        if (absoluteDistanceX > MIN_ATTACK_DISTANCE_X && absoluteDistanceX < MAX_ATTACK_DISTANCE_X &&
+                Math.abs(distanceY) <= MatchSimulation.FIGHTER_CONTACT_DISTANCE_Y) {
+            if (other.isAttacking() && random.nextFloat() < BLOCK_CHANCE) {
+                controls |= Controls.BLOCK;
+            } else if (random.nextFloat() < ATTACK_CHANCE) {
+                // attacks only start when the button is pressed, so the policy lets go of it in between
+                controls |= random.nextBoolean() ? Controls.PUNCH : Controls.KICK;
+            }
+        }
+        return controls;
+    }
+}
@@ -0,0 +1,24 @@
+package com.weitnow.sfs.ai;
+
+import com.weitnow.sfs.simulation.MatchSimulation;
+import com.weitnow.sfs.simulation.MatchState;
+
+/**
+ * Decides with a {@link MatchSearch} on the calling thread, within a time budget per decision.
+ */
+public class SearchPolicy implements Policy {
+    private final MatchSearch search;
+    private final MatchState state = new MatchState();
+    private final long budgetNanos;
+
+    public SearchPolicy(long budgetNanos, long seed) {
+        this.budgetNanos = budgetNanos;
+        search = new MatchSearch(seed);
+    }
+
+    @Override
+    public int decide(MatchSimulation match, boolean controlsPlayer) {
+        match.saveState(state);
+        return search.search(state, budgetNanos, controlsPlayer);
+    }
+}
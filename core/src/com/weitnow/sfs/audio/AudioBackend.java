@@ -0,0 +1,34 @@
+package com.weitnow.sfs.audio;
+
+/**
+ * Plays the sounds and music the {@link AudioEngine} decides on. Sounds are referred to by the handle they were
+ * added with, so playing one doesn't need a lookup by name.
+ */
+public interface AudioBackend {
+    /**
+     * Prepares a sound effect for playing. The sound must already be loaded, if the backend needs it to be.
+     * @return the handle to play the sound with
+     */
+    int addSound(String fileName);
+
+    /**
+     * Starts playing an instance of a sound.
+     * @param pan from -1 (left) to 1 (right)
+     * @return the id of the playing instance, or -1 if it couldn't be played
+     */
+    long play(int sound, float volume, float pitch, float pan);
+
+    /**
+     * Stops a playing instance of a sound, if it is still playing.
+     */
+    void stop(int sound, long instance);
+
+    /**
+     * Starts streaming the music in a loop, replacing the music playing before.
+     */
+    void playMusic(String fileName, float volume);
+
+    void stopMusic();
+
+    void dispose();
+}
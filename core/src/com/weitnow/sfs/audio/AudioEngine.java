@@ -0,0 +1,252 @@
+package com.weitnow.sfs.audio;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.ressources.Assets;
+import com.weitnow.sfs.ressources.GlobalVariables;
+import com.weitnow.sfs.simulation.CombatEvents;
+
+/**
+ * Plays the combat sounds of a match or brawl through a fixed number of voices. When all voices are busy, a sound
+ * steals the voice of the lowest priority sound playing, if that one is less important, or is dropped otherwise. Each
+ * effect also has a limit of its own, so a brawl with many hits in the same tick plays a few of them instead of
+ * stopping and starting voices for every hit; the cost of mixing stays bounded however many fighters there are.
+ * The voices are preallocated and playing a sound doesn't allocate.
+ * The engine doesn't know when the backend has finished playing a sound, so a voice is busy for the duration of its
+ * effect.
+ */
+public class AudioEngine implements CombatEvents.Listener {
+    public static final int DEFAULT_VOICES = 8;
+
+    public enum Effect {
+        // file, duration in seconds, priority, voices it may use at most, volume
+        CLICK(Assets.CLICK_SOUND, 0.34f, 3, 1, 0.8f),
+        BLOCK(Assets.BLOCK_SOUND, 0.37f, 1, 3, 0.7f),
+        HIT(Assets.HIT_SOUND, 0.5f, 1, 4, 1f),
+        BOO(Assets.BOO_SOUND, 7.47f, 2, 1, 0.8f),
+        CHEER(Assets.CHEER_SOUND, 4.46f, 2, 1, 0.8f);
+
+        public final String fileName;
+        final float duration;
+        final int priority;
+        final int maxVoices;
+        final float volume;
+
+        Effect(String fileName, float duration, int priority, int maxVoices, float volume) {
+            this.fileName = fileName;
+            this.duration = duration;
+            this.priority = priority;
+            this.maxVoices = maxVoices;
+            this.volume = volume;
+        }
+    }
+
+    private static final Effect[] EFFECTS = Effect.values();
+    // random change of a hit's pitch, so repeated hits don't sound the same
+    private static final float PITCH_VARIATION = 0.08f;
+    private static final float MUSIC_VOLUME = 0.4f;
+
+    private final AudioBackend backend;
+    // the backend's handle of each effect, by ordinal
+    private final int[] sounds = new int[EFFECTS.length];
+    // number of voices playing each effect, by ordinal
+    private final int[] effectVoices = new int[EFFECTS.length];
+
+    // the voices, in parallel arrays; a voice playing no effect has an effect ordinal of -1
+    private final int[] voiceEffects;
+    private final long[] voiceInstances;
+    private final float[] voiceStartTimes;
+    private final float[] voiceEndTimes;
+
+    // seconds since the engine was created, advanced by update
+    private float time;
+    private float effectsVolume = 1f;
+
+    // metrics
+    private long played;
+    private long stolen;
+    private long dropped;
+
+    public AudioEngine(AudioBackend backend) {
+        this(backend, DEFAULT_VOICES);
+    }
+
+    public AudioEngine(AudioBackend backend, int voices) {
+        if (voices <= 0) {
+            throw new IllegalArgumentException("at least one voice is needed: " + voices);
+        }
+        this.backend = backend;
+        for (Effect effect : EFFECTS) {
+            sounds[effect.ordinal()] = backend.addSound(effect.fileName);
+        }
+
+        voiceEffects = new int[voices];
+        voiceInstances = new long[voices];
+        voiceStartTimes = new float[voices];
+        voiceEndTimes = new float[voices];
+        for (int i = 0; i < voices; i++) {
+            voiceEffects[i] = -1;
+        }
+    }
+
+    /**
+     * Starts streaming the music in a loop.
+     */
+    public void playMusic() {
+        backend.playMusic(Assets.MUSIC, MUSIC_VOLUME);
+    }
+
+    public void stopMusic() {
+        backend.stopMusic();
+    }
+
+    public void setEffectsVolume(float effectsVolume) {
+        this.effectsVolume = MathUtils.clamp(effectsVolume, 0f, 1f);
+    }
+
+    /**
+     * Advances the time and frees the voices whose effects have finished playing.
+     */
+    public void update(float deltaTime) {
+        time += deltaTime;
+        for (int i = 0; i < voiceEffects.length; i++) {
+            if (voiceEffects[i] >= 0 && voiceEndTimes[i] <= time) {
+                freeVoice(i);
+            }
+        }
+    }
+
+    public boolean play(Effect effect) {
+        return play(effect, 1f, 0f);
+    }
+
+    /**
+     * Plays an effect if there is a voice for it.
+     * @param pan from -1 (left) to 1 (right)
+     * @return false if the effect was dropped because all voices it could use play more important sounds
+     */
+    public boolean play(Effect effect, float pitch, float pan) {
+        int voice = findVoice(effect);
+        if (voice < 0) {
+            dropped++;
+            return false;
+        }
+
+        // steal the voice, if it is still playing
+        if (voiceEffects[voice] >= 0) {
+            backend.stop(sounds[voiceEffects[voice]], voiceInstances[voice]);
+            freeVoice(voice);
+            stolen++;
+        }
+
+        long instance = backend.play(sounds[effect.ordinal()], effect.volume * effectsVolume, pitch, pan);
+        if (instance == -1) {
+            dropped++;
+            return false;
+        }
+        voiceEffects[voice] = effect.ordinal();
+        voiceInstances[voice] = instance;
+        voiceStartTimes[voice] = time;
+        voiceEndTimes[voice] = time + effect.duration;
+        effectVoices[effect.ordinal()]++;
+        played++;
+        return true;
+    }
+
+    /**
+     * @return the voice to play the effect with, which may have to be stolen, or -1 if there is none
+     */
+    private int findVoice(Effect effect) {
+        // a burst of the same effect plays a few of them, instead of restarting the same voices
+        if (effectVoices[effect.ordinal()] >= effect.maxVoices) return -1;
+
+        int candidate = -1;
+        for (int i = 0; i < voiceEffects.length; i++) {
+            if (voiceEffects[i] < 0) {
+                return i;
+            } else if (candidate < 0 || isLessImportant(i, candidate)) {
+                candidate = i;
+            }
+        }
+
+        // only steal from less important effects
+        return EFFECTS[voiceEffects[candidate]].priority < effect.priority ? candidate : -1;
+    }
+
+    private boolean isLessImportant(int voice, int otherVoice) {
+        int priority = EFFECTS[voiceEffects[voice]].priority;
+        int otherPriority = EFFECTS[voiceEffects[otherVoice]].priority;
+        return priority < otherPriority || priority == otherPriority &&
+                voiceStartTimes[voice] < voiceStartTimes[otherVoice];
+    }
+
+    private void freeVoice(int voice) {
+        effectVoices[voiceEffects[voice]]--;
+        voiceEffects[voice] = -1;
+    }
+
+    @Override
+    public void onCombatEvent(CombatEvents.Type type, long tick, Fighter attacker, Fighter defender, float damage,
+                              Fighter.State state) {
+        switch (type) {
+            case HIT:
+                play(Effect.HIT, 1f + MathUtils.random(-PITCH_VARIATION, PITCH_VARIATION), getPan(defender));
+                break;
+            case BLOCK:
+                play(Effect.BLOCK, 1f, getPan(defender));
+                break;
+            case KO:
+                play(Effect.BOO);
+                break;
+            case STATE_CHANGE:
+                if (state == Fighter.State.WIN) {
+                    play(Effect.CHEER);
+                }
+                break;
+        }
+    }
+
+    /**
+     * @return the pan of a sound made by the fighter, following the fighter's position in the ring
+     */
+    private static float getPan(Fighter fighter) {
+        return MathUtils.clamp(fighter.getPositionX() / GlobalVariables.WORLD_WIDTH * 2f - 1f, -1f, 1f);
+    }
+
+    /**
+     * @return the number of voices playing an effect
+     */
+    public int getActiveVoices() {
+        int active = 0;
+        for (int effect : voiceEffects) {
+            if (effect >= 0) active++;
+        }
+        return active;
+    }
+
+    public int getVoices() {
+        return voiceEffects.length;
+    }
+
+    public long getPlayed() {
+        return played;
+    }
+
+    public long getStolen() {
+        return stolen;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public void dispose() {
+        backend.dispose();
+    }
+
+    @Override
+    public String toString() {
+        return "played: " + played + ", stolen: " + stolen + ", dropped: " + dropped + ", voices: " +
+                getActiveVoices() + "/" + voiceEffects.length;
+    }
+}
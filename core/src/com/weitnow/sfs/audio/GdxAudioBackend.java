@@ -0,0 +1,62 @@
+package com.weitnow.sfs.audio;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Plays sounds and music loaded by the asset manager. Sound effects are decoded once when they are loaded, music is
+ * streamed from its file while it plays. The asset manager owns them, so they are unloaded with it.
+ */
+public class GdxAudioBackend implements AudioBackend {
+    private final AssetManager manager;
+    private final Array<Sound> sounds = new Array<>();
+    private Music music;
+
+    public GdxAudioBackend(AssetManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public int addSound(String fileName) {
+        sounds.add(manager.get(fileName, Sound.class));
+        return sounds.size - 1;
+    }
+
+    @Override
+    public long play(int sound, float volume, float pitch, float pan) {
+        return sounds.get(sound).play(volume, pitch, pan);
+    }
+
+    @Override
+    public void stop(int sound, long instance) {
+        sounds.get(sound).stop(instance);
+    }
+
+    @Override
+    public void playMusic(String fileName, float volume) {
+        stopMusic();
+        music = manager.get(fileName, Music.class);
+        music.setLooping(true);
+        music.setVolume(volume);
+        music.play();
+    }
+
+    @Override
+    public void stopMusic() {
+        if (music != null) {
+            music.stop();
+            music = null;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        stopMusic();
+        for (Sound sound : sounds) {
+            sound.stop();
+        }
+        sounds.clear();
+    }
+}
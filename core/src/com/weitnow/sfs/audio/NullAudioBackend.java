@@ -0,0 +1,58 @@
+package com.weitnow.sfs.audio;
+
+/**
+ * Plays nothing, but counts what it was asked to play, so the audio engine can run headless without loaded sounds.
+ */
+public class NullAudioBackend implements AudioBackend {
+    private int sounds;
+    private long nextInstance;
+    private long plays;
+    private long stops;
+    private String music;
+
+    @Override
+    public int addSound(String fileName) {
+        return sounds++;
+    }
+
+    @Override
+    public long play(int sound, float volume, float pitch, float pan) {
+        plays++;
+        return nextInstance++;
+    }
+
+    @Override
+    public void stop(int sound, long instance) {
+        stops++;
+    }
+
+    @Override
+    public void playMusic(String fileName, float volume) {
+        music = fileName;
+    }
+
+    @Override
+    public void stopMusic() {
+        music = null;
+    }
+
+    public long getPlays() {
+        return plays;
+    }
+
+    public long getStops() {
+        return stops;
+    }
+
+    /**
+     * @return the file name of the music playing, or null if none is
+     */
+    public String getMusic() {
+        return music;
+    }
+
+    @Override
+    public void dispose() {
+        music = null;
+    }
+}
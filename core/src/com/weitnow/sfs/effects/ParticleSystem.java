@@ -0,0 +1,223 @@
+package com.weitnow.sfs.effects;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.objects.FrameData;
+import com.weitnow.sfs.ressources.Assets;
+import com.weitnow.sfs.ressources.GlobalVariables;
+import com.weitnow.sfs.simulation.CombatEvents;
+
+/**
+ * Blood and hit sparks flying off fighters that get hit. The particles live in preallocated parallel arrays up to a
+ * hard cap; particles that would exceed it are dropped, and finished particles are removed by moving the last one into
+ * their slot, so the live particles always fill the front of the arrays. Emitting, updating and drawing don't
+ * allocate, and the cost of a frame is bounded by the cap however many hits there are.
+ * The particles are drawn from the blood splatter regions of the gameplay atlas, in the same batch as the fighters.
+ */
+public class ParticleSystem implements CombatEvents.Listener {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    // kinds of particles
+    public static final byte BLOOD = 0;
+    public static final byte SPARK = 1;
+
+    // particles emitted by a hit and a blocked hit
+    private static final int BLOOD_PER_HIT = 12;
+    private static final int SPARKS_PER_HIT = 4;
+    private static final int SPARKS_PER_BLOCK = 8;
+    // height above a fighter's feet where the hits land
+    private static final float HIT_HEIGHT = 10f;
+    private static final float GRAVITY = 60f;
+    // lifetime of blood and sparks in seconds
+    private static final float BLOOD_LIFETIME = 1.2f;
+    private static final float SPARK_LIFETIME = 0.15f;
+    // size of a particle relative to the splatter region
+    private static final float BLOOD_SIZE = 0.15f;
+    private static final float SPARK_SIZE = 0.3f;
+
+    private final int capacity;
+    private final float[] x, y;
+    private final float[] velocityX, velocityY;
+    // the particle lands on the floor at this height
+    private final float[] floorY;
+    private final float[] age, lifetime;
+    private final float[] rotation, spin;
+    private final float[] size;
+    private final byte[] kind;
+    private int count;
+    // number of particles dropped because the system was full
+    private long dropped;
+
+    // the frames of the blood splatter, or null if the particles aren't drawn
+    private final TextureRegion[] splatterFrames;
+
+    /**
+     * Creates a particle system that can be updated, but not rendered, e.g. to run without a graphics backend.
+     */
+    public ParticleSystem(int capacity) {
+        this(capacity, null);
+    }
+
+    public ParticleSystem(int capacity, TextureAtlas atlas) {
+        this.capacity = capacity;
+        x = new float[capacity];
+        y = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        floorY = new float[capacity];
+        age = new float[capacity];
+        lifetime = new float[capacity];
+        rotation = new float[capacity];
+        spin = new float[capacity];
+        size = new float[capacity];
+        kind = new byte[capacity];
+
+        if (atlas != null) {
+            Array<TextureAtlas.AtlasRegion> regions = atlas.findRegions(Assets.BLOOD_SPLATTER_REGION);
+            if (regions.size == 0) {
+                throw new GdxRuntimeException("The blood splatter isn't packed into the atlas");
+            }
+            splatterFrames = regions.toArray(TextureRegion.class);
+        } else {
+            splatterFrames = null;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Emits particles from a point, flying mostly in the given horizontal direction.
+     * @param direction -1 to the left, 1 to the right, 0 in all directions
+     * @return the number of particles emitted, fewer than asked for if the system is full
+     */
+    public int emit(byte kind, int particles, float x, float y, float floorY, float direction) {
+        int emitted = Math.min(particles, capacity - count);
+        dropped += particles - emitted;
+        for (int i = 0; i < emitted; i++) {
+            int index = count++;
+            this.kind[index] = kind;
+            this.x[index] = x;
+            this.y[index] = y;
+            this.floorY[index] = floorY;
+            age[index] = 0f;
+            rotation[index] = MathUtils.random(360f);
+            if (kind == BLOOD) {
+                velocityX[index] = direction != 0f ? direction * MathUtils.random(5f, 25f)
+                        : MathUtils.random(-20f, 20f);
+                velocityY[index] = MathUtils.random(5f, 25f);
+                lifetime[index] = BLOOD_LIFETIME * MathUtils.random(0.7f, 1f);
+                spin[index] = MathUtils.random(-360f, 360f);
+                size[index] = BLOOD_SIZE * MathUtils.random(0.5f, 1f);
+            } else {
+                velocityX[index] = MathUtils.random(-30f, 30f) + direction * 20f;
+                velocityY[index] = MathUtils.random(-30f, 30f);
+                lifetime[index] = SPARK_LIFETIME * MathUtils.random(0.7f, 1f);
+                spin[index] = 0f;
+                size[index] = SPARK_SIZE * MathUtils.random(0.5f, 1f);
+            }
+        }
+        return emitted;
+    }
+
+    public void update(float deltaTime) {
+        int i = 0;
+        while (i < count) {
+            age[i] += deltaTime;
+            if (age[i] >= lifetime[i]) {
+                // move the last particle into the finished one's slot and look at it next
+                remove(i);
+                continue;
+            }
+
+            if (kind[i] == BLOOD) {
+                velocityY[i] -= GRAVITY * deltaTime;
+            }
+            x[i] += velocityX[i] * deltaTime;
+            y[i] += velocityY[i] * deltaTime;
+            rotation[i] += spin[i] * deltaTime;
+
+            // blood stays where it lands on the floor
+            if (y[i] < floorY[i]) {
+                y[i] = floorY[i];
+                velocityX[i] = velocityY[i] = spin[i] = 0f;
+            }
+            i++;
+        }
+    }
+
+    private void remove(int index) {
+        int last = --count;
+        kind[index] = kind[last];
+        x[index] = x[last];
+        y[index] = y[last];
+        velocityX[index] = velocityX[last];
+        velocityY[index] = velocityY[last];
+        floorY[index] = floorY[last];
+        age[index] = age[last];
+        lifetime[index] = lifetime[last];
+        rotation[index] = rotation[last];
+        spin[index] = spin[last];
+        size[index] = size[last];
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Draws the particles with the batch's current projection. Must be called between begin and end.
+     */
+    public void render(SpriteBatch batch) {
+        for (int i = 0; i < count; i++) {
+            float progress = age[i] / lifetime[i];
+            TextureRegion frame;
+            if (kind[i] == BLOOD) {
+                // play the splatter over the particle's life and fade it out at the end
+                frame = splatterFrames[Math.min((int) (progress * splatterFrames.length), splatterFrames.length - 1)];
+                batch.setColor(1f, 1f, 1f, Math.min(1f, (1f - progress) * 4f));
+            } else {
+                frame = splatterFrames[0];
+                batch.setColor(1f, 0.95f, 0.6f, 1f - progress);
+            }
+
+            float width = frame.getRegionWidth() * GlobalVariables.WORLD_SCALE * size[i];
+            float height = frame.getRegionHeight() * GlobalVariables.WORLD_SCALE * size[i];
+            batch.draw(frame, x[i] - width * 0.5f, y[i] - height * 0.5f, width * 0.5f, height * 0.5f, width, height,
+                    1f, 1f, rotation[i]);
+        }
+        batch.setColor(1, 1, 1, 1);
+    }
+
+    @Override
+    public void onCombatEvent(CombatEvents.Type type, long tick, Fighter attacker, Fighter defender, float damage,
+                              Fighter.State state) {
+        if (type != CombatEvents.Type.HIT && type != CombatEvents.Type.BLOCK) return;
+
+        // the hit lands in the middle of the defender's frame and pushes the particles away from the attacker
+        float defenderX = defender.getPositionX();
+        float defenderY = defender.getPositionY();
+        float hitX = defenderX + FrameData.getDefault().getFrameWidth() * 0.5f;
+        float direction = attacker == null ? 0f : Math.signum(defenderX - attacker.getPositionX());
+        if (type == CombatEvents.Type.HIT) {
+            emit(BLOOD, BLOOD_PER_HIT, hitX, defenderY + HIT_HEIGHT, defenderY, direction);
+            emit(SPARK, SPARKS_PER_HIT, hitX, defenderY + HIT_HEIGHT, defenderY, direction);
+        } else {
+            emit(SPARK, SPARKS_PER_BLOCK, hitX, defenderY + HIT_HEIGHT, defenderY, direction);
+        }
+    }
+}
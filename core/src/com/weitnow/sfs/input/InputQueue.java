@@ -0,0 +1,87 @@
+package com.weitnow.sfs.input;
+
+/**
+ * Queues button presses and releases as they arrive, so they can be applied at the start of the next simulation tick
+ * in the order they happened, instead of changing the fighters in the middle of a frame. Commands are stored in
+ * preallocated arrays; queueing and applying them never allocates.
+ */
+public class InputQueue {
+    // commands that can be queued between two ticks; further commands are dropped
+    private static final int CAPACITY = 64;
+    private static final int MASK = CAPACITY - 1;
+
+    // buttons of each command, from com.weitnow.sfs.simulation.Controls
+    private final int[] buttons = new int[CAPACITY];
+    private final boolean[] pressed = new boolean[CAPACITY];
+    // when each command arrived, in nanoseconds
+    private final long[] times = new long[CAPACITY];
+    private int head;
+    private int tail;
+
+    // time of the earliest press applied by the last apply, 0 if none was applied
+    private long appliedPressTime;
+    private int dropped;
+
+    /**
+     * Queues pressing or releasing buttons.
+     * @return false if the queue is full and the command was dropped
+     */
+    public boolean add(int buttons, boolean pressed, long timeNanos) {
+        if (tail - head == CAPACITY) {
+            dropped++;
+            return false;
+        }
+        int slot = tail & MASK;
+        this.buttons[slot] = buttons;
+        this.pressed[slot] = pressed;
+        times[slot] = timeNanos;
+        tail++;
+        return true;
+    }
+
+    /**
+     * Applies the queued commands to the held buttons. A button pressed and released before the same tick would never
+     * be seen by the fighter, so the release and all commands after it are kept for the next tick.
+     * @param controls the buttons held during the last tick
+     * @return the buttons held during the next tick
+     */
+    public int apply(int controls) {
+        appliedPressTime = 0L;
+        int pressedThisTick = 0;
+        while (head != tail) {
+            int slot = head & MASK;
+            if (pressed[slot]) {
+                controls |= buttons[slot];
+                pressedThisTick |= buttons[slot];
+                if (appliedPressTime == 0L) {
+                    appliedPressTime = times[slot];
+                }
+            } else {
+                if ((pressedThisTick & buttons[slot]) != 0) break;
+                controls &= ~buttons[slot];
+            }
+            head++;
+        }
+        return controls;
+    }
+
+    /**
+     * @return when the earliest press applied by the last {@link #apply} arrived, in nanoseconds, or 0 if it applied
+     * no press
+     */
+    public long getAppliedPressTime() {
+        return appliedPressTime;
+    }
+
+    public int size() {
+        return tail - head;
+    }
+
+    public int getDropped() {
+        return dropped;
+    }
+
+    public void clear() {
+        head = tail;
+    }
+}
@@ -0,0 +1,30 @@
+package com.weitnow.sfs.network;
+
+/**
+ * The inputs one peer sends the other: the {@link com.weitnow.sfs.simulation.Controls} of a run of consecutive ticks,
+ * plus the last tick of the receiver's inputs the sender has received. Inputs are resent until acknowledged, so a
+ * lost packet is made up for by the next one.
+ */
+public class InputPacket {
+    // last tick of the receiver's inputs the sender has received without gaps, -1 if none
+    public long ackTick;
+    // tick of the first input in the packet
+    public long startTick;
+    public int count;
+    public final int[] controls;
+
+    public InputPacket(int capacity) {
+        controls = new int[capacity];
+    }
+
+    public int getCapacity() {
+        return controls.length;
+    }
+
+    public void set(InputPacket packet) {
+        ackTick = packet.ackTick;
+        startTick = packet.startTick;
+        count = Math.min(packet.count, controls.length);
+        System.arraycopy(packet.controls, 0, controls, 0, count);
+    }
+}
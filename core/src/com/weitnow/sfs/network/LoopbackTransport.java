@@ -0,0 +1,121 @@
+package com.weitnow.sfs.network;
+
+import java.util.Random;
+
+/**
+ * An in-process transport between two peers, for playing and testing rollback without a network. The packets travel
+ * over a {@link Link} that delays them by a number of frames, randomly delays some of them further and randomly loses
+ * some of them. Packets in flight are kept in a preallocated pool, so sending and receiving never allocates.
+ */
+public class LoopbackTransport implements Transport {
+    // packets that can be in flight in each direction; further packets are lost
+    private static final int MAX_PACKETS_IN_FLIGHT = 256;
+
+    /**
+     * The simulated connection between both ends. Time passes on the link in frames, by calling {@link #update()}.
+     */
+    public static class Link {
+        private final int latencyFrames;
+        private final int jitterFrames;
+        private final float lossRate;
+        private final Random random;
+        private long frame;
+
+        private final LoopbackTransport end1;
+        private final LoopbackTransport end2;
+
+        /**
+         * @param latencyFrames frames every packet takes to arrive
+         * @param jitterFrames up to how many frames a packet randomly takes longer, which can reorder packets
+         * @param lossRate chance of a packet getting lost, from 0 to 1
+         * @param seed seed of the random jitter and loss, so runs can be repeated
+         */
+        public Link(int latencyFrames, int jitterFrames, float lossRate, long seed) {
+            this.latencyFrames = latencyFrames;
+            this.jitterFrames = jitterFrames;
+            this.lossRate = lossRate;
+            random = new Random(seed);
+            end1 = new LoopbackTransport(this);
+            end2 = new LoopbackTransport(this);
+            end1.peer = end2;
+            end2.peer = end1;
+        }
+
+        public LoopbackTransport getEnd1() {
+            return end1;
+        }
+
+        public LoopbackTransport getEnd2() {
+            return end2;
+        }
+
+        /**
+         * Lets one frame pass.
+         */
+        public void update() {
+            frame++;
+        }
+
+        public long getFrame() {
+            return frame;
+        }
+    }
+
+    private final Link link;
+    private LoopbackTransport peer;
+
+    // packets on their way to this end, unordered; the first inFlightCount are in use
+    private final InputPacket[] inFlight = new InputPacket[MAX_PACKETS_IN_FLIGHT];
+    private final long[] arrivalFrames = new long[MAX_PACKETS_IN_FLIGHT];
+    private int inFlightCount;
+
+    private long packetsSent;
+    private long packetsLost;
+
+    private LoopbackTransport(Link link) {
+        this.link = link;
+    }
+
+    @Override
+    public void send(InputPacket packet) {
+        packetsSent++;
+        if (link.random.nextFloat() < link.lossRate || peer.inFlightCount == MAX_PACKETS_IN_FLIGHT) {
+            packetsLost++;
+            return;
+        }
+
+        int slot = peer.inFlightCount++;
+        if (peer.inFlight[slot] == null || peer.inFlight[slot].getCapacity() < packet.count) {
+            peer.inFlight[slot] = new InputPacket(packet.getCapacity());
+        }
+        peer.inFlight[slot].set(packet);
+        peer.arrivalFrames[slot] = link.frame + link.latencyFrames +
+                (link.jitterFrames > 0 ? link.random.nextInt(link.jitterFrames + 1) : 0);
+    }
+
+    @Override
+    public boolean receive(InputPacket packet) {
+        for (int i = 0; i < inFlightCount; i++) {
+            if (arrivalFrames[i] <= link.frame) {
+                packet.set(inFlight[i]);
+
+                // swap the last packet in flight into the free slot, keeping the packet objects for reuse
+                int last = --inFlightCount;
+                InputPacket received = inFlight[i];
+                inFlight[i] = inFlight[last];
+                arrivalFrames[i] = arrivalFrames[last];
+                inFlight[last] = received;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getPacketsSent() {
+        return packetsSent;
+    }
+
+    public long getPacketsLost() {
+        return packetsLost;
+    }
+}
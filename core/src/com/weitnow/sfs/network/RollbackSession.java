@@ -0,0 +1,218 @@
+package com.weitnow.sfs.network;
+
+import com.badlogic.gdx.utils.TimeUtils;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import com.weitnow.sfs.simulation.MatchState;
+
+/**
+ * Plays a {@link MatchSimulation} against a remote peer with rollback netcode. Local inputs are applied right away;
+ * the remote peer's inputs that haven't arrived yet are predicted to stay the same as its last known input. When an
+ * input arrives that differs from its prediction, the match is restored to the snapshot of that tick and the ticks
+ * since are simulated again with the corrected inputs. Both peers end up simulating every tick with the same inputs,
+ * so their matches stay in sync as long as the simulation is deterministic.
+ * <p>
+ * A snapshot is saved before every tick into a preallocated ring, so neither saving nor rolling back allocates. The
+ * session runs at most {@link #MAX_ROLLBACK_TICKS} ticks ahead of the remote peer's last known input, and stalls
+ * when it would get further ahead.
+ */
+public class RollbackSession {
+    // most ticks that are predicted and may have to be simulated again
+    public static final int MAX_ROLLBACK_TICKS = 8;
+    // ticks of snapshots and inputs kept; must be a power of two and well above the rollback window, since inputs
+    // are resent until the peer acknowledges them
+    private static final int HISTORY = 64;
+    private static final int HISTORY_MASK = HISTORY - 1;
+
+    private final MatchSimulation match;
+    private final boolean localIsPlayer;
+    private final Transport transport;
+
+    // snapshot of the match before each tick, indexed by tick & HISTORY_MASK
+    private final MatchState[] states = new MatchState[HISTORY];
+    private final MatchState scratchState = new MatchState();
+    private final int[] localInputs = new int[HISTORY];
+    // remote inputs, received or predicted
+    private final int[] remoteInputs = new int[HISTORY];
+
+    private final InputPacket outgoing = new InputPacket(HISTORY);
+    private final InputPacket incoming = new InputPacket(HISTORY);
+
+    // next tick to simulate
+    private long tick;
+    // last tick of the remote inputs received without gaps, -1 if none
+    private long lastRemoteTick = -1;
+    // last tick of the local inputs the remote peer has received without gaps, -1 if none
+    private long remoteAckTick = -1;
+    // first tick that was simulated with a wrongly predicted remote input, -1 if none
+    private long firstMispredictedTick = -1;
+
+    // statistics
+    private long stalls;
+    private long rollbacks;
+    private long ticksResimulated;
+    private long maxRollbackNanos;
+
+    /**
+     * @param match the match to play, ready at its first tick
+     * @param localIsPlayer whether the local peer controls the player or the opponent of the match
+     */
+    public RollbackSession(MatchSimulation match, boolean localIsPlayer, Transport transport) {
+        this.match = match;
+        this.localIsPlayer = localIsPlayer;
+        this.transport = transport;
+        for (int i = 0; i < HISTORY; i++) {
+            states[i] = new MatchState();
+        }
+        tick = match.getTick();
+    }
+
+    /**
+     * Receives the remote inputs that have arrived, rolls back if any of them was mispredicted and simulates the
+     * next tick with the given local input. Meant to be called once per tick.
+     * @param localControls the {@link com.weitnow.sfs.simulation.Controls} held by the local peer
+     * @return false if the session stalled waiting for remote inputs, in which case the local input is dropped
+     */
+    public boolean advance(int localControls) {
+        receive();
+        if (firstMispredictedTick >= 0) {
+            rollback();
+        }
+
+        // stall instead of getting further ahead than can be rolled back
+        if (tick - lastRemoteTick > MAX_ROLLBACK_TICKS) {
+            stalls++;
+            send();
+            return false;
+        }
+
+        localInputs[slot(tick)] = localControls;
+        // a peer running behind may already have received the remote input of this tick
+        if (tick > lastRemoteTick) {
+            remoteInputs[slot(tick)] = predictRemoteInput();
+        }
+        simulate(tick);
+        tick++;
+        send();
+        return true;
+    }
+
+    private void receive() {
+        while (transport.receive(incoming)) {
+            remoteAckTick = Math.max(remoteAckTick, incoming.ackTick);
+
+            for (int i = 0; i < incoming.count; i++) {
+                long inputTick = incoming.startTick + i;
+                // inputs already received are resent until acknowledged, and inputs after a gap will be resent
+                if (inputTick != lastRemoteTick + 1) continue;
+
+                int controls = incoming.controls[i];
+                if (inputTick < tick && remoteInputs[slot(inputTick)] != controls &&
+                        (firstMispredictedTick < 0 || inputTick < firstMispredictedTick)) {
+                    firstMispredictedTick = inputTick;
+                }
+                remoteInputs[slot(inputTick)] = controls;
+                lastRemoteTick = inputTick;
+            }
+        }
+    }
+
+    private void rollback() {
+        long startTime = TimeUtils.nanoTime();
+
+        // go back to the mispredicted tick and simulate the ticks since again, without publishing their combat events
+        // a second time
+        match.restoreState(states[slot(firstMispredictedTick)]);
+        match.setCombatEventsEnabled(false);
+        for (long resimulatedTick = firstMispredictedTick; resimulatedTick < tick; resimulatedTick++) {
+            if (resimulatedTick > lastRemoteTick) {
+                remoteInputs[slot(resimulatedTick)] = predictRemoteInput();
+            }
+            simulate(resimulatedTick);
+        }
+        match.setCombatEventsEnabled(true);
+
+        rollbacks++;
+        ticksResimulated += tick - firstMispredictedTick;
+        maxRollbackNanos = Math.max(maxRollbackNanos, TimeUtils.timeSinceNanos(startTime));
+        firstMispredictedTick = -1;
+    }
+
+    private void simulate(long simulatedTick) {
+        int slot = slot(simulatedTick);
+        match.saveState(states[slot]);
+        if (localIsPlayer) {
+            match.step(localInputs[slot], remoteInputs[slot]);
+        } else {
+            match.step(remoteInputs[slot], localInputs[slot]);
+        }
+    }
+
+    private void send() {
+        // resend every input the peer hasn't acknowledged yet
+        long startTick = Math.max(remoteAckTick + 1, tick - HISTORY);
+        outgoing.ackTick = lastRemoteTick;
+        outgoing.startTick = startTick;
+        outgoing.count = (int) (tick - startTick);
+        for (int i = 0; i < outgoing.count; i++) {
+            outgoing.controls[i] = localInputs[slot(startTick + i)];
+        }
+        transport.send(outgoing);
+    }
+
+    private int predictRemoteInput() {
+        return lastRemoteTick >= 0 ? remoteInputs[slot(lastRemoteTick)] : 0;
+    }
+
+    private static int slot(long tick) {
+        return (int) tick & HISTORY_MASK;
+    }
+
+    public MatchSimulation getMatch() {
+        return match;
+    }
+
+    /**
+     * @return the next tick to simulate
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return the last tick whose state is final, since all inputs before it are known
+     */
+    public long getConfirmedTick() {
+        return Math.min(lastRemoteTick + 1, tick);
+    }
+
+    /**
+     * @return the checksum of the match state at the given tick, which must be one of the last ticks simulated
+     * @see MatchState#checksum()
+     */
+    public long getChecksum(long stateTick) {
+        if (stateTick == tick) {
+            match.saveState(scratchState);
+            return scratchState.checksum();
+        }
+        if (stateTick > tick || stateTick <= tick - HISTORY) {
+            throw new IllegalArgumentException("no snapshot of tick " + stateTick);
+        }
+        return states[slot(stateTick)].checksum();
+    }
+
+    public long getStalls() {
+        return stalls;
+    }
+
+    public long getRollbacks() {
+        return rollbacks;
+    }
+
+    public long getTicksResimulated() {
+        return ticksResimulated;
+    }
+
+    public long getMaxRollbackNanos() {
+        return maxRollbackNanos;
+    }
+}
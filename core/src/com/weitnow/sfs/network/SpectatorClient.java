@@ -0,0 +1,81 @@
+package com.weitnow.sfs.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Watches a match streamed by a {@link SpectatorServer}: reads the frames that have arrived without blocking and
+ * applies them to a {@link SpectatorView}. Reading doesn't allocate.
+ */
+public class SpectatorClient {
+    private final SocketChannel channel;
+    private final SpectatorView view;
+    // bytes received but not applied yet, in write mode between polls
+    private final ByteBuffer input;
+
+    /**
+     * Connects to a spectator server.
+     * @param maxFighters most fighters the watched match may have
+     * @param receiveBufferBytes size of the socket's receive buffer, or 0 for the system's default
+     */
+    public SpectatorClient(InetSocketAddress address, int maxFighters, int receiveBufferBytes) throws IOException {
+        view = new SpectatorView(maxFighters);
+        input = ByteBuffer.allocateDirect(Math.max(SpectatorEncoder.getMaxFrameBytes(maxFighters) * 16, 4096));
+        channel = SocketChannel.open();
+        if (receiveBufferBytes > 0) {
+            // set before connecting, so the connection is set up with it
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferBytes);
+        }
+        channel.connect(address);
+        channel.configureBlocking(false);
+    }
+
+    public SpectatorView getView() {
+        return view;
+    }
+
+    /**
+     * Reads the frames that have arrived and applies the complete ones to the view.
+     * @return the number of frames applied, or -1 if the server closed the connection
+     */
+    public int poll() throws IOException {
+        int applied = 0;
+        int read;
+        do {
+            read = channel.read(input);
+            input.flip();
+            applied += applyFrames();
+            input.compact();
+        } while (read > 0);
+        return read < 0 ? -1 : applied;
+    }
+
+    private int applyFrames() throws IOException {
+        int applied = 0;
+        while (input.remaining() >= SpectatorEncoder.LENGTH_BYTES) {
+            int start = input.position();
+            int length = input.getInt(start);
+            if (length < SpectatorEncoder.HEADER_BYTES - SpectatorEncoder.LENGTH_BYTES ||
+                    length > input.capacity() - SpectatorEncoder.LENGTH_BYTES) {
+                throw new IOException("Invalid spectator frame length: " + length);
+            }
+            if (input.remaining() < SpectatorEncoder.LENGTH_BYTES + length) break;
+
+            // let the view see only this frame
+            int limit = input.limit();
+            input.position(start + SpectatorEncoder.LENGTH_BYTES);
+            input.limit(start + SpectatorEncoder.LENGTH_BYTES + length);
+            if (view.apply(input)) applied++;
+            input.limit(limit);
+            input.position(start + SpectatorEncoder.LENGTH_BYTES + length);
+        }
+        return applied;
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+}
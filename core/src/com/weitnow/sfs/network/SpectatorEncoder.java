@@ -0,0 +1,145 @@
+package com.weitnow.sfs.network;
+
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.objects.FighterWorld;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes the state spectators see of a match's fighters into frames. A keyframe holds every field of every fighter;
+ * a delta only the fields that differ from the last keyframe, so any delta can be applied to the keyframe alone and a
+ * spectator that misses deltas is still in sync with the next one it gets.
+ * <p>
+ * A frame starts with its length, so it can be read from a stream, followed by its type, its tick, the tick of the
+ * keyframe it is based on and the number of fighters. Each fighter is a bit mask of the fields that follow, then the
+ * fields: position x and y, state, state time, life and facing. Encoding doesn't allocate.
+ */
+public class SpectatorEncoder {
+    // types of frames
+    public static final byte KEYFRAME = 0;
+    public static final byte DELTA = 1;
+
+    // bits of the fields of a fighter in a frame
+    public static final int POSITION = 1;
+    public static final int STATE = 1 << 1;
+    public static final int STATE_TIME = 1 << 2;
+    public static final int LIFE = 1 << 3;
+    public static final int FACING = 1 << 4;
+    public static final int ALL_FIELDS = POSITION | STATE | STATE_TIME | LIFE | FACING;
+
+    // bytes of the length at the start of a frame, which doesn't count itself
+    public static final int LENGTH_BYTES = 4;
+    // bytes of a frame's length, type, tick, keyframe tick and fighter count
+    public static final int HEADER_BYTES = LENGTH_BYTES + 1 + 8 + 8 + 1;
+    // bytes of a fighter with all of its fields
+    public static final int MAX_FIGHTER_BYTES = 1 + 4 + 4 + 1 + 4 + 4 + 1;
+
+    private final Fighter[] fighters;
+
+    // the fields of the fighters in the last keyframe
+    private final float[] keyPositionX, keyPositionY;
+    private final byte[] keyState;
+    private final float[] keyStateTime;
+    private final float[] keyLife;
+    private final byte[] keyFacing;
+    private long keyframeTick = -1;
+
+    public SpectatorEncoder(Fighter... fighters) {
+        if (fighters.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many fighters: " + fighters.length);
+        }
+        this.fighters = fighters;
+        keyPositionX = new float[fighters.length];
+        keyPositionY = new float[fighters.length];
+        keyState = new byte[fighters.length];
+        keyStateTime = new float[fighters.length];
+        keyLife = new float[fighters.length];
+        keyFacing = new byte[fighters.length];
+    }
+
+    /**
+     * @return the size of the largest frame of the given number of fighters, which is a keyframe
+     */
+    public static int getMaxFrameBytes(int fighters) {
+        return HEADER_BYTES + fighters * MAX_FIGHTER_BYTES;
+    }
+
+    public int getFighterCount() {
+        return fighters.length;
+    }
+
+    /**
+     * @return the tick of the last keyframe, -1 if none has been encoded yet
+     */
+    public long getKeyframeTick() {
+        return keyframeTick;
+    }
+
+    /**
+     * Encodes the fighters' current state into the buffer, replacing its contents, and flips it, so it holds exactly
+     * the frame.
+     * @param keyframe whether to encode a keyframe, which the following deltas are based on; the first frame has to
+     * be one
+     * @return the size of the frame
+     */
+    public int encode(long tick, boolean keyframe, ByteBuffer buffer) {
+        if (!keyframe && keyframeTick < 0) {
+            throw new IllegalStateException("A delta needs a keyframe to be based on");
+        }
+        if (keyframe) {
+            keyframeTick = tick;
+        }
+
+        buffer.clear();
+        // the length is filled in once the frame is complete
+        buffer.putInt(0);
+        buffer.put(keyframe ? KEYFRAME : DELTA);
+        buffer.putLong(tick);
+        buffer.putLong(keyframeTick);
+        buffer.put((byte) fighters.length);
+
+        for (int i = 0; i < fighters.length; i++) {
+            FighterWorld world = fighters[i].getWorld();
+            int index = fighters[i].getIndex();
+            float positionX = world.getPositionX(index);
+            float positionY = world.getPositionY(index);
+            byte state = (byte) world.getState(index).ordinal();
+            float stateTime = world.getStateTime(index);
+            float life = world.getLife(index);
+            byte facing = (byte) world.getFacing(index);
+
+            int fields;
+            if (keyframe) {
+                fields = ALL_FIELDS;
+                keyPositionX[i] = positionX;
+                keyPositionY[i] = positionY;
+                keyState[i] = state;
+                keyStateTime[i] = stateTime;
+                keyLife[i] = life;
+                keyFacing[i] = facing;
+            } else {
+                fields = 0;
+                if (positionX != keyPositionX[i] || positionY != keyPositionY[i]) fields |= POSITION;
+                if (state != keyState[i]) fields |= STATE;
+                if (stateTime != keyStateTime[i]) fields |= STATE_TIME;
+                if (life != keyLife[i]) fields |= LIFE;
+                if (facing != keyFacing[i]) fields |= FACING;
+            }
+
+            buffer.put((byte) fields);
+            if ((fields & POSITION) != 0) {
+                buffer.putFloat(positionX);
+                buffer.putFloat(positionY);
+            }
+            if ((fields & STATE) != 0) buffer.put(state);
+            if ((fields & STATE_TIME) != 0) buffer.putFloat(stateTime);
+            if ((fields & LIFE) != 0) buffer.putFloat(life);
+            if ((fields & FACING) != 0) buffer.put(facing);
+        }
+
+        int size = buffer.position();
+        buffer.putInt(0, size - LENGTH_BYTES);
+        buffer.flip();
+        return size;
+    }
+}
@@ -0,0 +1,412 @@
+package com.weitnow.sfs.network;
+
+import com.weitnow.sfs.objects.Fighter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Streams a live match to spectators over TCP. Every tick is encoded once by a {@link SpectatorEncoder}, as a keyframe
+ * every {@link #getKeyframeInterval() few} ticks and as a delta against it otherwise, and that one buffer is written
+ * to every spectator's socket; spectators only keep how far into it they got, so the frame is never copied per
+ * spectator.
+ * <p>
+ * Nothing blocks: a non-blocking selector accepts spectators and notices when they leave, and frames are written as
+ * far as a socket takes them. A spectator whose socket is still full from an earlier frame skips the new ones and
+ * falls back to keyframes: it gets the latest keyframe as soon as its socket has room, then only keyframes until it
+ * takes one in a single write again, so a slow spectator never builds up a backlog of deltas and costs at most a
+ * keyframe per interval. It is meant to be driven from the thread that steps the match, by calling
+ * {@link #broadcast(long)} after each tick.
+ */
+public class SpectatorServer {
+    // ticks between two keyframes by default, half a second
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 60;
+    // connections waiting to be accepted, enough for hundreds of spectators joining at once
+    private static final int BACKLOG = 1024;
+    // frames encoded up front; more are allocated only while spectators are still writing older ones
+    private static final int INITIAL_FRAMES = 4;
+
+    /**
+     * An encoded frame, shared by all spectators it is written to.
+     */
+    private static class Frame {
+        final ByteBuffer buffer;
+        boolean keyframe;
+        long tick;
+        int size;
+        // spectators still writing the frame, plus one while it is the latest keyframe
+        int references;
+
+        Frame(int capacity) {
+            buffer = ByteBuffer.allocateDirect(capacity);
+        }
+    }
+
+    private static class Spectator {
+        final SocketChannel channel;
+        // the frame being written to the spectator, and how much of it has been, or null if none
+        Frame pending;
+        int pendingPosition;
+        // tick of the last keyframe the spectator has received completely, -1 if none
+        long keyframeTick = -1;
+        // whether the spectator couldn't keep up and only gets keyframes
+        boolean lagging;
+
+        Spectator(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final SpectatorEncoder encoder;
+    private final int keyframeInterval;
+    private final int sendBufferBytes;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ArrayList<Spectator> spectators = new ArrayList<>();
+    private final ArrayList<Frame> frames = new ArrayList<>();
+    private Frame latestKeyframe;
+    private boolean keyframeRequested;
+    // read from spectators only to notice when they close their connection
+    private final ByteBuffer discard = ByteBuffer.allocateDirect(256);
+
+    // statistics
+    private long spectatorsAccepted;
+    private long spectatorsLost;
+    private long keyframesEncoded;
+    private long deltasEncoded;
+    private long bytesEncoded;
+    private long framesSent;
+    private long framesDropped;
+    private long bytesSent;
+    private long fallbacks;
+    private long maxBroadcastNanos;
+
+    /**
+     * Starts listening for spectators with the default keyframe interval and the system's socket buffers.
+     * @param port the port to listen on, 0 for any free one
+     */
+    public SpectatorServer(int port, Fighter... fighters) throws IOException {
+        this(new InetSocketAddress(port), DEFAULT_KEYFRAME_INTERVAL, 0, fighters);
+    }
+
+    /**
+     * @param keyframeInterval ticks between two keyframes
+     * @param sendBufferBytes size of each spectator's socket send buffer, which is how far a spectator may fall behind
+     * before it skips frames, or 0 for the system's default
+     * @param fighters the fighters of the match, whose state is streamed
+     */
+    public SpectatorServer(InetSocketAddress address, int keyframeInterval, int sendBufferBytes, Fighter... fighters)
+            throws IOException {
+        encoder = new SpectatorEncoder(fighters);
+        this.keyframeInterval = keyframeInterval;
+        this.sendBufferBytes = sendBufferBytes;
+        for (int i = 0; i < INITIAL_FRAMES; i++) {
+            frames.add(new Frame(SpectatorEncoder.getMaxFrameBytes(fighters.length)));
+        }
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(address, BACKLOG);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * @return the port spectators connect to
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * Makes the next broadcast a keyframe, e.g. after the match jumped to another state.
+     */
+    public void requestKeyframe() {
+        keyframeRequested = true;
+    }
+
+    /**
+     * Accepts new spectators, encodes the fighters' state at the given tick and sends it to every spectator that has
+     * room for it.
+     */
+    public void broadcast(long tick) throws IOException {
+        long start = System.nanoTime();
+        poll();
+
+        boolean keyframe = keyframeRequested || latestKeyframe == null ||
+                tick - latestKeyframe.tick >= keyframeInterval;
+        keyframeRequested = false;
+        Frame frame = obtainFrame();
+        frame.keyframe = keyframe;
+        frame.tick = tick;
+        frame.size = encoder.encode(tick, keyframe, frame.buffer);
+        bytesEncoded += frame.size;
+        if (keyframe) {
+            keyframesEncoded++;
+            // keep the latest keyframe for spectators that still need it
+            frame.references++;
+            if (latestKeyframe != null) {
+                latestKeyframe.references--;
+            }
+            latestKeyframe = frame;
+        } else {
+            deltasEncoded++;
+        }
+
+        for (int i = spectators.size() - 1; i >= 0; i--) {
+            Spectator spectator = spectators.get(i);
+            try {
+                if (!finishPending(spectator)) {
+                    // still busy with an earlier frame, so it skips this one and only gets keyframes from now on
+                    framesDropped++;
+                    if (!spectator.lagging) {
+                        spectator.lagging = true;
+                        fallbacks++;
+                    }
+                } else if (spectator.keyframeTick != latestKeyframe.tick) {
+                    // a new or lagging spectator catches up with the latest keyframe
+                    send(spectator, latestKeyframe);
+                } else if (!spectator.lagging && !keyframe) {
+                    send(spectator, frame);
+                }
+            } catch (IOException e) {
+                remove(i);
+            }
+        }
+
+        maxBroadcastNanos = Math.max(maxBroadcastNanos, System.nanoTime() - start);
+    }
+
+    /**
+     * Accepts new spectators and writes as much of the frames still pending as the sockets take, without encoding a
+     * new frame. Spectators without the latest keyframe are sent it.
+     */
+    public void flush() throws IOException {
+        poll();
+        if (latestKeyframe == null) return;
+        for (int i = spectators.size() - 1; i >= 0; i--) {
+            Spectator spectator = spectators.get(i);
+            try {
+                if (finishPending(spectator) && spectator.keyframeTick != latestKeyframe.tick) {
+                    send(spectator, latestKeyframe);
+                }
+            } catch (IOException e) {
+                remove(i);
+            }
+        }
+    }
+
+    /**
+     * Accepts spectators that have connected and drops the ones that have disconnected.
+     */
+    private void poll() throws IOException {
+        if (selector.selectNow() == 0) return;
+
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) continue;
+
+            if (key.isAcceptable()) {
+                SocketChannel channel;
+                while ((channel = serverChannel.accept()) != null) {
+                    accept(channel);
+                }
+            } else if (key.isReadable()) {
+                Spectator spectator = (Spectator) key.attachment();
+                // spectators don't send anything, so a read only tells that the connection is gone
+                int read;
+                try {
+                    discard.clear();
+                    read = spectator.channel.read(discard);
+                } catch (IOException e) {
+                    read = -1;
+                }
+                if (read < 0) {
+                    remove(spectators.indexOf(spectator));
+                }
+            }
+        }
+    }
+
+    private void accept(SocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        if (sendBufferBytes > 0) {
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, sendBufferBytes);
+        }
+        Spectator spectator = new Spectator(channel);
+        channel.register(selector, SelectionKey.OP_READ, spectator);
+        spectators.add(spectator);
+        spectatorsAccepted++;
+    }
+
+    private void remove(int index) {
+        // swap the last spectator into the free slot
+        Spectator spectator = spectators.get(index);
+        int last = spectators.size() - 1;
+        spectators.set(index, spectators.get(last));
+        spectators.remove(last);
+
+        if (spectator.pending != null) {
+            spectator.pending.references--;
+            spectator.pending = null;
+        }
+        try {
+            spectator.channel.close();
+        } catch (IOException ignored) {
+            // it is gone either way
+        }
+        spectatorsLost++;
+    }
+
+    /**
+     * @return a frame no spectator is writing anymore, allocating one only if every frame is still in use
+     */
+    private Frame obtainFrame() {
+        for (int i = 0; i < frames.size(); i++) {
+            Frame frame = frames.get(i);
+            if (frame.references == 0) return frame;
+        }
+        Frame frame = new Frame(frames.get(0).buffer.capacity());
+        frames.add(frame);
+        return frame;
+    }
+
+    /**
+     * Starts writing a frame to a spectator.
+     */
+    private void send(Spectator spectator, Frame frame) throws IOException {
+        spectator.pending = frame;
+        spectator.pendingPosition = 0;
+        frame.references++;
+        if (write(spectator) && frame.keyframe) {
+            // took a whole keyframe right away, so it has caught up
+            spectator.lagging = false;
+        }
+    }
+
+    /**
+     * Writes as much of the spectator's pending frame as its socket takes.
+     * @return true if there is no pending frame left
+     */
+    private boolean finishPending(Spectator spectator) throws IOException {
+        return spectator.pending == null || write(spectator);
+    }
+
+    private boolean write(Spectator spectator) throws IOException {
+        Frame frame = spectator.pending;
+        // all spectators share the frame's buffer, so point it at this spectator's part before writing
+        ByteBuffer buffer = frame.buffer;
+        buffer.limit(frame.size);
+        buffer.position(spectator.pendingPosition);
+        int written = spectator.channel.write(buffer);
+        spectator.pendingPosition += written;
+        bytesSent += written;
+        if (spectator.pendingPosition < frame.size) return false;
+
+        if (frame.keyframe) {
+            spectator.keyframeTick = frame.tick;
+        }
+        spectator.pending = null;
+        frame.references--;
+        framesSent++;
+        return true;
+    }
+
+    public int getSpectatorCount() {
+        return spectators.size();
+    }
+
+    /**
+     * @return the number of spectators that currently only get keyframes
+     */
+    public int getLaggingSpectatorCount() {
+        int lagging = 0;
+        for (int i = 0; i < spectators.size(); i++) {
+            if (spectators.get(i).lagging) lagging++;
+        }
+        return lagging;
+    }
+
+    public long getSpectatorsAccepted() {
+        return spectatorsAccepted;
+    }
+
+    public long getSpectatorsLost() {
+        return spectatorsLost;
+    }
+
+    public long getKeyframesEncoded() {
+        return keyframesEncoded;
+    }
+
+    public long getDeltasEncoded() {
+        return deltasEncoded;
+    }
+
+    public long getBytesEncoded() {
+        return bytesEncoded;
+    }
+
+    /**
+     * @return the number of frames written completely to a spectator
+     */
+    public long getFramesSent() {
+        return framesSent;
+    }
+
+    /**
+     * @return the number of frames spectators skipped because they were still busy with an earlier one
+     */
+    public long getFramesDropped() {
+        return framesDropped;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return how often a spectator fell back to keyframes
+     */
+    public long getFallbacks() {
+        return fallbacks;
+    }
+
+    /**
+     * @return the number of frame buffers, which only grows while slow spectators hold on to older frames
+     */
+    public int getFrameBufferCount() {
+        return frames.size();
+    }
+
+    public long getMaxBroadcastNanos() {
+        return maxBroadcastNanos;
+    }
+
+    /**
+     * Disconnects all spectators and stops listening.
+     */
+    public void close() throws IOException {
+        for (int i = spectators.size() - 1; i >= 0; i--) {
+            remove(i);
+        }
+        serverChannel.close();
+        selector.close();
+    }
+}
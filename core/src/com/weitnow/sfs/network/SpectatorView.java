@@ -0,0 +1,175 @@
+package com.weitnow.sfs.network;
+
+import com.weitnow.sfs.objects.Fighter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * What a spectator knows about a match: the fighters' state as of the last frame received from a
+ * {@link SpectatorServer}. Deltas are applied to the last keyframe, so deltas based on a keyframe the spectator
+ * doesn't have are skipped until the next keyframe arrives. Applying a frame doesn't allocate.
+ */
+public class SpectatorView {
+    private static final Fighter.State[] STATES = Fighter.State.values();
+
+    // the fighters' current fields
+    private final float[] positionX, positionY;
+    private final byte[] state;
+    private final float[] stateTime;
+    private final float[] life;
+    private final byte[] facing;
+
+    // the fighters' fields in the last keyframe
+    private final float[] keyPositionX, keyPositionY;
+    private final byte[] keyState;
+    private final float[] keyStateTime;
+    private final float[] keyLife;
+    private final byte[] keyFacing;
+
+    private int fighterCount;
+    // tick of the last frame applied, -1 if none
+    private long tick = -1;
+    private long keyframeTick = -1;
+
+    // statistics
+    private long keyframes;
+    private long deltas;
+    private long framesSkipped;
+
+    /**
+     * @param capacity most fighters a frame may have
+     */
+    public SpectatorView(int capacity) {
+        positionX = new float[capacity];
+        positionY = new float[capacity];
+        state = new byte[capacity];
+        stateTime = new float[capacity];
+        life = new float[capacity];
+        facing = new byte[capacity];
+        keyPositionX = new float[capacity];
+        keyPositionY = new float[capacity];
+        keyState = new byte[capacity];
+        keyStateTime = new float[capacity];
+        keyLife = new float[capacity];
+        keyFacing = new byte[capacity];
+    }
+
+    /**
+     * Applies the frame between the buffer's position and limit, as encoded by the {@link SpectatorEncoder} but
+     * without its length, and moves the position past it.
+     * @return false if the frame was a delta based on a keyframe this view doesn't have, or older than the last frame
+     * applied, and was skipped
+     */
+    public boolean apply(ByteBuffer frame) {
+        byte type = frame.get();
+        long frameTick = frame.getLong();
+        long frameKeyframeTick = frame.getLong();
+        int count = frame.get();
+        if (count < 0 || count > positionX.length) {
+            throw new IllegalArgumentException("Frame of " + count + " fighters, at most " + positionX.length +
+                    " are supported");
+        }
+
+        boolean keyframe = type == SpectatorEncoder.KEYFRAME;
+        if (frameTick < tick || !keyframe && frameKeyframeTick != keyframeTick) {
+            framesSkipped++;
+            frame.position(frame.limit());
+            return false;
+        }
+
+        for (int i = 0; i < count; i++) {
+            // start from the keyframe and overwrite the fields that changed since
+            if (!keyframe) {
+                positionX[i] = keyPositionX[i];
+                positionY[i] = keyPositionY[i];
+                state[i] = keyState[i];
+                stateTime[i] = keyStateTime[i];
+                life[i] = keyLife[i];
+                facing[i] = keyFacing[i];
+            }
+
+            int fields = frame.get();
+            if ((fields & SpectatorEncoder.POSITION) != 0) {
+                positionX[i] = frame.getFloat();
+                positionY[i] = frame.getFloat();
+            }
+            if ((fields & SpectatorEncoder.STATE) != 0) state[i] = frame.get();
+            if ((fields & SpectatorEncoder.STATE_TIME) != 0) stateTime[i] = frame.getFloat();
+            if ((fields & SpectatorEncoder.LIFE) != 0) life[i] = frame.getFloat();
+            if ((fields & SpectatorEncoder.FACING) != 0) facing[i] = frame.get();
+
+            if (keyframe) {
+                keyPositionX[i] = positionX[i];
+                keyPositionY[i] = positionY[i];
+                keyState[i] = state[i];
+                keyStateTime[i] = stateTime[i];
+                keyLife[i] = life[i];
+                keyFacing[i] = facing[i];
+            }
+        }
+
+        fighterCount = count;
+        tick = frameTick;
+        if (keyframe) {
+            keyframeTick = frameTick;
+            keyframes++;
+        } else {
+            deltas++;
+        }
+        return true;
+    }
+
+    public int getFighterCount() {
+        return fighterCount;
+    }
+
+    /**
+     * @return the tick of the last frame applied, -1 if none
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return the tick of the last keyframe applied, -1 if none
+     */
+    public long getKeyframeTick() {
+        return keyframeTick;
+    }
+
+    public float getPositionX(int index) {
+        return positionX[index];
+    }
+
+    public float getPositionY(int index) {
+        return positionY[index];
+    }
+
+    public Fighter.State getState(int index) {
+        return STATES[state[index]];
+    }
+
+    public float getStateTime(int index) {
+        return stateTime[index];
+    }
+
+    public float getLife(int index) {
+        return life[index];
+    }
+
+    public int getFacing(int index) {
+        return facing[index];
+    }
+
+    public long getKeyframes() {
+        return keyframes;
+    }
+
+    public long getDeltas() {
+        return deltas;
+    }
+
+    public long getFramesSkipped() {
+        return framesSkipped;
+    }
+}
@@ -0,0 +1,18 @@
+package com.weitnow.sfs.network;
+
+/**
+ * Carries input packets between two peers. Delivery may be delayed, reordered or lossy; the
+ * {@link RollbackSession} copes with all of that.
+ */
+public interface Transport {
+    /**
+     * Sends a packet to the other peer. The packet is copied, so the caller may reuse it right away.
+     */
+    void send(InputPacket packet);
+
+    /**
+     * Copies the next packet that has arrived into the given packet.
+     * @return false if no packet has arrived
+     */
+    boolean receive(InputPacket packet);
+}
@@ -5,16 +5,21 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.math.Vector2;
 import com.weitnow.sfs.SFS;
+import com.weitnow.sfs.ressources.AnimationLibrary;
 import com.weitnow.sfs.ressources.Assets;
 import com.weitnow.sfs.ressources.GlobalVariables;
+import com.weitnow.sfs.simulation.CombatEvents;
+import com.weitnow.sfs.simulation.MatchSimulation;
 
-public class Fighter {
+public class Fighter implements Renderable {
 
     // number of frame rows and columns in each animation sprite sheet
-    private static final int FRAME_ROWS = 2, FRAME_COLS = 3;
+    public static final int FRAME_ROWS = 2, FRAME_COLS = 3;
+    // number of frames in each animation
+    public static final int FRAME_COUNT = FRAME_ROWS * FRAME_COLS;
 
     // how fast a fighter can move
     public static final float MOVEMENT_SPEED = 10f;
@@ -40,338 +45,287 @@ public class Fighter {
         WIN
     }
 
-    private State state;
-    private float stateTime;
-    private State renderState;
-    private float renderStateTime;
-    private final Vector2 position = new Vector2();
-    private final Vector2 movementDirection = new Vector2();
-    private float life;
-    private int facing;
-    private boolean madeContact;
-
-    // animations
-    private Animation<TextureRegion> blockAnimation;
-    private Animation<TextureRegion> hurtAnimation;
-    private Animation<TextureRegion> idleAnimation;
-    private Animation<TextureRegion> kickAnimation;
-    private Animation<TextureRegion> loseAnimation;
-    private Animation<TextureRegion> punchAnimation;
-    private Animation<TextureRegion> walkAnimation;
-    private Animation<TextureRegion> winAnimation;
-
-    public Fighter(SFS game, String name, Color color) {
+    // the fighter's simulation state is stored in a slot of a fighter world
+    private final FighterWorld world;
+    private final int index;
+
+    // animation of each state, indexed by state
+    private Animation<TextureRegion>[] animations;
+
+    /**
+     * Creates a fighter with the game's animations in the next free slot of the given world.
+     */
+    @SuppressWarnings("unchecked")
+    public Fighter(SFS game, FighterWorld world, String name, Color color) {
+        this(world, name, color);
+
+        // look up the shared animations of the moves
+        AnimationLibrary library = game.assets.animations;
+        MoveSet moves = world.getMoves();
+        animations = (Animation<TextureRegion>[]) new Animation<?>[moves.getStateCount()];
+        for (int state = 0; state < animations.length; state++) {
+            animations[state] = library.get(moves.getSpriteSheet(state), moves.getFrameDuration(state));
+        }
+    }
+
+    /**
+     * Creates a fighter without animations. Such a fighter can be simulated, but not rendered, which allows
+     * matches to run without a graphics backend or loaded textures.
+     */
+    public Fighter(String name, Color color) {
+        this(new FighterWorld(1), name, color);
+    }
+
+    /**
+     * Creates a fighter without animations in the next free slot of the given world.
+     */
+    public Fighter(FighterWorld world, String name, Color color) {
+        this.world = world;
+        this.index = world.add(this);
         this.name = name;
         this.color = color;
+    }
+
+    /**
+     * Draws the fighter with a skin instead of the shared sprite sheets. A skin holds the frames of every state,
+     * laid out like the sprite sheets stacked in the order of {@link State}, with frames of the same size, since the
+     * frame data of the shared sprite sheets decides where the fighter hits and gets hit. Drawing from another
+     * texture than the gameplay atlas costs the sprite batch a flush.
+     */
+    @SuppressWarnings("unchecked")
+    public void setSkin(Texture skin) {
+        MoveSet moves = world.getMoves();
+        TextureRegion[][] rows = TextureRegion.split(skin, skin.getWidth() / FRAME_COLS,
+                skin.getHeight() / (FRAME_ROWS * moves.getStateCount()));
+        animations = (Animation<TextureRegion>[]) new Animation<?>[moves.getStateCount()];
+        for (int state = 0; state < animations.length; state++) {
+            TextureRegion[] frames = new TextureRegion[FRAME_COUNT];
+            for (int frame = 0; frame < FRAME_COUNT; frame++) {
+                frames[frame] = rows[state * FRAME_ROWS + frame / FRAME_COLS][frame % FRAME_COLS];
+            }
+            animations[state] = new Animation<>(moves.getFrameDuration(state), frames);
+        }
+    }
+
+    public FighterWorld getWorld() {
+        return world;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setCombatEvents(CombatEvents combatEvents) {
+        world.combatEvents[index] = combatEvents;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    public float getPositionX() {
+        return world.positionX[index];
+    }
 
-        // initialize the animations
-        initializeBlockAnimation(game.assets.manager);
-        initializeHurtAnimation(game.assets.manager);
-        initializeIdleAnimation(game.assets.manager);
-        initializeKickAnimation(game.assets.manager);
-        initializeLoseAnimation(game.assets.manager);
-        initializePunchAnimation(game.assets.manager);
-        initializeWalkAnimation(game.assets.manager);
-        initializeWinAnimation(game.assets.manager);
+    public float getPositionY() {
+        return world.positionY[index];
     }
 
-    public Vector2 getPosition() {
-        return position;
+    public void setPosition(float x, float y) {
+        world.positionX[index] = x;
+        world.positionY[index] = y;
     }
 
     public float getLife() {
-        return life;
+        return world.life[index];
+    }
+
+    public State getState() {
+        return world.getState(index);
+    }
+
+    /**
+     * Copies the fighter's complete simulation state into the given arrays.
+     * @see FighterWorld#saveState
+     */
+    public void saveState(float[] floats, int floatOffset, int[] ints, int intOffset) {
+        world.saveState(index, floats, floatOffset, ints, intOffset);
+    }
+
+    /**
+     * Sets the fighter's complete simulation state from arrays filled by {@link #saveState}.
+     */
+    public void restoreState(float[] floats, int floatOffset, int[] ints, int intOffset) {
+        world.restoreState(index, floats, floatOffset, ints, intOffset);
     }
 
     public void getReady(float positionX, float positionY) {
-        state = renderState = State.IDLE;
-        stateTime = renderStateTime = 0f;
-        position.set(positionX, positionY);
-        movementDirection.set(0, 0);
-        life = MAX_LIFE;
-        madeContact = false;
-    }
-
-    public void render(SpriteBatch batch) {
-        // get the current animation frame
-        TextureRegion currentFrame;
-        switch (renderState) {
-            case BLOCK:
-                currentFrame = blockAnimation.getKeyFrame(renderStateTime, true);
-                break;
-            case HURT:
-                currentFrame = hurtAnimation.getKeyFrame(renderStateTime, false);
-                break;
-            case IDLE:
-                currentFrame = idleAnimation.getKeyFrame(renderStateTime, true);
-                break;
-            case KICK:
-                currentFrame = kickAnimation.getKeyFrame(renderStateTime, false);
-                break;
-            case LOSE:
-                currentFrame = loseAnimation.getKeyFrame(renderStateTime, false);
-                break;
-            case PUNCH:
-                currentFrame = punchAnimation.getKeyFrame(renderStateTime, false);
-                break;
-            case WALK:
-                currentFrame = walkAnimation.getKeyFrame(renderStateTime, true);
-                break;
-            default:
-                currentFrame = winAnimation.getKeyFrame(renderStateTime, true);
-        }
+        world.getReady(index, positionX, positionY);
+    }
+
+    @Override
+    public float getDepth() {
+        // fighters further up in the ring are further back
+        return world.positionY[index];
+    }
+
+    @Override
+    public void render(SpriteBatch batch, float alpha) {
+        // get the current animation frame, as far into the animation as the frame is between the last two ticks
+        float renderStateTime = Math.max(world.renderStateTime[index] - (1f - alpha) * MatchSimulation.TICK_DURATION,
+                0f);
+        int renderState = world.renderState[index];
+        TextureRegion currentFrame = animations[renderState].getKeyFrame(renderStateTime,
+                world.getMoves().isLooping(renderState));
         batch.setColor(color);
 
-        batch.draw(currentFrame, position.x, position.y, currentFrame.getRegionWidth() * 0.5f * GlobalVariables.WORLD_SCALE,
+        batch.draw(currentFrame, world.getInterpolatedPositionX(index, alpha),
+                world.getInterpolatedPositionY(index, alpha), currentFrame.getRegionWidth() * 0.5f * GlobalVariables.WORLD_SCALE,
                 0,currentFrame.getRegionWidth() * GlobalVariables.WORLD_SCALE,
-                currentFrame.getRegionHeight() * GlobalVariables.WORLD_SCALE, facing, 1f, 0f);
+                currentFrame.getRegionHeight() * GlobalVariables.WORLD_SCALE, world.facing[index], 1f, 0f);
 
         batch.setColor(1, 1, 1,1);
     }
 
     public void update(float deltaTime) {
-        // increment the state time by delta time
-        stateTime += deltaTime;
-
-        // only update the render state if delta time is greater than zero
-        if (deltaTime > 0) {
-            renderState = state;
-            renderStateTime = stateTime;
-        }
-
-        if (state == State.WALK) {
-            // if the fighter is walking, move in the direction of the movement direction vector
-            position.x += movementDirection.x * MOVEMENT_SPEED * deltaTime;
-            position.y += movementDirection.y * MOVEMENT_SPEED * deltaTime;
-        } else if ((state == State.PUNCH && punchAnimation.isAnimationFinished(stateTime)) || (state == State.KICK &&
-                kickAnimation.isAnimationFinished(stateTime)) || (state == State.HURT && hurtAnimation.isAnimationFinished(stateTime))) {
-            // if the animation has finished and the movement direction is set, start walking; otherwise, go to idle
-            if (movementDirection.x != 0 || movementDirection.y != 0) {
-                changeState(State.WALK);
-            } else {
-                changeState(State.IDLE);
-            }
-        }
+        world.update(index, deltaTime);
     }
 
     public void faceLeft() {
-        facing = -1;
+        world.faceLeft(index);
     }
 
     public void faceRight() {
-        facing = 1;
-    }
-
-    private void changeState(State newState) {
-        state = newState;
-        stateTime = 0f;
-    }
-
-    private void setMovment(float x, float y) {
-        movementDirection.set(x, y);
-        if (state == State.WALK && x == 0 && y == 0) {
-            changeState(State.IDLE);
-        } else if (state == State.IDLE && (x != 0 || y != 0)) {
-            changeState(State.WALK);
-        }
+        world.faceRight(index);
     }
 
     public void moveLeft() {
-        setMovment(-1, movementDirection.y);
+        world.setMovement(index, -1, world.movementDirectionY[index]);
     }
 
     public void moveRight() {
-        setMovment(1, movementDirection.y);
+        world.setMovement(index, 1, world.movementDirectionY[index]);
     }
 
     public void moveUp() {
-        setMovment(movementDirection.x, 1);
+        world.setMovement(index, world.movementDirectionX[index], 1);
     }
 
     public void moveDown() {
-        setMovment(movementDirection.x, -1);
+        world.setMovement(index, world.movementDirectionX[index], -1);
     }
 
     public void stopMovingLeft() {
-        if (movementDirection.x == -1) {
-            setMovment(0, movementDirection.y);
+        if (world.movementDirectionX[index] == -1) {
+            world.setMovement(index, 0, world.movementDirectionY[index]);
         }
     }
 
     public void stopMovingRight() {
-        if (movementDirection.x == 1) {
-            setMovment(0, movementDirection.y);
+        if (world.movementDirectionX[index] == 1) {
+            world.setMovement(index, 0, world.movementDirectionY[index]);
         }
     }
 
     public void stopMovingUp() {
-        if (movementDirection.y == 1) {
-            setMovment (movementDirection.x, 0);
+        if (world.movementDirectionY[index] == 1) {
+            world.setMovement(index, world.movementDirectionX[index], 0);
         }
     }
 
     public void stopMovingDown() {
-        if (movementDirection.y == -1) {
-            setMovment (movementDirection.x, 0);
+        if (world.movementDirectionY[index] == -1) {
+            world.setMovement(index, world.movementDirectionX[index], 0);
         }
     }
 
     public void block() {
-        if (state == State.IDLE || state == State.WALK) {
-            changeState(State.BLOCK);
-        }
+        world.block(index);
     }
 
     public void stopBlocking() {
-        if (state == State.BLOCK) {
-            // if the movement direction is set, start walking otherwise, go to idle
-            if (movementDirection.x != 0 || movementDirection.y != 0) {
-                changeState(State.WALK);
-            } else {
-                changeState(State.IDLE);
-            }
-        }
+        world.stopBlocking(index);
     }
 
     public boolean isBlocking() {
-        return state == State.BLOCK;
+        return world.isBlocking(index);
     }
 
     public void punch() {
-        if (state == State.IDLE || state == State.WALK) {
-            changeState(State.PUNCH);
-
-            // just started attacking, so contact hasn't been made yet
-            madeContact = false;
-        }
+        world.punch(index);
     }
 
     public void kick() {
-        if (state == State.IDLE || state == State.WALK) {
-            changeState(State.KICK);
-
-            // just started attacking, so contact hasn't been made yet
-            madeContact = false;
-        }
+        world.kick(index);
     }
 
     public void makeContact() {
-        madeContact = true;
+        world.makeContact(index);
     }
 
     public boolean hasMadeContact() {
-        return madeContact;
+        return world.hasMadeContact(index);
     }
 
     public boolean isAttackActive() {
-        // the attack is only active if the fighter has not yet made contact and the attack animation
-        // has not just started or is almost finished
-        if (hasMadeContact()) {
-            return false;
-        } else if (state == State.PUNCH) {
-            return stateTime > punchAnimation.getAnimationDuration() * 0.33f  &&
-                    stateTime < punchAnimation.getAnimationDuration() * 0.66f;
-        } else if (state == State.KICK) {
-            return stateTime > kickAnimation.getAnimationDuration() * 0.33f &&
-                    stateTime < kickAnimation.getAnimationDuration() * 0.66f;
-        } else {
-            return false;
-        }
-    }
-
-    public void getHit(float damage) {
-        if (state == State.HURT || state == State.WIN || state == State.LOSE) return;
-
-        // reduce the fighter's life by the full damage amount, or a fraction of it if the fighter is blocking
-        life -= state == State.BLOCK ? damage * BLOCK_DAMAGE_FACTOR : damage;
-        if (life <= 0f) {
-            // if no life remains, lose
-            lose();
-        } else if (state != State.BLOCK) {
-            // if not blocking, go to hurt state
-            changeState(State.HURT);
-        }
-    }
-
-    public void lose() {
-        changeState(State.LOSE);
-        life = 0f;
-    }
-
-    public boolean hasLost() {
-        return state == State.LOSE;
-    }
-
-    public void win() {
-        changeState(State.WIN);
-    }
-
-    public boolean isAttacking() {
-        return state == State.PUNCH || state == State.KICK;
+        return world.isAttackActive(index);
     }
 
-
-
-    private void initializeBlockAnimation(AssetManager assetManager) {
-        Texture spriteSheet = assetManager.get(Assets.BLOCK_SPRITE_SHEET);
-        TextureRegion[] frames = getAnimationFrames(spriteSheet);
-        blockAnimation = new Animation<>(0.05f, frames);
+    /**
+     * @return whether the hitbox of the fighter's current frame overlaps the hurtbox of the defender's current frame
+     */
+    public boolean hits(Fighter defender) {
+        return world.hits(index, defender.world, defender.index);
     }
 
-    private void initializeHurtAnimation(AssetManager assetManager) {
-        Texture spriteSheet = assetManager.get(Assets.HURT_SPRITE_SHEET);
-        TextureRegion[] frames = getAnimationFrames(spriteSheet);
-        hurtAnimation = new Animation<>(0.03f, frames);
+    public int getFrame() {
+        return world.getFrame(index);
     }
 
-    private void initializeIdleAnimation(AssetManager assetManager) {
-        Texture spriteSheet = assetManager.get(Assets.IDLE_SPRITE_SHEET);
-        TextureRegion[] frames = getAnimationFrames(spriteSheet);
-        idleAnimation = new Animation<>(0.1f, frames);
+    public boolean getHit(float damage) {
+        return getHit(null, damage);
     }
 
-    private void initializeKickAnimation(AssetManager assetManager) {
-        Texture spriteSheet = assetManager.get(Assets.KICK_SPRITE_SHEET);
-        TextureRegion[] frames = getAnimationFrames(spriteSheet);
-        kickAnimation = new Animation<>(0.05f, frames);
+    /**
+     * @return whether the hit took effect, false if the fighter is hurt already, has won or has lost
+     */
+    public boolean getHit(Fighter attacker, float damage) {
+        return world.getHit(index, attacker, damage);
     }
 
-    private void initializeLoseAnimation(AssetManager assetManager) {
-        Texture spriteSheet = assetManager.get(Assets.LOSE_SPRITE_SHEET);
-        TextureRegion[] frames = getAnimationFrames(spriteSheet);
-        loseAnimation = new Animation<>(0.05f, frames);
-    }
-
-    private void initializePunchAnimation(AssetManager assetManager) {
-        Texture spriteSheet = assetManager.get(Assets.PUNCH_SPRITE_SHEET);
-        TextureRegion[] frames = getAnimationFrames(spriteSheet);
-        punchAnimation = new Animation<>(0.05f, frames);
+    public void lose() {
+        world.lose(index);
     }
 
-    private void initializeWalkAnimation(AssetManager assetManager) {
-        Texture spriteSheet = assetManager.get(Assets.WALK_SPRITE_SHEET);
-        TextureRegion[] frames = getAnimationFrames(spriteSheet);
-        walkAnimation = new Animation<>(0.08f, frames);
+    public boolean hasLost() {
+        return world.hasLost(index);
     }
 
-    private void initializeWinAnimation(AssetManager assetManager) {
-        Texture spriteSheet = assetManager.get(Assets.WIN_SPRITE_SHEET);
-        TextureRegion[] frames = getAnimationFrames(spriteSheet);
-        winAnimation = new Animation<>(0.05f, frames);
+    public void win() {
+        world.win(index);
     }
 
-    private TextureRegion[] getAnimationFrames(Texture spriteSheet) {
-        TextureRegion[][] tmp = TextureRegion.split(spriteSheet, spriteSheet.getWidth() / FRAME_COLS,
-                spriteSheet.getHeight() / FRAME_ROWS);
-        TextureRegion[] frames = new TextureRegion[FRAME_ROWS * FRAME_COLS];
-        int index = 0;
-        for (int i = 0; i < FRAME_ROWS; i++) {
-            for (int j = 0; j < FRAME_COLS; j++) {
-                frames[index++] = tmp[i][j];
-
-            }
+    public boolean isAttacking() {
+        return world.isAttacking(index);
+    }
+
+    /**
+     * Creates the animations shared by all fighters. Must be called once the gameplay atlas has finished loading.
+     */
+    public static AnimationLibrary createAnimationLibrary(AssetManager assetManager) {
+        MoveSet moves = MoveSet.getDefault();
+        String[] spriteSheets = new String[moves.getStateCount()];
+        float[] frameDurations = new float[moves.getStateCount()];
+        for (int state = 0; state < spriteSheets.length; state++) {
+            spriteSheets[state] = moves.getSpriteSheet(state);
+            frameDurations[state] = moves.getFrameDuration(state);
         }
-        return frames;
+        TextureAtlas atlas = assetManager.get(Assets.GAMEPLAY_ATLAS);
+        return new AnimationLibrary(atlas, FRAME_ROWS, FRAME_COLS, spriteSheets, frameDurations);
     }
 
 }
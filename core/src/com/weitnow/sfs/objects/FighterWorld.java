@@ -0,0 +1,481 @@
+package com.weitnow.sfs.objects;
+
+import com.weitnow.sfs.simulation.CombatEvents;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The simulation state of many fighters, stored as one primitive array per field instead of one object per fighter,
+ * so updating thousands of fighters walks contiguous memory. A {@link Fighter} is a handle to one slot of a world;
+ * all of its game logic lives here and works on a slot index. How fighters react to their commands is looked up in
+ * the transition table of a {@link MoveSet}.
+ */
+public class FighterWorld {
+    // fighters updated by one parallel task
+    private static final int CHUNK_SIZE = 1024;
+
+    // number of floats and ints a fighter's saved state takes
+    public static final int STATE_FLOATS = 9;
+    public static final int STATE_INTS = 4;
+
+    private static final Fighter.State[] STATES = Fighter.State.values();
+
+    // state of each fighter
+    final byte[] state;
+    final float[] stateTime;
+    final byte[] renderState;
+    final float[] renderStateTime;
+    final float[] positionX;
+    final float[] positionY;
+    // position at the end of the previous update, to interpolate between updates when rendering
+    final float[] previousPositionX;
+    final float[] previousPositionY;
+    final float[] movementDirectionX;
+    final float[] movementDirectionY;
+    final float[] life;
+    final byte[] facing;
+    final boolean[] madeContact;
+
+    // hurtboxes and hitboxes of the animation frames
+    private final FrameData frameData;
+    // the state machine the fighters follow
+    private final MoveSet moves;
+
+    // handles and combat event buffers of the fighters
+    final Fighter[] fighters;
+    final CombatEvents[] combatEvents;
+
+    // fighters whose state changed during a parallel update
+    private final boolean[] stateChanged;
+
+    private int size;
+
+    // tasks updating the fighters in parallel, created once and reused every update
+    private final UpdateChunk[] chunks;
+    private final RecursiveAction parallelUpdate = new RecursiveAction() {
+        @Override
+        protected void compute() {
+            invokeAll(chunks);
+        }
+    };
+    private float parallelDeltaTime;
+
+    /**
+     * Creates a world using the frame data of the game's sprite sheets and the game's moves.
+     */
+    public FighterWorld(int capacity) {
+        this(capacity, FrameData.getDefault());
+    }
+
+    public FighterWorld(int capacity, FrameData frameData) {
+        this(capacity, frameData, MoveSet.getDefault());
+    }
+
+    public FighterWorld(int capacity, FrameData frameData, MoveSet moves) {
+        this.frameData = frameData;
+        this.moves = moves;
+        state = new byte[capacity];
+        stateTime = new float[capacity];
+        renderState = new byte[capacity];
+        renderStateTime = new float[capacity];
+        positionX = new float[capacity];
+        positionY = new float[capacity];
+        previousPositionX = new float[capacity];
+        previousPositionY = new float[capacity];
+        movementDirectionX = new float[capacity];
+        movementDirectionY = new float[capacity];
+        life = new float[capacity];
+        facing = new byte[capacity];
+        madeContact = new boolean[capacity];
+        fighters = new Fighter[capacity];
+        combatEvents = new CombatEvents[capacity];
+        stateChanged = new boolean[capacity];
+
+        chunks = new UpdateChunk[(capacity + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new UpdateChunk(i * CHUNK_SIZE);
+        }
+    }
+
+    public int getCapacity() {
+        return state.length;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public MoveSet getMoves() {
+        return moves;
+    }
+
+    public Fighter getFighter(int index) {
+        return fighters[index];
+    }
+
+    /**
+     * Reserves the next free slot for the given fighter handle.
+     * @return the fighter's index
+     */
+    int add(Fighter fighter) {
+        if (size == state.length) {
+            throw new IllegalStateException("the world only has room for " + state.length + " fighters");
+        }
+        fighters[size] = fighter;
+        state[size] = renderState[size] = moves.getNeutralState(false);
+        return size++;
+    }
+
+    public Fighter.State getState(int index) {
+        return STATES[state[index]];
+    }
+
+    public Fighter.State getRenderState(int index) {
+        return STATES[renderState[index]];
+    }
+
+    public float getStateTime(int index) {
+        return stateTime[index];
+    }
+
+    public float getPositionX(int index) {
+        return positionX[index];
+    }
+
+    public float getPositionY(int index) {
+        return positionY[index];
+    }
+
+    /**
+     * @param alpha how far rendering is between the previous and the last update, from 0 to 1
+     * @return the fighter's position interpolated between the previous and the last update
+     */
+    public float getInterpolatedPositionX(int index, float alpha) {
+        return previousPositionX[index] + (positionX[index] - previousPositionX[index]) * alpha;
+    }
+
+    /**
+     * @see #getInterpolatedPositionX(int, float)
+     */
+    public float getInterpolatedPositionY(int index, float alpha) {
+        return previousPositionY[index] + (positionY[index] - previousPositionY[index]) * alpha;
+    }
+
+    /**
+     * @return the number of the animation frame the fighter is at, the same one the fighter is drawn with
+     */
+    public int getFrame(int index) {
+        // same rules as Animation.getKeyFrameIndex
+        byte currentState = state[index];
+        int frame = (int) (stateTime[index] / moves.getFrameDuration(currentState));
+        return moves.isLooping(currentState) ? frame % Fighter.FRAME_COUNT : Math.min(frame, Fighter.FRAME_COUNT - 1);
+    }
+
+    public float getLife(int index) {
+        return life[index];
+    }
+
+    public int getFacing(int index) {
+        return facing[index];
+    }
+
+    public void getReady(int index, float positionX, float positionY) {
+        state[index] = renderState[index] = moves.getNeutralState(false);
+        stateTime[index] = renderStateTime[index] = 0f;
+        this.positionX[index] = previousPositionX[index] = positionX;
+        this.positionY[index] = previousPositionY[index] = positionY;
+        movementDirectionX[index] = movementDirectionY[index] = 0f;
+        life[index] = Fighter.MAX_LIFE;
+        madeContact[index] = false;
+    }
+
+    /**
+     * Copies a fighter's complete simulation state into the given arrays, starting at the given offsets.
+     */
+    public void saveState(int index, float[] floats, int floatOffset, int[] ints, int intOffset) {
+        floats[floatOffset] = stateTime[index];
+        floats[floatOffset + 1] = renderStateTime[index];
+        floats[floatOffset + 2] = positionX[index];
+        floats[floatOffset + 3] = positionY[index];
+        floats[floatOffset + 4] = movementDirectionX[index];
+        floats[floatOffset + 5] = movementDirectionY[index];
+        floats[floatOffset + 6] = life[index];
+        floats[floatOffset + 7] = previousPositionX[index];
+        floats[floatOffset + 8] = previousPositionY[index];
+        ints[intOffset] = state[index];
+        ints[intOffset + 1] = renderState[index];
+        ints[intOffset + 2] = facing[index];
+        ints[intOffset + 3] = madeContact[index] ? 1 : 0;
+    }
+
+    /**
+     * Sets a fighter's complete simulation state from arrays filled by {@link #saveState}.
+     */
+    public void restoreState(int index, float[] floats, int floatOffset, int[] ints, int intOffset) {
+        stateTime[index] = floats[floatOffset];
+        renderStateTime[index] = floats[floatOffset + 1];
+        positionX[index] = floats[floatOffset + 2];
+        positionY[index] = floats[floatOffset + 3];
+        movementDirectionX[index] = floats[floatOffset + 4];
+        movementDirectionY[index] = floats[floatOffset + 5];
+        life[index] = floats[floatOffset + 6];
+        previousPositionX[index] = floats[floatOffset + 7];
+        previousPositionY[index] = floats[floatOffset + 8];
+        state[index] = (byte) ints[intOffset];
+        renderState[index] = (byte) ints[intOffset + 1];
+        facing[index] = (byte) ints[intOffset + 2];
+        madeContact[index] = ints[intOffset + 3] != 0;
+    }
+
+    /**
+     * Updates all fighters on the calling thread.
+     */
+    public void update(float deltaTime) {
+        for (int i = 0; i < size; i++) {
+            update(i, deltaTime);
+        }
+    }
+
+    /**
+     * Updates all fighters in chunks on the given pool. State changes are published as combat events afterwards, in
+     * index order, so the event buffers still only see one publishing thread.
+     */
+    public void update(float deltaTime, ForkJoinPool pool) {
+        parallelDeltaTime = deltaTime;
+        for (UpdateChunk chunk : chunks) {
+            chunk.reinitialize();
+        }
+        parallelUpdate.reinitialize();
+        pool.invoke(parallelUpdate);
+
+        for (int i = 0; i < size; i++) {
+            if (stateChanged[i]) {
+                stateChanged[i] = false;
+                publishStateChange(i);
+            }
+        }
+    }
+
+    public void update(int index, float deltaTime) {
+        if (advance(index, deltaTime)) {
+            publishStateChange(index);
+        }
+    }
+
+    /**
+     * Advances a fighter by delta time.
+     * @return whether the fighter's state changed
+     */
+    private boolean advance(int index, float deltaTime) {
+        // remember where the fighter was after the previous update, including the ring bounds applied to it
+        previousPositionX[index] = positionX[index];
+        previousPositionY[index] = positionY[index];
+
+        // increment the state time by delta time
+        stateTime[index] += deltaTime;
+
+        // only update the render state if delta time is greater than zero
+        if (deltaTime > 0) {
+            renderState[index] = state[index];
+            renderStateTime[index] = stateTime[index];
+        }
+
+        byte currentState = state[index];
+        if (moves.isWalking(currentState)) {
+            // if the fighter is walking, move in the direction of the movement direction vector
+            positionX[index] += movementDirectionX[index] * Fighter.MOVEMENT_SPEED * deltaTime;
+            positionY[index] += movementDirectionY[index] * Fighter.MOVEMENT_SPEED * deltaTime;
+            return false;
+        }
+        // if the state ends with its animation, e.g. an attack, go on once it has finished
+        byte nextState = moves.getTransition(currentState, MoveSet.FINISH, isMoving(index));
+        if (nextState != MoveSet.NONE && isAnimationFinished(index, moves.getFrameDuration(currentState))) {
+            setState(index, nextState);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isAnimationFinished(int index, float frameDuration) {
+        // same rule as Animation.isAnimationFinished, but without needing the animation's texture regions
+        int frameNumber = (int) (stateTime[index] / frameDuration);
+        return frameNumber > Fighter.FRAME_COUNT - 1;
+    }
+
+    /**
+     * Changes the fighter's state to the one the command leads to, if the current state doesn't ignore it.
+     * @return whether the state changed
+     */
+    private boolean command(int index, int command) {
+        byte nextState = moves.getTransition(state[index], command, isMoving(index));
+        if (nextState == MoveSet.NONE) return false;
+
+        changeState(index, nextState);
+        if (moves.isAttack(nextState)) {
+            // just started attacking, so contact hasn't been made yet
+            madeContact[index] = false;
+        }
+        return true;
+    }
+
+    private boolean isMoving(int index) {
+        return movementDirectionX[index] != 0 || movementDirectionY[index] != 0;
+    }
+
+    private void setState(int index, byte newState) {
+        state[index] = newState;
+        stateTime[index] = 0f;
+    }
+
+    private void changeState(int index, byte newState) {
+        setState(index, newState);
+        publishStateChange(index);
+    }
+
+    private void publishStateChange(int index) {
+        if (combatEvents[index] != null) {
+            combatEvents[index].publish(CombatEvents.Type.STATE_CHANGE, null, fighters[index], 0f,
+                    STATES[state[index]]);
+        }
+    }
+
+    public void faceLeft(int index) {
+        facing[index] = -1;
+    }
+
+    public void faceRight(int index) {
+        facing[index] = 1;
+    }
+
+    public void setMovement(int index, float x, float y) {
+        movementDirectionX[index] = x;
+        movementDirectionY[index] = y;
+        command(index, x != 0 || y != 0 ? MoveSet.MOVE : MoveSet.STOP);
+    }
+
+    public float getMovementDirectionX(int index) {
+        return movementDirectionX[index];
+    }
+
+    public float getMovementDirectionY(int index) {
+        return movementDirectionY[index];
+    }
+
+    public void block(int index) {
+        command(index, MoveSet.BLOCK);
+    }
+
+    public void stopBlocking(int index) {
+        command(index, MoveSet.RELEASE_BLOCK);
+    }
+
+    public boolean isBlocking(int index) {
+        return moves.isBlocking(state[index]);
+    }
+
+    public void punch(int index) {
+        command(index, MoveSet.PUNCH);
+    }
+
+    public void kick(int index) {
+        command(index, MoveSet.KICK);
+    }
+
+    public boolean isAttacking(int index) {
+        return moves.isAttack(state[index]);
+    }
+
+    public void makeContact(int index) {
+        madeContact[index] = true;
+    }
+
+    public boolean hasMadeContact(int index) {
+        return madeContact[index];
+    }
+
+    public boolean isAttackActive(int index) {
+        // the attack is only active if the fighter has not yet made contact and the current frame of the attack
+        // animation is in the attack's active window and has a hitbox
+        byte currentState = state[index];
+        if (madeContact[index] || !moves.isAttack(currentState)) {
+            return false;
+        }
+        int frame = getFrame(index);
+        return moves.isActiveFrame(currentState, frame) && frameData.hasHitbox(currentState, frame);
+    }
+
+    /**
+     * Tests if the hitbox of a fighter's current frame overlaps the hurtbox of another fighter's current frame.
+     */
+    public boolean hits(int index, FighterWorld defenderWorld, int defender) {
+        return frameData.hits(state[index], getFrame(index), positionX[index], positionY[index], facing[index],
+                defenderWorld.state[defender], defenderWorld.getFrame(defender), defenderWorld.positionX[defender],
+                defenderWorld.positionY[defender], defenderWorld.facing[defender]);
+    }
+
+    /**
+     * @return whether the hit took effect, false if the fighter's state ignores hits
+     */
+    public boolean getHit(int index, Fighter attacker, float damage) {
+        byte currentState = state[index];
+        if (moves.isInvulnerable(currentState)) return false;
+
+        // reduce the fighter's life by the full damage amount, or a fraction of it if the fighter is blocking
+        boolean blocking = moves.isBlocking(currentState);
+        float inflictedDamage = blocking ? damage * Fighter.BLOCK_DAMAGE_FACTOR : damage;
+        life[index] -= inflictedDamage;
+        if (combatEvents[index] != null) {
+            combatEvents[index].publish(blocking ? CombatEvents.Type.BLOCK : CombatEvents.Type.HIT, attacker,
+                    fighters[index], inflictedDamage, STATES[currentState]);
+        }
+
+        if (life[index] <= 0f) {
+            // if no life remains, lose
+            lose(index);
+        } else {
+            // blocking states ignore the hit, others get hurt
+            command(index, MoveSet.HIT);
+        }
+        return true;
+    }
+
+    public void lose(int index) {
+        command(index, MoveSet.KO);
+        life[index] = 0f;
+
+        if (combatEvents[index] != null) {
+            combatEvents[index].publish(CombatEvents.Type.KO, null, fighters[index], 0f, STATES[state[index]]);
+        }
+    }
+
+    public boolean hasLost(int index) {
+        return state[index] == moves.getKnockoutState();
+    }
+
+    public void win(int index) {
+        command(index, MoveSet.WIN);
+    }
+
+    private class UpdateChunk extends RecursiveAction {
+        // fork/join tasks are serializable, but these are never serialized
+        private static final long serialVersionUID = 1L;
+
+        private final int start;
+
+        UpdateChunk(int start) {
+            this.start = start;
+        }
+
+        @Override
+        protected void compute() {
+            int end = Math.min(start + CHUNK_SIZE, size);
+            float deltaTime = parallelDeltaTime;
+            for (int i = start; i < end; i++) {
+                if (advance(i, deltaTime)) {
+                    stateChanged[i] = true;
+                }
+            }
+        }
+    }
+}
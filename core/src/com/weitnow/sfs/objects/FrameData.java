@@ -0,0 +1,144 @@
+package com.weitnow.sfs.objects;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The hurtbox and hitbox of every animation frame, generated from the sprite sheets' alpha by the desktop
+ * FrameDataGenerator. A hurtbox is where a fighter can be hit, a hitbox is where an attack hits; frames without a
+ * hitbox don't hit. Boxes are in world units, horizontally relative to the center of the frame so they can be
+ * mirrored for fighters facing left, and vertically relative to the bottom of the frame. Looking up a frame's boxes
+ * is an array access; no pixels are read at runtime.
+ */
+public class FrameData {
+    // where the frame data is stored, relative to the assets directory, which is on the classpath
+    public static final String FRAME_DATA_PATH = "data/frame_data.bin";
+
+    // identifies a frame data file, and the version of its format
+    public static final int MAGIC = 0x53464644;
+    public static final int VERSION = 1;
+
+    private static final Fighter.State[] STATES = Fighter.State.values();
+    private static FrameData defaultFrameData;
+
+    // width of a frame in world units
+    private final float frameWidth;
+    // boxes of each frame, indexed by state * FRAME_COUNT + frame
+    private final float[] hurtLeft, hurtRight, hurtBottom, hurtTop;
+    private final float[] hitLeft, hitRight, hitBottom, hitTop;
+    private final boolean[] hasHitbox;
+
+    /**
+     * Reads frame data in the format written by the desktop FrameDataGenerator.
+     */
+    public FrameData(InputStream input) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(input));
+        if (data.readInt() != MAGIC) throw new IOException("Not a frame data file");
+        int version = data.readShort();
+        if (version != VERSION) throw new IOException("Unsupported frame data version: " + version);
+
+        int frameCount = data.readShort() * data.readShort();
+        if (frameCount != Fighter.FRAME_COUNT) {
+            throw new IOException("Frame data has " + frameCount + " frames per animation instead of " +
+                    Fighter.FRAME_COUNT);
+        }
+        int frameWidthPixels = data.readShort();
+        int frameHeightPixels = data.readShort();
+        float worldScale = data.readFloat();
+        frameWidth = frameWidthPixels * worldScale;
+
+        int length = STATES.length * Fighter.FRAME_COUNT;
+        hurtLeft = new float[length];
+        hurtRight = new float[length];
+        hurtBottom = new float[length];
+        hurtTop = new float[length];
+        hitLeft = new float[length];
+        hitRight = new float[length];
+        hitBottom = new float[length];
+        hitTop = new float[length];
+        hasHitbox = new boolean[length];
+        boolean[] hasState = new boolean[STATES.length];
+
+        int stateCount = data.readByte();
+        for (int i = 0; i < stateCount; i++) {
+            int state = Fighter.State.valueOf(data.readUTF()).ordinal();
+            hasState[state] = true;
+            for (int frame = 0; frame < Fighter.FRAME_COUNT; frame++) {
+                int slot = state * Fighter.FRAME_COUNT + frame;
+
+                // boxes are stored in pixels, from the top left of the frame, with exclusive maximums
+                float centerX = frameWidthPixels / 2f;
+                hurtLeft[slot] = (data.readShort() - centerX) * worldScale;
+                hurtTop[slot] = (frameHeightPixels - data.readShort()) * worldScale;
+                hurtRight[slot] = (data.readShort() - centerX) * worldScale;
+                hurtBottom[slot] = (frameHeightPixels - data.readShort()) * worldScale;
+
+                hasHitbox[slot] = data.readBoolean();
+                if (hasHitbox[slot]) {
+                    hitLeft[slot] = (data.readShort() - centerX) * worldScale;
+                    hitTop[slot] = (frameHeightPixels - data.readShort()) * worldScale;
+                    hitRight[slot] = (data.readShort() - centerX) * worldScale;
+                    hitBottom[slot] = (frameHeightPixels - data.readShort()) * worldScale;
+                }
+            }
+        }
+        for (int state = 0; state < STATES.length; state++) {
+            if (!hasState[state]) throw new IOException("Frame data misses the " + STATES[state] + " animation");
+        }
+    }
+
+    /**
+     * @return the frame data of the game's sprite sheets, loaded from the classpath when it is first needed
+     */
+    public static synchronized FrameData getDefault() {
+        if (defaultFrameData == null) {
+            InputStream input = FrameData.class.getClassLoader().getResourceAsStream(FRAME_DATA_PATH);
+            if (input == null) throw new GdxRuntimeException("Couldn't find " + FRAME_DATA_PATH + " on the classpath");
+            try {
+                defaultFrameData = new FrameData(input);
+            } catch (IOException e) {
+                throw new GdxRuntimeException("Couldn't read " + FRAME_DATA_PATH, e);
+            } finally {
+                StreamUtils.closeQuietly(input);
+            }
+        }
+        return defaultFrameData;
+    }
+
+    public float getFrameWidth() {
+        return frameWidth;
+    }
+
+    public boolean hasHitbox(int state, int frame) {
+        return hasHitbox[state * Fighter.FRAME_COUNT + frame];
+    }
+
+    /**
+     * Tests if the hitbox of an attacker's frame overlaps the hurtbox of a defender's frame. Frames are given by
+     * their state and frame number; positions are the bottom left corners of the frames, facing is -1 for left and
+     * anything else for right.
+     */
+    public boolean hits(int attackerState, int attackerFrame, float attackerX, float attackerY, int attackerFacing,
+                        int defenderState, int defenderFrame, float defenderX, float defenderY, int defenderFacing) {
+        int hit = attackerState * Fighter.FRAME_COUNT + attackerFrame;
+        int hurt = defenderState * Fighter.FRAME_COUNT + defenderFrame;
+        if (!hasHitbox[hit]) return false;
+
+        // mirror the boxes of fighters facing left around the center of their frames
+        float attackerCenterX = attackerX + frameWidth / 2f;
+        float hitMinX = attackerCenterX + (attackerFacing < 0 ? -hitRight[hit] : hitLeft[hit]);
+        float hitMaxX = attackerCenterX + (attackerFacing < 0 ? -hitLeft[hit] : hitRight[hit]);
+        float defenderCenterX = defenderX + frameWidth / 2f;
+        float hurtMinX = defenderCenterX + (defenderFacing < 0 ? -hurtRight[hurt] : hurtLeft[hurt]);
+        float hurtMaxX = defenderCenterX + (defenderFacing < 0 ? -hurtLeft[hurt] : hurtRight[hurt]);
+
+        return hitMinX < hurtMaxX && hurtMinX < hitMaxX &&
+                attackerY + hitBottom[hit] < defenderY + hurtTop[hurt] &&
+                defenderY + hurtBottom[hurt] < attackerY + hitTop[hit];
+    }
+}
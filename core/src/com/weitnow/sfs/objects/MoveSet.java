@@ -0,0 +1,235 @@
+package com.weitnow.sfs.objects;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.SerializationException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * The fighter state machine, defined by data/moves.json and compiled into a transition table, so a fighter reacts to
+ * a command with a single array lookup instead of a chain of state checks. Each state defines its animation, whether
+ * it loops, walks, attacks, blocks or ignores hits, which frames of an attack can hit, and the state each command
+ * leads to. A transition to NEUTRAL goes to the walking or the standing state, depending on whether the fighter is
+ * moving. Commands listed under "always" apply in every state, those under "cancels" in every cancelable state; a
+ * state's own transitions take precedence over both. States are identified by {@link Fighter.State}, like the frame
+ * data, the combat events and saved matches.
+ */
+public class MoveSet {
+    // where the moves are stored, relative to the assets directory, which is on the classpath
+    public static final String MOVES_PATH = "data/moves.json";
+
+    // commands a fighter gets from its controls and the simulation
+    public static final int MOVE = 0;
+    public static final int STOP = 1;
+    public static final int BLOCK = 2;
+    public static final int RELEASE_BLOCK = 3;
+    public static final int PUNCH = 4;
+    public static final int KICK = 5;
+    public static final int FINISH = 6;
+    public static final int HIT = 7;
+    public static final int KO = 8;
+    public static final int WIN = 9;
+    public static final int COMMAND_COUNT = 10;
+    private static final String[] COMMAND_NAMES = {
+            "MOVE", "STOP", "BLOCK", "RELEASE_BLOCK", "PUNCH", "KICK", "FINISH", "HIT", "KO", "WIN"
+    };
+
+    // transition of a command the state ignores
+    public static final byte NONE = -1;
+    private static final String NEUTRAL = "NEUTRAL";
+
+    private static final Fighter.State[] STATES = Fighter.State.values();
+    private static MoveSet defaultMoves;
+
+    // next state, indexed by (state * COMMAND_COUNT + command) * 2 + 1 if the fighter is moving
+    private final byte[] transitions = new byte[STATES.length * COMMAND_COUNT * 2];
+    private final byte standingState, walkingState;
+
+    // properties of each state, indexed by state
+    private final String[] spriteSheets = new String[STATES.length];
+    private final float[] frameDurations = new float[STATES.length];
+    private final boolean[] looping = new boolean[STATES.length];
+    private final boolean[] walking = new boolean[STATES.length];
+    private final boolean[] attack = new boolean[STATES.length];
+    private final boolean[] blocking = new boolean[STATES.length];
+    private final boolean[] invulnerable = new boolean[STATES.length];
+    private final int[] firstActiveFrame = new int[STATES.length];
+    private final int[] lastActiveFrame = new int[STATES.length];
+
+    /**
+     * Compiles the moves in the format of data/moves.json.
+     */
+    public MoveSet(JsonValue moves) {
+        JsonValue neutral = require(moves, "neutral");
+        standingState = findState(require(neutral, "standing").asString());
+        walkingState = findState(require(neutral, "walking").asString());
+        JsonValue always = require(moves, "always");
+        JsonValue cancels = require(moves, "cancels");
+
+        boolean[] hasState = new boolean[STATES.length];
+        Arrays.fill(transitions, NONE);
+        for (JsonValue move = require(moves, "states").child; move != null; move = move.next) {
+            int state = findState(move.name);
+            hasState[state] = true;
+            spriteSheets[state] = require(move, "spriteSheet").asString();
+            frameDurations[state] = require(move, "frameDuration").asFloat();
+            if (frameDurations[state] <= 0f) {
+                throw new GdxRuntimeException(move.name + " needs a positive frame duration");
+            }
+            looping[state] = move.getBoolean("looping", false);
+            walking[state] = move.getBoolean("walking", false);
+            attack[state] = move.getBoolean("attack", false);
+            blocking[state] = move.getBoolean("blocking", false);
+            invulnerable[state] = move.getBoolean("invulnerable", false);
+
+            // attacks can hit in every frame, unless limited to a window
+            int[] activeFrames = move.has("activeFrames") ? move.get("activeFrames").asIntArray() :
+                    new int[]{0, Fighter.FRAME_COUNT - 1};
+            if (activeFrames.length != 2 || activeFrames[0] < 0 || activeFrames[1] >= Fighter.FRAME_COUNT ||
+                    activeFrames[0] > activeFrames[1]) {
+                throw new GdxRuntimeException(move.name + " has invalid active frames");
+            }
+            firstActiveFrame[state] = activeFrames[0];
+            lastActiveFrame[state] = activeFrames[1];
+
+            addTransitions(state, always);
+            if (move.getBoolean("cancelable", false)) {
+                addTransitions(state, cancels);
+            }
+            if (move.has("transitions")) {
+                addTransitions(state, move.get("transitions"));
+            }
+        }
+        for (int state = 0; state < STATES.length; state++) {
+            if (!hasState[state]) throw new GdxRuntimeException("The moves miss the " + STATES[state] + " state");
+        }
+    }
+
+    /**
+     * @return the moves of the game, loaded from the classpath when they are first needed
+     */
+    public static synchronized MoveSet getDefault() {
+        if (defaultMoves == null) {
+            InputStream input = MoveSet.class.getClassLoader().getResourceAsStream(MOVES_PATH);
+            if (input == null) throw new GdxRuntimeException("Couldn't find " + MOVES_PATH + " on the classpath");
+            try {
+                defaultMoves = new MoveSet(new JsonReader().parse(input));
+            } catch (SerializationException e) {
+                throw new GdxRuntimeException("Couldn't read " + MOVES_PATH, e);
+            } finally {
+                StreamUtils.closeQuietly(input);
+            }
+        }
+        return defaultMoves;
+    }
+
+    private void addTransitions(int state, JsonValue commands) {
+        for (JsonValue transition = commands.child; transition != null; transition = transition.next) {
+            int command = findCommand(transition.name);
+            String target = transition.asString();
+            int slot = (state * COMMAND_COUNT + command) * 2;
+            if (target.equals(NEUTRAL)) {
+                transitions[slot] = standingState;
+                transitions[slot + 1] = walkingState;
+            } else {
+                transitions[slot] = transitions[slot + 1] = target.equals("NONE") ? NONE : findState(target);
+            }
+        }
+    }
+
+    private static byte findState(String name) {
+        for (Fighter.State state : STATES) {
+            if (state.name().equals(name)) return (byte) state.ordinal();
+        }
+        throw new GdxRuntimeException("Unknown state in the moves: " + name);
+    }
+
+    private static int findCommand(String name) {
+        for (int command = 0; command < COMMAND_COUNT; command++) {
+            if (COMMAND_NAMES[command].equals(name)) return command;
+        }
+        throw new GdxRuntimeException("Unknown command in the moves: " + name);
+    }
+
+    private static JsonValue require(JsonValue parent, String name) {
+        JsonValue value = parent.get(name);
+        if (value == null) {
+            throw new GdxRuntimeException((parent.name != null ? parent.name : "The moves") + " miss " + name);
+        }
+        return value;
+    }
+
+    /**
+     * @param moving whether the fighter's movement direction is set
+     * @return the state the command leads to, or {@link #NONE} if the state ignores it
+     */
+    public byte getTransition(int state, int command, boolean moving) {
+        return transitions[(state * COMMAND_COUNT + command) * 2 + (moving ? 1 : 0)];
+    }
+
+    /**
+     * @return the state a fighter stands or walks in when it isn't doing anything else
+     */
+    public byte getNeutralState(boolean moving) {
+        return moving ? walkingState : standingState;
+    }
+
+    /**
+     * @return the state a knocked out fighter ends up in, the one a standing fighter goes to on a KO
+     */
+    public byte getKnockoutState() {
+        return getTransition(standingState, KO, false);
+    }
+
+    public int getStateCount() {
+        return STATES.length;
+    }
+
+    public String getSpriteSheet(int state) {
+        return spriteSheets[state];
+    }
+
+    public float getFrameDuration(int state) {
+        return frameDurations[state];
+    }
+
+    public boolean isLooping(int state) {
+        return looping[state];
+    }
+
+    /**
+     * @return whether a fighter in the state walks in its movement direction
+     */
+    public boolean isWalking(int state) {
+        return walking[state];
+    }
+
+    public boolean isAttack(int state) {
+        return attack[state];
+    }
+
+    /**
+     * @return whether a fighter in the state takes reduced damage and isn't hurt by hits
+     */
+    public boolean isBlocking(int state) {
+        return blocking[state];
+    }
+
+    /**
+     * @return whether a fighter in the state ignores hits
+     */
+    public boolean isInvulnerable(int state) {
+        return invulnerable[state];
+    }
+
+    /**
+     * @return whether an attack can hit in the given frame of the state's animation
+     */
+    public boolean isActiveFrame(int state, int frame) {
+        return frame >= firstActiveFrame[state] && frame <= lastActiveFrame[state];
+    }
+}
@@ -0,0 +1,19 @@
+package com.weitnow.sfs.objects;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+/**
+ * Something drawn in the ring, ordered by depth so that things further back are drawn first.
+ */
+public interface Renderable {
+    /**
+     * @return the depth to sort by; greater depths are further back and drawn first
+     */
+    float getDepth();
+
+    /**
+     * @param alpha how far the frame is between the previous and the last simulation tick, from 0 to 1, to
+     *              interpolate between them
+     */
+    void render(SpriteBatch batch, float alpha);
+}
@@ -0,0 +1,226 @@
+package com.weitnow.sfs.profiling;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Times the phases of each frame with {@link System#nanoTime()} and aggregates them into fixed-bucket histograms,
+ * along with garbage collections and allocations if {@link MemoryCounters} are set. The timings of the most recent
+ * frames are kept for exporting them to CSV. Everything is preallocated, and while the profiler is disabled every
+ * call returns after checking a single field.
+ */
+public class FrameProfiler {
+    /**
+     * The phases of a frame. A phase may be timed several times per frame, its times are added up.
+     */
+    public enum Phase {
+        CLEAR, UPDATE, RING, FIGHTERS, HUD, FLUSH, OVERLAY
+    }
+
+    /**
+     * Reads the virtual machine's garbage collection and allocation counters, which aren't available on every
+     * platform.
+     */
+    public interface MemoryCounters {
+        long getCollectionCount();
+
+        long getCollectionTimeMillis();
+
+        /**
+         * @return the bytes allocated by the calling thread so far, or -1 if unknown
+         */
+        long getAllocatedBytes();
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    // frames whose timings are kept for exporting
+    private static final int RECENT_FRAMES = 600;
+    // histograms have 10 us buckets up to 50 ms
+    private static final long BUCKET_NANOS = 10_000L;
+    private static final int BUCKETS = 5000;
+
+    private boolean enabled;
+    private MemoryCounters memoryCounters;
+
+    private final Histogram[] phaseHistograms = new Histogram[PHASES.length];
+    private final Histogram frameHistogram = new Histogram(BUCKET_NANOS, BUCKETS);
+    // time of each phase of the current frame
+    private final long[] phaseNanos = new long[PHASES.length];
+    // phase times, total time and allocated bytes of the most recent frames, RECENT_COLUMNS per frame
+    private static final int RECENT_COLUMNS = PHASES.length + 2;
+    private final long[] recentFrames = new long[RECENT_FRAMES * RECENT_COLUMNS];
+    private long frames;
+
+    private long frameStartTime;
+    private long phaseStartTime;
+
+    // memory counters when the profiler was enabled
+    private long startCollectionCount;
+    private long startCollectionTimeMillis;
+    private long frameStartAllocatedBytes;
+    private long totalAllocatedBytes;
+    private long maxFrameAllocatedBytes;
+
+    public FrameProfiler() {
+        for (int i = 0; i < PHASES.length; i++) {
+            phaseHistograms[i] = new Histogram(BUCKET_NANOS, BUCKETS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops profiling. Starting again continues the previous statistics, see {@link #reset()}.
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled && frames == 0 && memoryCounters != null) {
+            startCollectionCount = memoryCounters.getCollectionCount();
+            startCollectionTimeMillis = memoryCounters.getCollectionTimeMillis();
+        }
+        this.enabled = enabled;
+    }
+
+    public void setMemoryCounters(MemoryCounters memoryCounters) {
+        this.memoryCounters = memoryCounters;
+    }
+
+    public void beginFrame() {
+        if (!enabled) return;
+
+        for (int i = 0; i < PHASES.length; i++) {
+            phaseNanos[i] = 0L;
+        }
+        if (memoryCounters != null) {
+            frameStartAllocatedBytes = memoryCounters.getAllocatedBytes();
+        }
+        frameStartTime = phaseStartTime = TimeUtils.nanoTime();
+    }
+
+    /**
+     * Ends the given phase, which started when the frame or the previous phase ended.
+     */
+    public void endPhase(Phase phase) {
+        if (!enabled) return;
+
+        long now = TimeUtils.nanoTime();
+        phaseNanos[phase.ordinal()] += now - phaseStartTime;
+        phaseStartTime = now;
+    }
+
+    public void endFrame() {
+        if (!enabled) return;
+
+        long frameNanos = TimeUtils.nanoTime() - frameStartTime;
+        long allocatedBytes = memoryCounters != null && frameStartAllocatedBytes >= 0 ?
+                memoryCounters.getAllocatedBytes() - frameStartAllocatedBytes : 0L;
+
+        int row = (int) (frames % RECENT_FRAMES) * RECENT_COLUMNS;
+        for (int i = 0; i < PHASES.length; i++) {
+            phaseHistograms[i].record(phaseNanos[i]);
+            recentFrames[row + i] = phaseNanos[i];
+        }
+        frameHistogram.record(frameNanos);
+        recentFrames[row + PHASES.length] = frameNanos;
+        recentFrames[row + PHASES.length + 1] = allocatedBytes;
+
+        totalAllocatedBytes += allocatedBytes;
+        maxFrameAllocatedBytes = Math.max(maxFrameAllocatedBytes, allocatedBytes);
+        frames++;
+    }
+
+    public Histogram getHistogram(Phase phase) {
+        return phaseHistograms[phase.ordinal()];
+    }
+
+    public Histogram getFrameHistogram() {
+        return frameHistogram;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return the garbage collections since profiling started, or 0 without memory counters
+     */
+    public long getCollectionCount() {
+        return memoryCounters != null ? memoryCounters.getCollectionCount() - startCollectionCount : 0L;
+    }
+
+    public long getCollectionTimeMillis() {
+        return memoryCounters != null ? memoryCounters.getCollectionTimeMillis() - startCollectionTimeMillis : 0L;
+    }
+
+    public long getMeanFrameAllocatedBytes() {
+        return frames > 0 ? totalAllocatedBytes / frames : 0L;
+    }
+
+    public long getMaxFrameAllocatedBytes() {
+        return maxFrameAllocatedBytes;
+    }
+
+    public void reset() {
+        for (Histogram histogram : phaseHistograms) {
+            histogram.reset();
+        }
+        frameHistogram.reset();
+        frames = 0;
+        totalAllocatedBytes = 0;
+        maxFrameAllocatedBytes = 0;
+        if (memoryCounters != null) {
+            startCollectionCount = memoryCounters.getCollectionCount();
+            startCollectionTimeMillis = memoryCounters.getCollectionTimeMillis();
+        }
+    }
+
+    /**
+     * Writes the phase times in microseconds, the frame time and the allocated bytes of the most recent frames as
+     * CSV, one frame per line.
+     */
+    public void exportCsv(FileHandle file) {
+        Writer writer = file.writer(false, "UTF-8");
+        try {
+            writer.write("frame");
+            for (Phase phase : PHASES) {
+                writer.write(',' + phase.name().toLowerCase() + "_us");
+            }
+            writer.write(",frame_us,allocated_bytes\n");
+
+            long first = Math.max(frames - RECENT_FRAMES, 0L);
+            for (long frame = first; frame < frames; frame++) {
+                int row = (int) (frame % RECENT_FRAMES) * RECENT_COLUMNS;
+                writer.write(Long.toString(frame));
+                for (int i = 0; i < PHASES.length + 1; i++) {
+                    writer.write(',' + Float.toString(recentFrames[row + i] / 1000f));
+                }
+                writer.write(',' + Long.toString(recentFrames[row + PHASES.length + 1]) + '\n');
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Couldn't export the frame profile to " + file, e);
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(frames).append(" frames\n");
+        for (int i = 0; i < PHASES.length; i++) {
+            builder.append(PHASES[i].name().toLowerCase()).append(": ").append(phaseHistograms[i]).append('\n');
+        }
+        builder.append("frame: ").append(frameHistogram).append('\n');
+        builder.append("gc: ").append(getCollectionCount()).append(" collections, ").append(getCollectionTimeMillis())
+                .append(" ms, allocated per frame: mean ").append(getMeanFrameAllocatedBytes()).append(" B, max ")
+                .append(maxFrameAllocatedBytes).append(" B");
+        return builder.toString();
+    }
+}
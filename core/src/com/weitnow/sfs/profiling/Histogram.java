@@ -0,0 +1,91 @@
+package com.weitnow.sfs.profiling;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of durations in fixed-width buckets, so recording a duration is a single array increment and never
+ * allocates. Durations beyond the last bucket are counted in it; the maximum is tracked exactly.
+ */
+public class Histogram {
+    private final long bucketNanos;
+    private final long[] counts;
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    /**
+     * @param bucketNanos width of each bucket
+     * @param buckets number of buckets, covering durations up to bucketNanos * buckets
+     */
+    public Histogram(long bucketNanos, int buckets) {
+        this.bucketNanos = bucketNanos;
+        counts = new long[buckets];
+    }
+
+    public void record(long nanos) {
+        int bucket = (int) Math.min(Math.max(nanos, 0L) / bucketNanos, counts.length - 1);
+        counts[bucket]++;
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return the upper bound of the bucket holding the given percentile of the durations, or 0 if none were recorded
+     */
+    public long getPercentileNanos(float percentile) {
+        if (count == 0) return 0L;
+
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank && seen > 0) {
+                return Math.min((bucket + 1) * bucketNanos, maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanNanos() {
+        return count > 0 ? totalNanos / count : 0L;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Adds the durations recorded by another histogram with the same buckets, e.g. to combine the histograms of
+     * several threads.
+     */
+    public void add(Histogram histogram) {
+        if (histogram.bucketNanos != bucketNanos || histogram.counts.length != counts.length) {
+            throw new IllegalArgumentException("Can only add a histogram with the same buckets");
+        }
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            counts[bucket] += histogram.counts[bucket];
+        }
+        count += histogram.count;
+        totalNanos += histogram.totalNanos;
+        maxNanos = Math.max(maxNanos, histogram.maxNanos);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0L);
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    @Override
+    public String toString() {
+        return count + " samples, p50 " + getPercentileNanos(50f) / 1000 + " us, p99 " +
+                getPercentileNanos(99f) / 1000 + " us, max " + maxNanos / 1000 + " us";
+    }
+}
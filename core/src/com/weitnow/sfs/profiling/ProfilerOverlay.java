@@ -0,0 +1,78 @@
+package com.weitnow.sfs.profiling;
+
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.badlogic.gdx.utils.viewport.ScreenViewport;
+
+/**
+ * Shows the frame profiler's statistics in the top left corner of the screen. The text is only rebuilt a few times
+ * per second, so the overlay doesn't distort the timings it shows more than necessary.
+ */
+public class ProfilerOverlay implements Disposable {
+    private static final long REFRESH_INTERVAL_MILLIS = 500L;
+    private static final float MARGIN = 8f;
+
+    private final FrameProfiler profiler;
+    private final ScreenViewport viewport = new ScreenViewport();
+    private final BitmapFont font = new BitmapFont();
+    private final StringBuilder text = new StringBuilder();
+    private long lastRefreshTime;
+
+    public ProfilerOverlay(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public void resize(int width, int height) {
+        viewport.update(width, height, true);
+    }
+
+    /**
+     * Draws the statistics with their own projection; must be called outside of batch.begin() and batch.end().
+     */
+    public void render(SpriteBatch batch) {
+        if (TimeUtils.timeSinceMillis(lastRefreshTime) >= REFRESH_INTERVAL_MILLIS) {
+            refreshText();
+            lastRefreshTime = TimeUtils.millis();
+        }
+
+        viewport.apply();
+        batch.setProjectionMatrix(viewport.getCamera().combined);
+        batch.begin();
+        font.draw(batch, text, MARGIN, viewport.getWorldHeight() - MARGIN);
+        batch.end();
+    }
+
+    private void refreshText() {
+        text.setLength(0);
+        text.append("phase     p50 / p99 / max (ms)\n");
+        for (FrameProfiler.Phase phase : FrameProfiler.Phase.values()) {
+            appendHistogram(phase.name().toLowerCase(), profiler.getHistogram(phase));
+        }
+        appendHistogram("frame", profiler.getFrameHistogram());
+        text.append("gc: ").append(profiler.getCollectionCount()).append(" (").append(
+                profiler.getCollectionTimeMillis()).append(" ms)  alloc/frame: ").append(
+                profiler.getMeanFrameAllocatedBytes()).append(" B");
+    }
+
+    private void appendHistogram(String name, Histogram histogram) {
+        text.append(name).append(": ");
+        appendMillis(histogram.getPercentileNanos(50f)).append(" / ");
+        appendMillis(histogram.getPercentileNanos(99f)).append(" / ");
+        appendMillis(histogram.getMaxNanos()).append('\n');
+    }
+
+    private StringBuilder appendMillis(long nanos) {
+        // two decimals without formatting
+        long hundredths = nanos / 10_000L;
+        text.append(hundredths / 100).append('.');
+        if (hundredths % 100 < 10) text.append('0');
+        return text.append(hundredths % 100);
+    }
+
+    @Override
+    public void dispose() {
+        font.dispose();
+    }
+}
@@ -0,0 +1,81 @@
+package com.weitnow.sfs.ressources;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Animations shared by all fighters. Every sprite sheet is split into frames exactly once and every
+ * (sprite sheet, frame duration) pair gets exactly one animation, so creating a fighter is only a lookup.
+ * The library is built once after the assets have finished loading and doesn't change afterwards.
+ */
+public class AnimationLibrary {
+    private final ObjectMap<String, Array<Animation<TextureRegion>>> animations = new ObjectMap<>();
+
+    public AnimationLibrary(TextureAtlas atlas, int frameRows, int frameCols, String[] spriteSheets,
+                            float[] frameDurations) {
+        if (spriteSheets.length != frameDurations.length) {
+            throw new IllegalArgumentException("every sprite sheet needs a frame duration");
+        }
+
+        ObjectMap<String, TextureRegion[]> framesBySpriteSheet = new ObjectMap<>();
+        for (int i = 0; i < spriteSheets.length; i++) {
+            // split each sprite sheet only once, even if it's used with several frame durations
+            TextureRegion[] frames = framesBySpriteSheet.get(spriteSheets[i]);
+            if (frames == null) {
+                TextureRegion spriteSheet = atlas.findRegion(Assets.getRegionName(spriteSheets[i]));
+                if (spriteSheet == null) {
+                    throw new GdxRuntimeException("Sprite sheet " + spriteSheets[i] + " isn't packed into the atlas");
+                }
+                frames = getAnimationFrames(spriteSheet, frameRows, frameCols);
+                framesBySpriteSheet.put(spriteSheets[i], frames);
+            }
+
+            Array<Animation<TextureRegion>> sheetAnimations = animations.get(spriteSheets[i]);
+            if (sheetAnimations == null) {
+                sheetAnimations = new Array<>(false, 2);
+                animations.put(spriteSheets[i], sheetAnimations);
+            }
+            if (find(sheetAnimations, frameDurations[i]) == null) {
+                sheetAnimations.add(new Animation<>(frameDurations[i], frames));
+            }
+        }
+    }
+
+    /**
+     * @return the shared animation for the given sprite sheet and frame duration
+     */
+    public Animation<TextureRegion> get(String spriteSheet, float frameDuration) {
+        Array<Animation<TextureRegion>> sheetAnimations = animations.get(spriteSheet);
+        Animation<TextureRegion> animation = sheetAnimations == null ? null : find(sheetAnimations, frameDuration);
+        if (animation == null) {
+            throw new GdxRuntimeException("No animation for " + spriteSheet + " with frame duration " + frameDuration);
+        }
+        return animation;
+    }
+
+    private static Animation<TextureRegion> find(Array<Animation<TextureRegion>> sheetAnimations, float frameDuration) {
+        for (int i = 0; i < sheetAnimations.size; i++) {
+            if (sheetAnimations.get(i).getFrameDuration() == frameDuration) {
+                return sheetAnimations.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static TextureRegion[] getAnimationFrames(TextureRegion spriteSheet, int frameRows, int frameCols) {
+        TextureRegion[][] tmp = spriteSheet.split(spriteSheet.getRegionWidth() / frameCols,
+                spriteSheet.getRegionHeight() / frameRows);
+        TextureRegion[] frames = new TextureRegion[frameRows * frameCols];
+        int index = 0;
+        for (int i = 0; i < frameRows; i++) {
+            for (int j = 0; j < frameCols; j++) {
+                frames[index++] = tmp[i][j];
+            }
+        }
+        return frames;
+    }
+}
@@ -1,14 +1,31 @@
 package com.weitnow.sfs.ressources;
 
 import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 
 public class Assets {
     // asset manager
     public final AssetManager manager = new AssetManager();
+    // animations shared by all fighters, created once the assets have finished loading
+    public AnimationLibrary animations;
+    // decodes the textures in parallel while they are loading
+    private PixmapDecoder pixmapDecoder;
+    // fighter skins, acquired for the fighters of a match that wear one and unloaded once the unreferenced ones no
+    // longer fit the budget
+    public final TextureCache skins;
+
+    // memory the unreferenced skins may keep resident, unless another budget is given
+    public static final long DEFAULT_SKIN_BUDGET_BYTES = 32L * 1024 * 1024;
 
     // gameplay assets
+    // the gameplay textures and sprite sheets are packed into this atlas by the desktop GameplayAtlasPacker, so a
+    // frame can be drawn without texture switches
+    public static final String GAMEPLAY_ATLAS = "textures/Gameplay.atlas";
     public static final String BACKGROUND_TEXTURE = "textures/Background.png";
     public static final String FRONT_ROPES_TEXTURE = "textures/FrontRopes.png";
     public static final String IDLE_SPRITE_SHEET = "sprites/IdleSpriteSheet.png";
@@ -19,14 +36,30 @@ public class Assets {
     public static final String BLOCK_SPRITE_SHEET = "sprites/BlockSpriteSheet.png";
     public static final String WIN_SPRITE_SHEET = "sprites/WinSpriteSheet.png";
     public static final String LOSE_SPRITE_SHEET = "sprites/LoseSpriteSheet.png";
+    public static final String[] GAMEPLAY_ATLAS_TEXTURES = {
+            BACKGROUND_TEXTURE, FRONT_ROPES_TEXTURE, IDLE_SPRITE_SHEET, WALK_SPRITE_SHEET,
+            KICK_SPRITE_SHEET, PUNCH_SPRITE_SHEET, HURT_SPRITE_SHEET, BLOCK_SPRITE_SHEET,
+            WIN_SPRITE_SHEET, LOSE_SPRITE_SHEET
+    };
     public static final String GAMEPLAY_BUTTONS_ATLAS = "textures/GameplayButtons.atlas";
+    // the regions of the blood atlas are packed into the gameplay atlas as well, so they are drawn from there
     public static final String BLOOD_ATLAS = "textures/Blood.atlas";
+    public static final String BLOOD_SPLATTER_REGION = "BloodSplatter";
 
     // fonts
+    // the fonts are baked from the font file by the desktop FontBaker, so they don't have to be rasterized at startup
     public static final String ROBOTO_REGULAR = "fonts/Roboto-Regular.ttf";
-    public static final String SMALL_FONT = "smallFont.ttf";
-    public static final String MEDIUM_FONT = "mediumFont.ttf";
-    public static final String LARGE_FONT = "largeFont.ttf";
+    public static final int SMALL_FONT_SIZE = 16;
+    public static final int MEDIUM_FONT_SIZE = 24;
+    public static final int LARGE_FONT_SIZE = 48;
+    public static final int[] FONT_SIZES = {SMALL_FONT_SIZE, MEDIUM_FONT_SIZE, LARGE_FONT_SIZE};
+    public static final float FONT_SCALE = 1f;
+    public static final String SMALL_FONT = BakedFont.getPath(ROBOTO_REGULAR, SMALL_FONT_SIZE, FONT_SCALE);
+    public static final String MEDIUM_FONT = BakedFont.getPath(ROBOTO_REGULAR, MEDIUM_FONT_SIZE, FONT_SCALE);
+    public static final String LARGE_FONT = BakedFont.getPath(ROBOTO_REGULAR, LARGE_FONT_SIZE, FONT_SCALE);
+    // the pages of the fonts used by the HUD are packed into the gameplay atlas, along with a white region for its bars
+    public static final String[] GAMEPLAY_FONTS = {SMALL_FONT, MEDIUM_FONT};
+    public static final String PIXEL_REGION = "Pixel";
 
     // audio assets
 
@@ -36,32 +69,110 @@ public class Assets {
     public static final String CLICK_SOUND = "audio/click.mp3";
     public static final String HIT_SOUND = "audio/hit.mp3";
     public static final String MUSIC = "audio/music.ogg";
+    public static final String[] SOUNDS = {BLOCK_SOUND, BOO_SOUND, CHEER_SOUND, CLICK_SOUND, HIT_SOUND};
+
+    // data
+
+    public static final String FIGHTER_CHOICES = "data/fighter_choices.json";
 
     // menu assets
 
     public static final String MENU_ITEMS_ATLAS = "textures/MenuItems.atlas";
 
+    public Assets() {
+        this(DEFAULT_SKIN_BUDGET_BYTES);
+    }
+
+    public Assets(long skinBudgetBytes) {
+        skins = new TextureCache(manager, skinBudgetBytes);
+    }
+
     public void load() {
+        // decode all textures in parallel, so the asset manager only has to upload them
+        pixmapDecoder = new PixmapDecoder();
+        manager.setLoader(Texture.class, new ParallelTextureLoader(manager.getFileHandleResolver(), pixmapDecoder));
+        manager.setLoader(BitmapFont.class, BakedFont.EXTENSION, new BakedFontLoader(manager.getFileHandleResolver()));
+
         // load all assets
         loadGameplayAssets();
+        loadAudio();
+        loadFonts();
+    }
+
+    /**
+     * Continues loading the assets for at most the given time. Textures are uploaded one at a time, so a large
+     * texture may exceed the time.
+     * @return whether all assets have finished loading
+     */
+    public boolean update(int millis) {
+        boolean finished = manager.update(millis);
+        if (finished && pixmapDecoder != null) {
+            // all textures are decoded, so the worker threads aren't needed anymore
+            pixmapDecoder.dispose();
+            pixmapDecoder = null;
+        }
+        return finished;
     }
 
     private void loadGameplayAssets() {
-        manager.load(BACKGROUND_TEXTURE, Texture.class);
-        manager.load(FRONT_ROPES_TEXTURE, Texture.class);
-        manager.load(IDLE_SPRITE_SHEET, Texture.class);
-        manager.load(WALK_SPRITE_SHEET, Texture.class);
-        manager.load(PUNCH_SPRITE_SHEET, Texture.class);
-        manager.load(KICK_SPRITE_SHEET, Texture.class);
-        manager.load(HURT_SPRITE_SHEET, Texture.class);
-        manager.load(BLOCK_SPRITE_SHEET, Texture.class);
-        manager.load(WIN_SPRITE_SHEET, Texture.class);
-        manager.load(LOSE_SPRITE_SHEET, Texture.class);
-        manager.load(GAMEPLAY_BUTTONS_ATLAS, TextureAtlas.class);
-        manager.load(BLOOD_ATLAS, TextureAtlas.class);
+        loadAtlas(GAMEPLAY_ATLAS);
+        loadAtlas(GAMEPLAY_BUTTONS_ATLAS);
+    }
+
+    private void loadFonts() {
+        for (String font : new String[]{SMALL_FONT, MEDIUM_FONT, LARGE_FONT}) {
+            BakedFontLoader.BakedFontParameter parameter = new BakedFontLoader.BakedFontParameter();
+            if (isGameplayFont(font)) {
+                // the font's page is a region of the gameplay atlas
+                parameter.atlas = GAMEPLAY_ATLAS;
+            } else {
+                // decode the font's page right away, like the atlas pages
+                pixmapDecoder.decode(manager.getFileHandleResolver().resolve(BakedFont.getPagePath(font)));
+            }
+            manager.load(font, BitmapFont.class, parameter);
+        }
+    }
+
+    private static boolean isGameplayFont(String font) {
+        for (String gameplayFont : GAMEPLAY_FONTS) {
+            if (gameplayFont.equals(font)) return true;
+        }
+        return false;
+    }
+
+    private void loadAudio() {
+        // sound effects are decoded up front, so playing them doesn't touch the disk; the music is streamed
+        for (String sound : SOUNDS) {
+            manager.load(sound, Sound.class);
+        }
+        manager.load(MUSIC, Music.class);
+    }
+
+    private void loadAtlas(String fileName) {
+        // start decoding the atlas pages right away, instead of when the asset manager gets to them
+        FileHandle atlasFile = manager.getFileHandleResolver().resolve(fileName);
+        TextureAtlas.TextureAtlasData data = new TextureAtlas.TextureAtlasData(atlasFile, atlasFile.parent(), false);
+        for (TextureAtlas.TextureAtlasData.Page page : data.getPages()) {
+            pixmapDecoder.decode(page.textureFile);
+        }
+
+        manager.load(fileName, TextureAtlas.class);
+    }
+
+    /**
+     * @return the name of the atlas region a texture is packed into, which is its file name without the extension
+     */
+    public static String getRegionName(String textureFileName) {
+        int start = textureFileName.lastIndexOf('/') + 1;
+        int end = textureFileName.lastIndexOf('.');
+        return textureFileName.substring(start, end > start ? end : textureFileName.length());
     }
 
     public void dispose(){
+        skins.dispose();
+        if (pixmapDecoder != null) {
+            pixmapDecoder.dispose();
+        }
         manager.dispose();
     }
 }
@@ -0,0 +1,143 @@
+package com.weitnow.sfs.ressources;
+
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+/**
+ * A font rasterized ahead of time by the desktop FontBaker: one page of glyphs and a binary file with their metrics,
+ * stored next to each other. A baked font is keyed by the hash of the font file it was rasterized from, its size in
+ * pixels and its scale, so the baker can tell which ones are outdated. Loading one is a single read of the metrics and
+ * the upload of its page; no font is rasterized at runtime.
+ */
+public class BakedFont {
+    // extension of the metrics file, the page has the same name with a png extension
+    public static final String EXTENSION = ".font";
+
+    // identifies a baked font file, and the version of its format
+    public static final int MAGIC = 0x53464246;
+    public static final int VERSION = 1;
+
+    /**
+     * The key of a baked font, which is stored at the start of its metrics file.
+     */
+    public static class Key {
+        public final int fontHash;
+        public final int size;
+        public final float scale;
+
+        public Key(int fontHash, int size, float scale) {
+            this.fontHash = fontHash;
+            this.size = size;
+            this.scale = scale;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return fontHash == key.fontHash && size == key.size && scale == key.scale;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * fontHash + size) + Float.floatToIntBits(scale);
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toHexString(fontHash) + " " + size + "px " + scale + "x";
+        }
+    }
+
+    /**
+     * @return the path of the metrics file of a font file baked with the given size and scale
+     */
+    public static String getPath(String fontFileName, int size, float scale) {
+        return "fonts/baked/" + Assets.getRegionName(fontFileName) + "-" + size + "-" + Math.round(scale * 100f) +
+                EXTENSION;
+    }
+
+    /**
+     * @return the path of the page of a baked font
+     */
+    public static String getPagePath(String path) {
+        return path.substring(0, path.length() - EXTENSION.length()) + ".png";
+    }
+
+    /**
+     * @return the hash of a font file's contents, which is part of the key of the fonts baked from it
+     */
+    public static int hash(byte[] fontFile) {
+        CRC32 crc = new CRC32();
+        crc.update(fontFile, 0, fontFile.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Reads only the key of a baked font.
+     */
+    public static Key readKey(byte[] bytes) throws IOException {
+        return readKey(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    private static Key readKey(DataInputStream data) throws IOException {
+        if (data.readInt() != MAGIC) throw new IOException("Not a baked font");
+        int version = data.readShort();
+        if (version != VERSION) throw new IOException("Unsupported baked font version: " + version);
+        return new Key(data.readInt(), data.readShort(), data.readFloat());
+    }
+
+    /**
+     * Reads the metrics of a baked font, in the format written by the desktop FontBaker.
+     * @param pagePath path of the font's page, which the glyphs refer to
+     */
+    public static BitmapFont.BitmapFontData read(byte[] bytes, String pagePath) throws IOException {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(bytes));
+        Key key = readKey(data);
+        BitmapFont.BitmapFontData fontData = new BitmapFont.BitmapFontData();
+        fontData.imagePaths = new String[]{pagePath};
+
+        // the metrics are stored the way the font data keeps them, for an unflipped font
+        fontData.lineHeight = data.readFloat();
+        fontData.capHeight = data.readFloat();
+        fontData.xHeight = data.readFloat();
+        fontData.ascent = data.readFloat();
+        fontData.descent = data.readFloat();
+        fontData.spaceXadvance = data.readFloat();
+        fontData.down = -fontData.lineHeight;
+
+        int glyphCount = data.readShort();
+        for (int i = 0; i < glyphCount; i++) {
+            BitmapFont.Glyph glyph = new BitmapFont.Glyph();
+            glyph.id = data.readChar();
+            glyph.srcX = data.readShort();
+            glyph.srcY = data.readShort();
+            glyph.width = data.readShort();
+            glyph.height = data.readShort();
+            glyph.xoffset = data.readShort();
+            glyph.yoffset = data.readShort();
+            glyph.xadvance = data.readShort();
+            fontData.setGlyph(glyph.id, glyph);
+        }
+
+        int kerningCount = data.readInt();
+        for (int i = 0; i < kerningCount; i++) {
+            BitmapFont.Glyph first = fontData.getGlyph(data.readChar());
+            char second = data.readChar();
+            int amount = data.readByte();
+            if (first != null) {
+                first.setKerning(second, amount);
+            }
+        }
+
+        // glyphs rasterized for a larger scale are drawn smaller, so the text keeps its size but stays sharp
+        if (key.scale != 1f) {
+            fontData.setScale(1f / key.scale);
+        }
+        return fontData;
+    }
+}
@@ -0,0 +1,80 @@
+package com.weitnow.sfs.ressources;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.IOException;
+
+/**
+ * Loads {@link BakedFont baked fonts} into bitmap fonts. The page is a dependency, so it is loaded like any other
+ * texture, or with the atlas it is packed into; the metrics are read in a single read on the asset manager's loading
+ * thread.
+ */
+public class BakedFontLoader extends AsynchronousAssetLoader<BitmapFont, BakedFontLoader.BakedFontParameter> {
+    // metrics of the font being loaded, handed from loadAsync to loadSync
+    private BitmapFont.BitmapFontData data;
+
+    public static class BakedFontParameter extends AssetLoaderParameters<BitmapFont> {
+        // the atlas the font's page is packed into, named after the page, or null if the page is loaded on its own
+        public String atlas;
+    }
+
+    public BakedFontLoader(FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+    // the raw descriptor array is the loader API's signature
+    @SuppressWarnings("rawtypes")
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, BakedFontParameter parameter) {
+        Array<AssetDescriptor> dependencies = new Array<>();
+        if (parameter != null && parameter.atlas != null) {
+            dependencies.add(new AssetDescriptor<>(parameter.atlas, TextureAtlas.class));
+            return dependencies;
+        }
+
+        // glyphs are drawn scaled, so filter them smoothly
+        TextureLoader.TextureParameter pageParameter = new TextureLoader.TextureParameter();
+        pageParameter.minFilter = Texture.TextureFilter.Linear;
+        pageParameter.magFilter = Texture.TextureFilter.Linear;
+        dependencies.add(new AssetDescriptor<>(BakedFont.getPagePath(fileName), Texture.class, pageParameter));
+        return dependencies;
+    }
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, BakedFontParameter parameter) {
+        try {
+            data = BakedFont.read(file.readBytes(), BakedFont.getPagePath(fileName));
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't read the baked font " + fileName, e);
+        }
+    }
+
+    @Override
+    public BitmapFont loadSync(AssetManager manager, String fileName, FileHandle file, BakedFontParameter parameter) {
+        String pagePath = BakedFont.getPagePath(fileName);
+        TextureRegion page;
+        if (parameter != null && parameter.atlas != null) {
+            page = manager.get(parameter.atlas, TextureAtlas.class).findRegion(Assets.getRegionName(pagePath));
+            if (page == null) {
+                throw new GdxRuntimeException("The page of " + fileName + " isn't packed into " + parameter.atlas);
+            }
+        } else {
+            page = new TextureRegion(manager.get(pagePath, Texture.class));
+        }
+        BitmapFont font = new BitmapFont(data, page, false);
+        data = null;
+        return font;
+    }
+}
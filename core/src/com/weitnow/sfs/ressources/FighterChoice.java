@@ -0,0 +1,30 @@
+package com.weitnow.sfs.ressources;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Json;
+
+/**
+ * A fighter of the roster in {@link Assets#FIGHTER_CHOICES}.
+ */
+public class FighterChoice {
+    public String name;
+    // red, green and blue
+    public float[] colorValues;
+    // texture of the fighter's skin, laid out as described by Fighter#setSkin and acquired from Assets#skins while
+    // the fighter is in a match, or null if the fighter wears the shared sprite sheets
+    public String skin;
+
+    public Color getColor() {
+        return new Color(colorValues[0], colorValues[1], colorValues[2], 1f);
+    }
+
+    /**
+     * Reads a roster of fighters.
+     */
+    @SuppressWarnings("unchecked")
+    public static Array<FighterChoice> loadRoster(FileHandle file) {
+        return new Json().fromJson(Array.class, FighterChoice.class, file);
+    }
+}
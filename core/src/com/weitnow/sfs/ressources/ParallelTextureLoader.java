@@ -0,0 +1,63 @@
+package com.weitnow.sfs.ressources;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.glutils.PixmapTextureData;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Loads textures from pixmaps decoded by a {@link PixmapDecoder}, instead of decoding them one after the other on
+ * the asset manager's single loading thread. Only the upload happens on the render thread, one texture per
+ * {@link AssetManager#update(int)} step, so uploads can be spread over several frames.
+ * Files that weren't passed to the decoder are decoded here, just like the default texture loader does.
+ */
+public class ParallelTextureLoader extends AsynchronousAssetLoader<Texture, TextureLoader.TextureParameter> {
+    private final PixmapDecoder decoder;
+    // data of the texture being loaded, handed from loadAsync to loadSync
+    private TextureData data;
+
+    public ParallelTextureLoader(FileHandleResolver resolver, PixmapDecoder decoder) {
+        super(resolver);
+        this.decoder = decoder;
+    }
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file,
+                          TextureLoader.TextureParameter parameter) {
+        Pixmap.Format format = parameter != null ? parameter.format : null;
+        boolean genMipMaps = parameter != null && parameter.genMipMaps;
+
+        Pixmap pixmap = decoder.take(file);
+        if (pixmap == null) {
+            pixmap = new Pixmap(file);
+        }
+        data = new PixmapTextureData(pixmap, format, genMipMaps, true);
+    }
+
+    @Override
+    public Texture loadSync(AssetManager manager, String fileName, FileHandle file,
+                            TextureLoader.TextureParameter parameter) {
+        Texture texture = new Texture(data);
+        data = null;
+        if (parameter != null) {
+            texture.setFilter(parameter.minFilter, parameter.magFilter);
+            texture.setWrap(parameter.wrapU, parameter.wrapV);
+        }
+        return texture;
+    }
+
+    // the raw descriptor array is the loader API's signature
+    @SuppressWarnings("rawtypes")
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file,
+                                                  TextureLoader.TextureParameter parameter) {
+        return null;
+    }
+}
@@ -0,0 +1,74 @@
+package com.weitnow.sfs.ressources;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Decodes image files into pixmaps on a pool of worker threads, so all textures are decoded in parallel while
+ * the render thread is free to show a loading screen. Decoding doesn't touch GL, only uploading the pixmaps does.
+ */
+public class PixmapDecoder {
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<String, Future<Pixmap>> pixmaps = new ConcurrentHashMap<>();
+
+    public PixmapDecoder() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public PixmapDecoder(int threads) {
+        executor = Executors.newFixedThreadPool(Math.max(threads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "PixmapDecoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts decoding the file, unless it's already being decoded.
+     */
+    public void decode(final FileHandle file) {
+        pixmaps.computeIfAbsent(file.path(), path -> executor.submit(() -> new Pixmap(file)));
+    }
+
+    /**
+     * Waits for the file to be decoded and hands over the pixmap, which the caller must dispose.
+     * @return the pixmap, or null if the file was never passed to {@link #decode(FileHandle)}
+     */
+    public Pixmap take(FileHandle file) {
+        Future<Pixmap> pixmap = pixmaps.remove(file.path());
+        if (pixmap == null) return null;
+
+        try {
+            return pixmap.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GdxRuntimeException("Interrupted while decoding " + file, e);
+        } catch (ExecutionException e) {
+            throw new GdxRuntimeException("Couldn't decode " + file, e.getCause());
+        }
+    }
+
+    /**
+     * Stops the worker threads and disposes pixmaps that were decoded but never taken.
+     */
+    public void dispose() {
+        executor.shutdownNow();
+        for (Future<Pixmap> pixmap : pixmaps.values()) {
+            if (pixmap.isDone() && !pixmap.isCancelled()) {
+                try {
+                    pixmap.get().dispose();
+                } catch (InterruptedException | ExecutionException ignored) {
+                    // nothing to dispose
+                }
+            }
+        }
+        pixmaps.clear();
+    }
+}
@@ -0,0 +1,210 @@
+package com.weitnow.sfs.ressources;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps textures that aren't needed all the time, like fighter skins, resident within a memory budget. A texture is
+ * loaded through the asset manager when it is first acquired and stays resident while it is referenced. Once it is no
+ * longer referenced it stays loaded as long as it fits into the budget, so acquiring it again is a hit; when the
+ * resident textures exceed the budget, the least recently used unreferenced ones are unloaded. Referenced textures are
+ * never unloaded, so the budget can be exceeded while they need more memory.
+ * Only to be used from the render thread.
+ */
+public class TextureCache {
+    private final AssetManager manager;
+    private long budgetBytes;
+
+    // resident textures by file name, from the least to the most recently used
+    private final LinkedHashMap<String, Resident> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes;
+
+    // metrics
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long peakResidentBytes;
+
+    private static class Resident {
+        final Texture texture;
+        final long bytes;
+        int references;
+
+        Resident(Texture texture, long bytes) {
+            this.texture = texture;
+            this.bytes = bytes;
+        }
+    }
+
+    public TextureCache(AssetManager manager, long budgetBytes) {
+        this.manager = manager;
+        setBudgetBytes(budgetBytes);
+    }
+
+    /**
+     * Changes the budget, unloading unreferenced textures right away if the resident ones exceed it.
+     */
+    public void setBudgetBytes(long budgetBytes) {
+        if (budgetBytes < 0) {
+            throw new IllegalArgumentException("budget must not be negative: " + budgetBytes);
+        }
+        this.budgetBytes = budgetBytes;
+        evict();
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * References the texture, loading it if it isn't resident. Every call must be paired with a call to
+     * {@link #release(String)} once the texture isn't drawn anymore.
+     */
+    public Texture acquire(String fileName) {
+        Resident resident = entries.get(fileName);
+        if (resident != null) {
+            hits++;
+        } else {
+            misses++;
+            manager.load(fileName, Texture.class);
+            Texture texture = manager.finishLoadingAsset(fileName);
+            resident = new Resident(texture, getBytes(texture));
+            entries.put(fileName, resident);
+            residentBytes += resident.bytes;
+            peakResidentBytes = Math.max(peakResidentBytes, residentBytes);
+        }
+        resident.references++;
+
+        // make room for the texture, if it doesn't fit
+        evict();
+        return resident.texture;
+    }
+
+    /**
+     * Drops a reference acquired by {@link #acquire(String)}. The texture stays loaded until it has to make room for
+     * others.
+     */
+    public void release(String fileName) {
+        Resident resident = entries.get(fileName);
+        if (resident == null || resident.references == 0) {
+            throw new GdxRuntimeException("Texture " + fileName + " isn't acquired");
+        }
+        resident.references--;
+        evict();
+    }
+
+    /**
+     * @return whether the texture is loaded, without counting as a use
+     */
+    public boolean isResident(String fileName) {
+        // the access ordered map only reorders on get, not on containsKey
+        return entries.containsKey(fileName);
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Resident>> iterator = entries.entrySet().iterator();
+        while (residentBytes > budgetBytes && iterator.hasNext()) {
+            Map.Entry<String, Resident> next = iterator.next();
+            Resident resident = next.getValue();
+            if (resident.references > 0) continue;
+
+            iterator.remove();
+            manager.unload(next.getKey());
+            residentBytes -= resident.bytes;
+            evictions++;
+        }
+    }
+
+    /**
+     * Unloads all unreferenced textures, e.g. when the roster screen is left.
+     */
+    public void trim() {
+        long budget = budgetBytes;
+        budgetBytes = 0;
+        evict();
+        budgetBytes = budget;
+    }
+
+    /**
+     * @return the memory a texture takes on the GPU, estimated from its size and format
+     */
+    static long getBytes(Texture texture) {
+        TextureData data = texture.getTextureData();
+        long bytes = (long) texture.getWidth() * texture.getHeight() * getBytesPerPixel(data.getFormat());
+        // the mipmap chain adds a third
+        return data.useMipMaps() ? bytes * 4 / 3 : bytes;
+    }
+
+    private static int getBytesPerPixel(Pixmap.Format format) {
+        if (format == null) return 4;
+        switch (format) {
+            case Alpha:
+            case Intensity:
+                return 1;
+            case LuminanceAlpha:
+            case RGB565:
+            case RGBA4444:
+                return 2;
+            case RGB888:
+                return 3;
+            default:
+                return 4;
+        }
+    }
+
+    public int getResidentCount() {
+        return entries.size();
+    }
+
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public long getPeakResidentBytes() {
+        return peakResidentBytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the share of acquisitions that found the texture resident, from 0 to 1
+     */
+    public float getHitRate() {
+        long acquisitions = hits + misses;
+        return acquisitions > 0 ? hits / (float) acquisitions : 0f;
+    }
+
+    /**
+     * Unloads all textures, referenced or not.
+     */
+    public void dispose() {
+        for (String fileName : entries.keySet()) {
+            manager.unload(fileName);
+        }
+        entries.clear();
+        residentBytes = 0;
+    }
+
+    @Override
+    public String toString() {
+        return entries.size() + " textures, " + residentBytes / 1024 + " of " + budgetBytes / 1024 + " KiB (peak " +
+                peakResidentBytes / 1024 + " KiB), hits: " + hits + ", misses: " + misses + ", evictions: " + evictions;
+    }
+}
@@ -0,0 +1,76 @@
+package com.weitnow.sfs.screens;
+
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.CombatEvents;
+import com.weitnow.sfs.simulation.MatchSimulation;
+
+/**
+ * Counts the hits each fighter of a match lands in a row. A fighter that got hit can't be hit again until it has
+ * recovered, so recovering doesn't end the combo against it; blocking, attacking or not getting hit again within
+ * {@link #WINDOW_TICKS} does. A combo that ended is reset to 0, so it stays visible until then, also after a knockout.
+ */
+public class ComboCounter implements CombatEvents.Listener {
+    // most ticks between two hits of a combo, about two attacks
+    public static final int WINDOW_TICKS = Math.round(0.6f / MatchSimulation.TICK_DURATION);
+
+    private final Fighter player, opponent;
+
+    private int playerCombo, opponentCombo;
+    // tick of the last hit of each fighter's combo
+    private long playerHitTick, opponentHitTick;
+
+    public ComboCounter(Fighter player, Fighter opponent) {
+        this.player = player;
+        this.opponent = opponent;
+    }
+
+    /**
+     * Gets ready for a new round.
+     */
+    public void reset() {
+        playerCombo = opponentCombo = 0;
+    }
+
+    /**
+     * Ends the combos whose next hit didn't come in time.
+     */
+    public void update(long tick) {
+        if (tick - playerHitTick > WINDOW_TICKS) playerCombo = 0;
+        if (tick - opponentHitTick > WINDOW_TICKS) opponentCombo = 0;
+    }
+
+    /**
+     * @return the hits in a row the player landed, or 0 if the player's combo ended
+     */
+    public int getPlayerCombo() {
+        return playerCombo;
+    }
+
+    /**
+     * @return the hits in a row the opponent landed, or 0 if the opponent's combo ended
+     */
+    public int getOpponentCombo() {
+        return opponentCombo;
+    }
+
+    @Override
+    public void onCombatEvent(CombatEvents.Type type, long tick, Fighter attacker, Fighter defender, float damage,
+                              Fighter.State state) {
+        if (type == CombatEvents.Type.HIT) {
+            // every hit that isn't blocked continues the attacker's combo, if it came in time
+            update(tick);
+            if (attacker == player) {
+                playerCombo++;
+                playerHitTick = tick;
+            } else if (attacker == opponent) {
+                opponentCombo++;
+                opponentHitTick = tick;
+            }
+        } else if (type == CombatEvents.Type.BLOCK || type == CombatEvents.Type.STATE_CHANGE &&
+                (state == Fighter.State.BLOCK || state == Fighter.State.PUNCH || state == Fighter.State.KICK)) {
+            // the defender got to block or attack, which ends the combo against it
+            if (defender == player) opponentCombo = 0;
+            else if (defender == opponent) playerCombo = 0;
+        }
+    }
+}
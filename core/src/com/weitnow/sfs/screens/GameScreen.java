@@ -4,35 +4,74 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.Screen;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.utils.viewport.ExtendViewport;
 import com.weitnow.sfs.SFS;
+import com.weitnow.sfs.ai.CpuOpponent;
+import com.weitnow.sfs.effects.ParticleSystem;
+import com.weitnow.sfs.input.InputQueue;
+import com.weitnow.sfs.network.SpectatorServer;
 import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.profiling.FrameProfiler;
+import com.weitnow.sfs.profiling.Histogram;
+import com.weitnow.sfs.profiling.ProfilerOverlay;
 import com.weitnow.sfs.ressources.Assets;
 import com.weitnow.sfs.ressources.GlobalVariables;
+import com.weitnow.sfs.simulation.CombatEvents;
+import com.weitnow.sfs.simulation.Controls;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import com.weitnow.sfs.simulation.ReplayRecorder;
+
+import java.io.IOException;
+
+public class GameScreen implements Screen, InputProcessor, CombatEvents.Listener {
+    // where F4 exports the frame profile to
+    private static final String PROFILE_FILE = "frame_profile.csv";
+    // where the replay of the match is saved to when the screen is disposed
+    private static final String REPLAY_FILE = "last_match.replay";
+    // longest time simulated per frame, so a long stall doesn't make the game simulate ever more ticks to catch up
+    private static final float MAX_FRAME_TIME = 0.25f;
 
-public class GameScreen implements Screen, InputProcessor {
     private final SFS game;
     private final ExtendViewport viewport;
 
     // background/ring
-    private Texture backgroundTexture;
-    private Texture frontRopesTexture;
-
-    private static final float RING_MIN_X = 7f;
-    private static final float RING_MAX_X = 60f;
-    private static final float RING_MIN_Y = 4f;
-    private static final float RING_MAX_Y = 22f;
-    private static final float RING_SLOPE = 3.16f;
-
-    // fighters
-    private static final float PLAYER_START_POSITION_X = 16f;
-    private static final float OPPONENT_START_POSITION_X = 51f;
-    private static final float FIGHTER_START_POSITION_Y = 15f;
-    private static final float FIGHTER_CONTACT_DISTANCE_X = 7.5f;
-    private static final float FIGHTER_CONTACT_DISTANCE_Y = 1.5f;
+    private TextureRegion background;
+    private TextureRegion frontRopes;
+    // blood and sparks of the hits, drawn over the fighters
+    private ParticleSystem particles;
+    // health bars, names, timer and combos, drawn on top of the ring
+    private final Hud hud;
+
+    // match rules
+    private final MatchSimulation match;
+    // simulated time the match is behind the frames rendered, less than a tick after each update
+    private float accumulator;
+    // records the controls of every tick of the match
+    private final ReplayRecorder replayRecorder;
+
+    // streams the match to spectators, or null if it isn't streamed
+    private SpectatorServer spectatorServer;
+
+    // controls the opponent
+    private final CpuOpponent cpuOpponent;
+
+    // the player's key presses and releases, applied at the start of the next tick
+    private final InputQueue inputQueue = new InputQueue();
+    // time from pressing a key until the player's state changed because of it, in 0.1 ms buckets up to 100 ms
+    private final Histogram inputLatency = new Histogram(100_000L, 1000);
+    // whether the player's state changed during the last update
+    private boolean playerStateChanged;
+
+    // shows the frame profiler's statistics, created when it is first shown
+    private ProfilerOverlay profilerOverlay;
+    private boolean profilerOverlayVisible;
+
+    // fighters, drawn in depth order
+    private final RenderQueue renderQueue = new RenderQueue(2);
 
     public GameScreen(SFS game) {
         this.game = game;
@@ -44,15 +83,38 @@ public class GameScreen implements Screen, InputProcessor {
         // create the game area
         createGameArea();
 
-        // get the fighters ready
-        game.player.getReady(PLAYER_START_POSITION_X, FIGHTER_START_POSITION_Y);
-        game.opponent.getReady(OPPONENT_START_POSITION_X, FIGHTER_START_POSITION_Y);
+        // set up the match, which gets the fighters ready
+        match = new MatchSimulation(game.player, game.opponent);
+        cpuOpponent = new CpuOpponent(CpuOpponent.NORMAL_BUDGET_NANOS, TimeUtils.millis());
+        replayRecorder = new ReplayRecorder(game.player.getName(), game.opponent.getName(),
+                MatchSimulation.TICK_DURATION);
+        match.setRecorder(replayRecorder);
+        hud = new Hud(game.assets, game.player, game.opponent);
+        if (game.spectatorPort >= 0) {
+            startSpectatorServer(game.spectatorPort);
+        }
+
+        // if the fighters are equally far back, draw the player in front of the opponent
+        renderQueue.add(game.opponent);
+        renderQueue.add(game.player);
+    }
+
+    private void startSpectatorServer(int port) {
+        try {
+            spectatorServer = new SpectatorServer(port, game.player, game.opponent);
+            Gdx.app.log("GameScreen", "streaming the match to spectators on port " + spectatorServer.getPort());
+        } catch (IOException e) {
+            Gdx.app.error("GameScreen", "couldn't start the spectator server", e);
+        }
     }
 
     private void createGameArea() {
-        // get the ring textures from the asset manager
-        backgroundTexture = game.assets.manager.get(Assets.BACKGROUND_TEXTURE);
-        frontRopesTexture = game.assets.manager.get(Assets.FRONT_ROPES_TEXTURE);
+        // get the ring regions from the gameplay atlas, which also holds the fighter sprite sheets
+        TextureAtlas atlas = game.assets.manager.get(Assets.GAMEPLAY_ATLAS);
+        background = atlas.findRegion(Assets.getRegionName(Assets.BACKGROUND_TEXTURE));
+        frontRopes = atlas.findRegion(Assets.getRegionName(Assets.FRONT_ROPES_TEXTURE));
+        // the blood is packed into the same atlas, so it doesn't need a texture switch either
+        particles = new ParticleSystem(ParticleSystem.DEFAULT_CAPACITY, atlas);
     }
 
     @Override
@@ -63,10 +125,24 @@ public class GameScreen implements Screen, InputProcessor {
 
     @Override
     public void render(float delta) {
+        FrameProfiler profiler = game.profiler;
+        profiler.beginFrame();
+
         ScreenUtils.clear(0, 0, 0, 1);
+        profiler.endPhase(FrameProfiler.Phase.CLEAR);
 
         // update the game
         update(delta);
+        profiler.endPhase(FrameProfiler.Phase.UPDATE);
+
+        // only simulate, e.g. when running headless; the first simulated frame counts as the first frame then
+        if (game.skipRendering) {
+            profiler.endFrame();
+            if (game.timeToFirstFrameMillis < 0) {
+                game.firstFrameRendered();
+            }
+            return;
+        }
 
         // set the sprite batch to use the camera
         game.batch.setProjectionMatrix(viewport.getCamera().combined);
@@ -75,95 +151,128 @@ public class GameScreen implements Screen, InputProcessor {
         game.batch.begin();
 
         // draw the background
-        game.batch.draw(backgroundTexture, 0, 0, backgroundTexture.getWidth() * GlobalVariables.WORLD_SCALE, backgroundTexture.getHeight() * GlobalVariables.WORLD_SCALE);
+        game.batch.draw(background, 0, 0, background.getRegionWidth() * GlobalVariables.WORLD_SCALE, background.getRegionHeight() * GlobalVariables.WORLD_SCALE);
+        profiler.endPhase(FrameProfiler.Phase.RING);
 
         // draw the fighters
         renderFighters();
+        profiler.endPhase(FrameProfiler.Phase.FIGHTERS);
 
         // draw the front ropes
-        game.batch.draw(frontRopesTexture, 0, 0, frontRopesTexture.getWidth() * GlobalVariables.WORLD_SCALE,
-                frontRopesTexture.getHeight() * GlobalVariables.WORLD_SCALE);
+        game.batch.draw(frontRopes, 0, 0, frontRopes.getRegionWidth() * GlobalVariables.WORLD_SCALE,
+                frontRopes.getRegionHeight() * GlobalVariables.WORLD_SCALE);
+        profiler.endPhase(FrameProfiler.Phase.RING);
+
+        // draw the HUD, whose fonts are packed into the gameplay atlas too, so it still takes a single flush
+        hud.render(game.batch, viewport.getWorldHeight());
+        profiler.endPhase(FrameProfiler.Phase.HUD);
 
         // end drawing
         game.batch.end();
+        profiler.endPhase(FrameProfiler.Phase.FLUSH);
+
+        // draw the profiler's statistics on top
+        if (profilerOverlayVisible) {
+            profilerOverlay.render(game.batch);
+            profiler.endPhase(FrameProfiler.Phase.OVERLAY);
+        }
+        profiler.endFrame();
+
+        if (game.timeToFirstFrameMillis < 0) {
+            game.firstFrameRendered();
+        }
     }
 
     private void renderFighters() {
-        // use the y coordinates of the fighter's positions to determine which fighter to draw first
-        if (game.player.getPosition().y > game.opponent.getPosition().y) {
-            // draw player
-            game.player.render(game.batch);
-
-            //draw opponent
-            game.opponent.render(game.batch);
-        } else {
-            //draw opponent
-            game.opponent.render(game.batch);
-            // draw player
-            game.player.render(game.batch);
-        }
+        // use the y coordinates of the fighter's positions to determine which fighter to draw first, and draw the
+        // fighters between the last two ticks
+        renderQueue.render(game.batch, accumulator / MatchSimulation.TICK_DURATION);
+        particles.render(game.batch);
     }
 
     private void update(float deltaTime) {
-        game.player.update(deltaTime);
-        game.opponent.update(deltaTime);
-
-        // make sure the fighters are fading each other
-        if (game.player.getPosition().x <= game.opponent.getPosition().x) {
-            game.player.faceRight();
-            game.opponent.faceLeft();
-        } else {
-            game.player.faceLeft();
-            game.opponent.faceRight();
+        // simulate as many fixed ticks as fit into the time passed, so the game plays the same at any frame rate
+        accumulator += Math.min(deltaTime, MAX_FRAME_TIME);
+        boolean ticked = false;
+        while (accumulator >= MatchSimulation.TICK_DURATION) {
+            tick();
+            accumulator -= MatchSimulation.TICK_DURATION;
+            ticked = true;
         }
 
-        // keep the fighters within the bounds of the ring
-        keepWithinRingBounds(game.player.getPosition());
-        keepWithinRingBounds(game.opponent.getPosition());
-
-        // check if the fighters are within contact distance
-        if (areWithinContactDistance(game.player.getPosition(), game.opponent.getPosition())) {
-            if (game.player.isAttackActive()) {
-                // if the fighters are within contact distance and player is actively attacking, opponent gets hit
-                game.opponent.getHit(Fighter.HIT_STRENGTH);
-                System.out.println("opponent's life: " + game.opponent.getLife());
-
-                // deactivate player's attack
-                game.player.makeContact();
-
-                // check if opponent has lost
-                if (game.opponent.hasLost()) {
-                    // if opponent hast lost, player wins
-                    game.player.win();
-                }
-            }
+        // let the opponent think about the updated match
+        if (ticked) {
+            cpuOpponent.observe(match);
         }
+
+        // free the voices of the sounds that have finished, move the particles and update the HUD
+        game.audio.update(deltaTime);
+        particles.update(deltaTime);
+        hud.update(deltaTime, match.getTick());
     }
 
-    private void keepWithinRingBounds(Vector2 position) {
-        if (position.y < RING_MIN_Y) {
-            position.y = RING_MIN_Y;
-        } else if (position.y > RING_MAX_Y) {
-            position.y = RING_MAX_Y;
+    private void tick() {
+        // apply the keys pressed and released since the last tick in the order they happened, and let the opponent
+        // hold the buttons it last decided on
+        int playerControls = inputQueue.apply(match.getPlayerControls());
+        long inputTime = inputQueue.getAppliedPressTime();
+        match.step(playerControls, cpuOpponent.getControls());
+
+        // handle what happened in the match
+        playerStateChanged = false;
+        match.getCombatEvents().drain(this);
+
+        // stream the tick to the spectators
+        if (spectatorServer != null) {
+            try {
+                spectatorServer.broadcast(match.getTick());
+            } catch (IOException e) {
+                Gdx.app.error("GameScreen", "stopped streaming the match to spectators", e);
+                closeSpectatorServer();
+            }
+        }
+
+        // measure how long it took for a key press to change the player's state, if it did
+        if (inputTime != 0L && playerStateChanged) {
+            inputLatency.record(TimeUtils.timeSinceNanos(inputTime));
         }
-        if (position.x < position.y / RING_SLOPE + RING_MIN_X ) {
-            position.x = position.y / RING_SLOPE + RING_MIN_X;
-        } else if (position.x > position.y / -RING_SLOPE + RING_MAX_X) {
-            position.x = position.y / -RING_SLOPE + RING_MAX_X;
+    }
+
+    private void closeSpectatorServer() {
+        try {
+            spectatorServer.close();
+        } catch (IOException ignored) {
+            // the spectators are gone either way
         }
+        spectatorServer = null;
     }
 
-    private boolean areWithinContactDistance(Vector2 position1, Vector2 position2) {
-        // determine if the positions are within the distance in which contact is possible
-        float xDistance = Math.abs(position1.x - position2.x);
-        float yDistance = Math.abs(position1.y - position2.y);
-        return xDistance <= FIGHTER_CONTACT_DISTANCE_X && yDistance <= FIGHTER_CONTACT_DISTANCE_Y;
+    public Histogram getInputLatency() {
+        return inputLatency;
+    }
+
+    @Override
+    public void onCombatEvent(CombatEvents.Type type, long tick, Fighter attacker, Fighter defender, float damage,
+                              Fighter.State state) {
+        if (type == CombatEvents.Type.STATE_CHANGE && defender == game.player) {
+            playerStateChanged = true;
+        }
+        game.audio.onCombatEvent(type, tick, attacker, defender, damage, state);
+        particles.onCombatEvent(type, tick, attacker, defender, damage, state);
+        hud.onCombatEvent(type, tick, attacker, defender, damage, state);
+
+        if (game.combatEventRecorder != null) {
+            game.combatEventRecorder.onCombatEvent(type, tick, attacker, defender, damage, state);
+        }
     }
 
     @Override
     public void resize(int width, int height) {
         // update the viewport with the new screen size
         viewport.update(width, height, true);
+        if (profilerOverlay != null) {
+            profilerOverlay.resize(width, height);
+        }
     }
 
     @Override
@@ -183,55 +292,87 @@ public class GameScreen implements Screen, InputProcessor {
 
     @Override
     public void dispose() {
-
+        cpuOpponent.dispose();
+        replayRecorder.save(Gdx.files.local(REPLAY_FILE));
+        if (spectatorServer != null) {
+            Gdx.app.log("GameScreen", "spectators: " + spectatorServer.getSpectatorsAccepted() + ", frames sent: " +
+                    spectatorServer.getFramesSent() + ", dropped: " + spectatorServer.getFramesDropped());
+            closeSpectatorServer();
+        }
+        if (profilerOverlay != null) {
+            profilerOverlay.dispose();
+        }
+        Gdx.app.log("GameScreen", "input latency: " + inputLatency);
+        if (game.profiler.getFrames() > 0) {
+            Gdx.app.log("GameScreen", "frame profile: " + game.profiler);
+        }
     }
 
     @Override
     public boolean keyDown(int keycode) {
-        // check if player has pressed a movement key
-        if (keycode == Input.Keys.A) {
-            game.player.moveLeft();
-        } else if (keycode == Input.Keys.D) {
-            game.player.moveRight();
-        }
-        if (keycode == Input.Keys.W) {
-            game.player.moveUp();
-        } else if (keycode == Input.Keys.S) {
-            game.player.moveDown();
+        // toggle the profiler overlay, which turns on profiling, or export the profile
+        if (keycode == Input.Keys.F3) {
+            toggleProfilerOverlay();
+            return true;
+        } else if (keycode == Input.Keys.F4 && game.profiler.isEnabled()) {
+            game.profiler.exportCsv(Gdx.files.local(PROFILE_FILE));
+            Gdx.app.log("GameScreen", "exported the frame profile to " + PROFILE_FILE);
+            return true;
         }
 
-        // check if the player has pressed a block or attack key
-        if (keycode == Input.Keys.B) {
-            game.player.block();
-        } else if (keycode == Input.Keys.F) {
-            game.player.punch();
-        } else if (keycode == Input.Keys.V) {
-            game.player.kick();
+        // queue pressing the player's button, it is applied at the start of the next update
+        int button = getButton(keycode);
+        if (button != 0) {
+            inputQueue.add(button, true, TimeUtils.nanoTime());
         }
-
         return true;
     }
 
     @Override
     public boolean keyUp(int keycode) {
-        // if player has released a movement key, stop moving in that direction
-        if (keycode == Input.Keys.A) {
-            game.player.stopMovingLeft();
-        } else if (keycode == Input.Keys.D) {
-            game.player.stopMovingRight();
-        }
-        if (keycode == Input.Keys.W) {
-            game.player.stopMovingUp();
-        } else if (keycode == Input.Keys.S) {
-            game.player.stopMovingDown();
+        // queue releasing the player's button, it is applied at the start of the next update
+        int button = getButton(keycode);
+        if (button != 0) {
+            inputQueue.add(button, false, TimeUtils.nanoTime());
         }
+        return true;
+    }
 
-        // if player has released the block key, stop blocking
-        if (keycode == Input.Keys.B) {
-            game.player.stopBlocking();
+    private void toggleProfilerOverlay() {
+        if (profilerOverlay == null) {
+            profilerOverlay = new ProfilerOverlay(game.profiler);
+            profilerOverlay.resize(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        }
+        profilerOverlayVisible = !profilerOverlayVisible;
+        if (profilerOverlayVisible) {
+            game.profiler.setEnabled(true);
         }
+    }
 
-        return true;
+    /**
+     * @return the player's {@link Controls} button of the given key, or 0 if the key isn't bound
+     */
+    private static int getButton(int keycode) {
+        switch (keycode) {
+            // movement keys
+            case Input.Keys.A:
+                return Controls.LEFT;
+            case Input.Keys.D:
+                return Controls.RIGHT;
+            case Input.Keys.W:
+                return Controls.UP;
+            case Input.Keys.S:
+                return Controls.DOWN;
+            // block and attack keys
+            case Input.Keys.B:
+                return Controls.BLOCK;
+            case Input.Keys.F:
+                return Controls.PUNCH;
+            case Input.Keys.V:
+                return Controls.KICK;
+            default:
+                return 0;
+        }
     }
 
     @Override
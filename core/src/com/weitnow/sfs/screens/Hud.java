@@ -0,0 +1,182 @@
+package com.weitnow.sfs.screens;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.ressources.Assets;
+import com.weitnow.sfs.ressources.GlobalVariables;
+import com.weitnow.sfs.simulation.CombatEvents;
+import com.weitnow.sfs.simulation.MatchSimulation;
+
+/**
+ * Shows the fighters' health bars and names, the round timer and the fighters' combos. It is drawn in world units in
+ * the same batch as the ring and fighters, from the fonts and the white region packed into the gameplay atlas, so it
+ * needs neither a texture switch nor another projection. Text is only laid out again when a number shown changes,
+ * into reused buffers and layouts, so drawing the HUD doesn't allocate.
+ */
+public class Hud implements CombatEvents.Listener {
+    // seconds shown on the timer when the round starts, counting down to 0
+    public static final int ROUND_SECONDS = 99;
+
+    // the fonts are rasterized for the window size, this draws a pixel of them as large as a pixel of the window
+    private static final float FONT_SCALE = GlobalVariables.WORLD_WIDTH / GlobalVariables.WINDOW_WIDTH;
+    // layout in world units
+    private static final float MARGIN = 2f;
+    private static final float BAR_WIDTH = 30f;
+    private static final float BAR_HEIGHT = 2f;
+    private static final float TEXT_SPACING = 0.5f;
+    // life per second the damage trail behind a health bar shrinks by
+    private static final float DAMAGE_TRAIL_SPEED = 25f;
+    // hits in a row needed before a combo is shown
+    private static final int MIN_COMBO = 2;
+
+    private static final Color BAR_BACKGROUND_COLOR = new Color(0.15f, 0.15f, 0.15f, 0.8f);
+    private static final Color DAMAGE_TRAIL_COLOR = new Color(1f, 1f, 1f, 0.8f);
+
+    private final Fighter player, opponent;
+    private final BitmapFont smallFont, mediumFont;
+    private final TextureRegion pixel;
+
+    // laid out once
+    private final GlyphLayout playerName = new GlyphLayout();
+    private final GlyphLayout opponentName = new GlyphLayout();
+    // laid out again when their numbers change
+    private final GlyphLayout timer = new GlyphLayout();
+    private final GlyphLayout playerComboText = new GlyphLayout();
+    private final GlyphLayout opponentComboText = new GlyphLayout();
+    // text being laid out
+    private final StringBuilder text = new StringBuilder(16);
+
+    // hits in a row of both fighters
+    private final ComboCounter combos;
+
+    private int seconds = -1;
+    private int shownPlayerCombo = -1, shownOpponentCombo = -1;
+    // life shown by the damage trails, which follow the fighters' life
+    private float playerTrailLife, opponentTrailLife;
+
+    public Hud(Assets assets, Fighter player, Fighter opponent) {
+        this.player = player;
+        this.opponent = opponent;
+        combos = new ComboCounter(player, opponent);
+
+        TextureAtlas atlas = assets.manager.get(Assets.GAMEPLAY_ATLAS);
+        pixel = atlas.findRegion(Assets.PIXEL_REGION);
+        if (pixel == null) {
+            throw new GdxRuntimeException("The HUD's pixel isn't packed into the gameplay atlas");
+        }
+        smallFont = getFont(assets, Assets.SMALL_FONT);
+        mediumFont = getFont(assets, Assets.MEDIUM_FONT);
+
+        playerName.setText(smallFont, player.getName());
+        opponentName.setText(smallFont, opponent.getName());
+        reset();
+    }
+
+    private static BitmapFont getFont(Assets assets, String fileName) {
+        BitmapFont font = assets.manager.get(fileName, BitmapFont.class);
+        font.getData().setScale(FONT_SCALE);
+        // world units are much larger than pixels, so don't round the positions
+        font.setUseIntegerPositions(false);
+        return font;
+    }
+
+    /**
+     * Gets ready for a new round.
+     */
+    public void reset() {
+        combos.reset();
+        playerTrailLife = player.getLife();
+        opponentTrailLife = opponent.getLife();
+    }
+
+    /**
+     * Lets the damage trails follow the fighters' life and updates the timer and combos to the match's tick.
+     */
+    public void update(float deltaTime, long tick) {
+        playerTrailLife = followLife(playerTrailLife, player.getLife(), deltaTime);
+        opponentTrailLife = followLife(opponentTrailLife, opponent.getLife(), deltaTime);
+
+        int remainingSeconds = Math.max(ROUND_SECONDS - (int) (tick * MatchSimulation.TICK_DURATION), 0);
+        if (remainingSeconds != seconds) {
+            seconds = remainingSeconds;
+            text.setLength(0);
+            text.append(seconds);
+            timer.setText(mediumFont, text);
+        }
+        combos.update(tick);
+        int playerCombo = combos.getPlayerCombo();
+        if (playerCombo != shownPlayerCombo) {
+            shownPlayerCombo = playerCombo;
+            layoutCombo(playerComboText, playerCombo);
+        }
+        int opponentCombo = combos.getOpponentCombo();
+        if (opponentCombo != shownOpponentCombo) {
+            shownOpponentCombo = opponentCombo;
+            layoutCombo(opponentComboText, opponentCombo);
+        }
+    }
+
+    private static float followLife(float trailLife, float life, float deltaTime) {
+        // the trail only shrinks; when life goes up, e.g. for a new round, it jumps
+        return trailLife > life ? Math.max(trailLife - DAMAGE_TRAIL_SPEED * deltaTime, life) : life;
+    }
+
+    private void layoutCombo(GlyphLayout layout, int combo) {
+        text.setLength(0);
+        if (combo >= MIN_COMBO) {
+            text.append(combo).append(" HITS");
+        }
+        layout.setText(mediumFont, text);
+    }
+
+    /**
+     * Draws the HUD at the top of the world. Must be called between begin and end of the batch with the world's
+     * projection.
+     */
+    public void render(SpriteBatch batch, float worldHeight) {
+        float top = worldHeight - MARGIN;
+        float opponentBarX = GlobalVariables.WORLD_WIDTH - MARGIN - BAR_WIDTH;
+        drawHealthBar(batch, MARGIN, top - BAR_HEIGHT, player, playerTrailLife, false);
+        drawHealthBar(batch, opponentBarX, top - BAR_HEIGHT, opponent, opponentTrailLife, true);
+
+        // the timer between the bars, the names below them and the combos below the names
+        mediumFont.draw(batch, timer, (GlobalVariables.WORLD_WIDTH - timer.width) / 2f, top);
+        float nameY = top - BAR_HEIGHT - TEXT_SPACING;
+        smallFont.draw(batch, playerName, MARGIN, nameY);
+        smallFont.draw(batch, opponentName, GlobalVariables.WORLD_WIDTH - MARGIN - opponentName.width, nameY);
+        float comboY = nameY - playerName.height - TEXT_SPACING;
+        mediumFont.draw(batch, playerComboText, MARGIN, comboY);
+        mediumFont.draw(batch, opponentComboText, GlobalVariables.WORLD_WIDTH - MARGIN - opponentComboText.width,
+                comboY);
+    }
+
+    /**
+     * Draws a health bar, which empties towards the middle of the screen.
+     * @param rightAligned whether the bar is filled from its right end
+     */
+    private void drawHealthBar(SpriteBatch batch, float x, float y, Fighter fighter, float trailLife,
+                               boolean rightAligned) {
+        float lifeWidth = BAR_WIDTH * Math.max(fighter.getLife(), 0f) / Fighter.MAX_LIFE;
+        float trailWidth = BAR_WIDTH * Math.max(trailLife, 0f) / Fighter.MAX_LIFE;
+
+        batch.setColor(BAR_BACKGROUND_COLOR);
+        batch.draw(pixel, x, y, BAR_WIDTH, BAR_HEIGHT);
+        batch.setColor(DAMAGE_TRAIL_COLOR);
+        batch.draw(pixel, rightAligned ? x + BAR_WIDTH - trailWidth : x, y, trailWidth, BAR_HEIGHT);
+        batch.setColor(fighter.getColor());
+        batch.draw(pixel, rightAligned ? x + BAR_WIDTH - lifeWidth : x, y, lifeWidth, BAR_HEIGHT);
+        batch.setColor(Color.WHITE);
+    }
+
+    @Override
+    public void onCombatEvent(CombatEvents.Type type, long tick, Fighter attacker, Fighter defender, float damage,
+                              Fighter.State state) {
+        combos.onCombatEvent(type, tick, attacker, defender, damage, state);
+    }
+}
@@ -0,0 +1,72 @@
+package com.weitnow.sfs.screens;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.ScreenAdapter;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.badlogic.gdx.utils.viewport.ExtendViewport;
+import com.weitnow.sfs.SFS;
+import com.weitnow.sfs.ressources.GlobalVariables;
+
+/**
+ * Shows the loading progress while the assets are decoded in the background and uploaded a few at a time, then
+ * starts the game.
+ */
+public class LoadingScreen extends ScreenAdapter {
+    // time per frame spent loading assets on the render thread
+    private static final int LOADING_TIME_PER_FRAME_MILLIS = 8;
+
+    // progress bar
+    private static final float PROGRESS_BAR_WIDTH = 40f;
+    private static final float PROGRESS_BAR_HEIGHT = 2f;
+
+    private final SFS game;
+    private final ExtendViewport viewport;
+    // progress bar doesn't need any assets, so it can be drawn while they are loading
+    private final ShapeRenderer shapeRenderer = new ShapeRenderer();
+    private final long startTime = TimeUtils.nanoTime();
+
+    public LoadingScreen(SFS game) {
+        this.game = game;
+
+        //set up the viewport
+        viewport = new ExtendViewport(GlobalVariables.WORLD_WIDTH, GlobalVariables.MIN_WORLD_HEIGHT,
+                GlobalVariables.WORLD_WIDTH, 0);
+    }
+
+    @Override
+    public void render(float delta) {
+        ScreenUtils.clear(0, 0, 0, 1);
+
+        // continue loading and start the game once everything has loaded
+        if (game.assets.update(LOADING_TIME_PER_FRAME_MILLIS)) {
+            Gdx.app.log("LoadingScreen", "assets loaded in " +
+                    TimeUtils.nanosToMillis(TimeUtils.timeSinceNanos(startTime)) + " ms");
+            game.start();
+            return;
+        }
+
+        // draw the progress bar in the middle of the screen
+        float x = (viewport.getWorldWidth() - PROGRESS_BAR_WIDTH) / 2f;
+        float y = (viewport.getWorldHeight() - PROGRESS_BAR_HEIGHT) / 2f;
+        shapeRenderer.setProjectionMatrix(viewport.getCamera().combined);
+        shapeRenderer.begin(ShapeRenderer.ShapeType.Line);
+        shapeRenderer.rect(x, y, PROGRESS_BAR_WIDTH, PROGRESS_BAR_HEIGHT);
+        shapeRenderer.end();
+        shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+        shapeRenderer.rect(x, y, PROGRESS_BAR_WIDTH * game.assets.manager.getProgress(), PROGRESS_BAR_HEIGHT);
+        shapeRenderer.end();
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        // update the viewport with the new screen size
+        viewport.update(width, height, true);
+    }
+
+    @Override
+    public void dispose() {
+        shapeRenderer.dispose();
+    }
+}
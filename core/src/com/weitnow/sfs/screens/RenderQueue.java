@@ -0,0 +1,104 @@
+package com.weitnow.sfs.screens;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.weitnow.sfs.objects.Renderable;
+
+/**
+ * Draws any number of fighters and props ordered by depth. The draw order is kept between frames and repaired with
+ * an insertion sort, which is close to linear because things only move a little from one frame to the next.
+ * Sorting and drawing don't allocate.
+ */
+public class RenderQueue {
+    private final Renderable[] renderables;
+    // indices into renderables in draw order
+    private final int[] order;
+    // depth of each renderable, read once per frame
+    private final float[] depths;
+    private int size;
+
+    public RenderQueue(int capacity) {
+        renderables = new Renderable[capacity];
+        order = new int[capacity];
+        depths = new float[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a renderable. Renderables of equal depth are drawn in the order they were added.
+     */
+    public void add(Renderable renderable) {
+        if (size == renderables.length) {
+            throw new IllegalStateException("the render queue only has room for " + renderables.length + " renderables");
+        }
+        renderables[size] = renderable;
+        order[size] = size;
+        size++;
+    }
+
+    public void remove(Renderable renderable) {
+        for (int i = 0; i < size; i++) {
+            if (renderables[i] == renderable) {
+                // move the last renderable into the freed slot and drop the removed one from the draw order
+                int last = size - 1;
+                renderables[i] = renderables[last];
+                renderables[last] = null;
+                int orderPosition = 0;
+                for (int j = 0; j < size; j++) {
+                    if (order[j] == i) continue;
+                    order[orderPosition++] = order[j] == last ? i : order[j];
+                }
+                size--;
+                return;
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            renderables[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Sorts the renderables by their current depth and draws them, furthest back first.
+     * @see Renderable#render(SpriteBatch, float)
+     */
+    public void render(SpriteBatch batch, float alpha) {
+        sort();
+        for (int i = 0; i < size; i++) {
+            renderables[order[i]].render(batch, alpha);
+        }
+    }
+
+    /**
+     * Orders the renderables by descending depth, starting from last frame's order.
+     */
+    public void sort() {
+        for (int i = 0; i < size; i++) {
+            depths[i] = renderables[i].getDepth();
+        }
+
+        // insertion sort, with renderables of equal depth drawn in the order they were added
+        for (int i = 1; i < size; i++) {
+            int index = order[i];
+            float depth = depths[index];
+            int j = i - 1;
+            while (j >= 0 && (depths[order[j]] < depth || (depths[order[j]] == depth && order[j] > index))) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+    }
+
+    /**
+     * @return the renderable drawn at the given position of the draw order after the last sort
+     */
+    public Renderable get(int position) {
+        return renderables[order[position]];
+    }
+}
@@ -0,0 +1,262 @@
+package com.weitnow.sfs.server;
+
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.objects.FighterWorld;
+import com.weitnow.sfs.profiling.Histogram;
+import com.weitnow.sfs.simulation.MatchSimulation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulates many 1v1 matches authoritatively and headless, with the same rules as the game: every match is a
+ * {@link MatchSimulation}. The matches are spread over a small, fixed number of tick threads; each thread owns a
+ * shard of the matches, whose fighters share one {@link FighterWorld}, and steps all of them in one batch per tick
+ * at the match's fixed tick rate. A thread that falls behind catches up by a few ticks and then skips the rest, so a
+ * stall doesn't snowball.
+ * <p>
+ * The buttons a fighter holds can be submitted from any thread, e.g. by a {@link UdpInputReceiver}; every tick
+ * applies the latest ones. Matches that are over start again as a rematch. Stepping the matches doesn't allocate.
+ */
+public class MatchServer {
+    // the players of a match, for submitting their controls
+    public static final int PLAYER = 0;
+    public static final int OPPONENT = 1;
+
+    private static final long TICK_NANOS = Math.round(MatchSimulation.TICK_DURATION * 1e9);
+    // ticks a thread catches up on at most before it skips ahead
+    private static final int MAX_CATCH_UP_TICKS = 4;
+    // timing histograms have 10 us buckets up to 100 ms
+    private static final long BUCKET_NANOS = 10_000L;
+    private static final int BUCKETS = 10_000;
+
+    /**
+     * A tick thread and the matches it steps.
+     */
+    private class Shard implements Runnable {
+        final MatchSimulation[] matches;
+        // buttons held by the player and opponent of each match
+        final AtomicIntegerArray controls;
+        final FighterWorld world;
+        // number of matches hosted; slots below it are set before it is raised
+        volatile int matchCount;
+
+        // how late each batch started and how long it took
+        final Histogram jitter = new Histogram(BUCKET_NANOS, BUCKETS);
+        final Histogram batchDuration = new Histogram(BUCKET_NANOS, BUCKETS);
+        // written only by the shard's thread
+        volatile long ticks;
+        volatile long matchesFinished;
+        volatile long ticksSkipped;
+
+        // the statistics generation the shard's statistics belong to
+        int statisticsGeneration;
+
+        volatile boolean running;
+        Thread thread;
+
+        Shard(int capacity) {
+            matches = new MatchSimulation[capacity];
+            controls = new AtomicIntegerArray(capacity * 2);
+            world = new FighterWorld(capacity * 2);
+        }
+
+        @Override
+        public void run() {
+            long nextTick = System.nanoTime();
+            while (running) {
+                long now = System.nanoTime();
+                if (now < nextTick) {
+                    LockSupport.parkNanos(nextTick - now);
+                    continue;
+                }
+                // the statistics are only ever written by this thread, so it resets them itself when asked to
+                if (statisticsGeneration != requestedStatisticsGeneration) {
+                    statisticsGeneration = requestedStatisticsGeneration;
+                    jitter.reset();
+                    batchDuration.reset();
+                    ticks = matchesFinished = ticksSkipped = 0;
+                }
+                jitter.record(now - nextTick);
+
+                int count = matchCount;
+                long finished = 0;
+                for (int i = 0; i < count; i++) {
+                    MatchSimulation match = matches[i];
+                    match.step(controls.get(i * 2 + PLAYER), controls.get(i * 2 + OPPONENT));
+                    if (match.isOver()) {
+                        match.getReady();
+                        finished++;
+                    }
+                }
+                ticks += count;
+                matchesFinished += finished;
+                batchDuration.record(System.nanoTime() - now);
+
+                // catch up on late ticks, but skip them if the thread is too far behind
+                nextTick += TICK_NANOS;
+                long behind = (System.nanoTime() - nextTick) / TICK_NANOS;
+                if (behind > MAX_CATCH_UP_TICKS) {
+                    nextTick += behind * TICK_NANOS;
+                    ticksSkipped += behind;
+                }
+            }
+        }
+    }
+
+    private final Shard[] shards;
+    private final int capacity;
+    private int matchCount;
+    // raised to let the tick threads reset their statistics
+    private volatile int requestedStatisticsGeneration;
+    private long statisticsStartNanos, stopNanos;
+
+    /**
+     * @param threads number of tick threads
+     * @param capacity most matches the server can host
+     */
+    public MatchServer(int threads, int capacity) {
+        shards = new Shard[threads];
+        int shardCapacity = (capacity + threads - 1) / threads;
+        for (int i = 0; i < threads; i++) {
+            shards[i] = new Shard(shardCapacity);
+        }
+        this.capacity = shardCapacity * threads;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getThreadCount() {
+        return shards.length;
+    }
+
+    /**
+     * Hosts a new match, which the tick threads start stepping with their next batch.
+     * @return the id of the match, for submitting its controls
+     */
+    public synchronized int host(String playerName, String opponentName) {
+        if (matchCount == capacity) {
+            throw new IllegalStateException("The server is full with " + capacity + " matches");
+        }
+        int id = matchCount++;
+        // deal the matches out to the threads in turn
+        Shard shard = shards[id % shards.length];
+        int slot = id / shards.length;
+        MatchSimulation match = new MatchSimulation(new Fighter(shard.world, playerName, Color.WHITE),
+                new Fighter(shard.world, opponentName, Color.WHITE));
+        // nobody listens to the events on the server
+        match.setCombatEventsEnabled(false);
+        shard.matches[slot] = match;
+        shard.matchCount = slot + 1;
+        return id;
+    }
+
+    public synchronized int getMatchCount() {
+        return matchCount;
+    }
+
+    /**
+     * Sets the buttons a fighter holds from the next tick of its match on. May be called from any thread.
+     * @param side {@link #PLAYER} or {@link #OPPONENT}
+     * @param controls the {@link com.weitnow.sfs.simulation.Controls} held
+     */
+    public void submitControls(int matchId, int side, int controls) {
+        shards[matchId % shards.length].controls.lazySet((matchId / shards.length) * 2 + side, controls);
+    }
+
+    public void start() {
+        statisticsStartNanos = System.nanoTime();
+        for (int i = 0; i < shards.length; i++) {
+            Shard shard = shards[i];
+            shard.running = true;
+            shard.thread = new Thread(shard, "match-tick-" + i);
+            shard.thread.setDaemon(true);
+            shard.thread.start();
+        }
+    }
+
+    /**
+     * Starts the statistics over with the next batch of each thread, e.g. once the simulation has warmed up.
+     */
+    public void resetStatistics() {
+        statisticsStartNanos = System.nanoTime();
+        requestedStatisticsGeneration++;
+    }
+
+    /**
+     * Stops the tick threads and waits for them to finish their batch.
+     */
+    public void stop() throws InterruptedException {
+        for (Shard shard : shards) {
+            shard.running = false;
+        }
+        for (Shard shard : shards) {
+            shard.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        stopNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the number of match ticks simulated so far, by all threads
+     */
+    public long getTicks() {
+        long ticks = 0;
+        for (Shard shard : shards) {
+            ticks += shard.ticks;
+        }
+        return ticks;
+    }
+
+    /**
+     * @return the match ticks simulated per second since the statistics were reset or the server was started, until
+     * it was stopped
+     */
+    public double getTicksPerSecond() {
+        return getTicks() / ((stopNanos - statisticsStartNanos) / 1e9);
+    }
+
+    public long getMatchesFinished() {
+        long finished = 0;
+        for (Shard shard : shards) {
+            finished += shard.matchesFinished;
+        }
+        return finished;
+    }
+
+    /**
+     * @return the number of ticks the threads skipped because they fell too far behind
+     */
+    public long getTicksSkipped() {
+        long skipped = 0;
+        for (Shard shard : shards) {
+            skipped += shard.ticksSkipped;
+        }
+        return skipped;
+    }
+
+    /**
+     * @return how late the batches of all threads started, combined; only consistent once the server is stopped
+     */
+    public Histogram getJitter() {
+        Histogram jitter = new Histogram(BUCKET_NANOS, BUCKETS);
+        for (Shard shard : shards) {
+            jitter.add(shard.jitter);
+        }
+        return jitter;
+    }
+
+    /**
+     * @return how long the batches of all threads took, combined; only consistent once the server is stopped
+     */
+    public Histogram getBatchDuration() {
+        Histogram duration = new Histogram(BUCKET_NANOS, BUCKETS);
+        for (Shard shard : shards) {
+            duration.add(shard.batchDuration);
+        }
+        return duration;
+    }
+}
@@ -0,0 +1,135 @@
+package com.weitnow.sfs.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Receives the buttons held by the fighters of a {@link MatchServer}'s matches over UDP, on a thread of its own, and
+ * submits them to the server. A datagram holds one or more inputs of {@link #INPUT_BYTES} each: the match id, the
+ * side, a sequence number and the controls. Clients resend their controls regularly, so a lost datagram is made up for
+ * by the next one; inputs older than the latest one received for a fighter are dropped, so reordered datagrams can't
+ * undo a newer input. Receiving doesn't allocate.
+ */
+public class UdpInputReceiver implements Runnable {
+    // bytes of an input: match id, side, sequence number and controls
+    public static final int INPUT_BYTES = 4 + 1 + 4 + 4;
+    // largest datagram received, which fits into a typical MTU
+    public static final int MAX_DATAGRAM_BYTES = 1400;
+
+    private final MatchServer server;
+    private final DatagramChannel channel;
+    private final ByteBuffer datagram = ByteBuffer.allocateDirect(MAX_DATAGRAM_BYTES);
+    // sequence number of the latest input of each fighter, and whether one has been received
+    private final int[] sequences;
+    private final boolean[] received;
+    private Thread thread;
+
+    // statistics, written only by the receiving thread
+    private volatile long datagrams;
+    private volatile long inputs;
+    private volatile long inputsDropped;
+    private volatile long malformed;
+
+    /**
+     * @param address the address to receive inputs on, port 0 for any free one
+     */
+    public UdpInputReceiver(MatchServer server, InetSocketAddress address) throws IOException {
+        this.server = server;
+        sequences = new int[server.getCapacity() * 2];
+        received = new boolean[server.getCapacity() * 2];
+        channel = DatagramChannel.open();
+        channel.bind(address);
+    }
+
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    public void start() {
+        thread = new Thread(this, "udp-input");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (channel.isOpen()) {
+                datagram.clear();
+                channel.receive(datagram);
+                datagram.flip();
+                receive(datagram);
+            }
+        } catch (AsynchronousCloseException e) {
+            // closed by stop
+        } catch (IOException e) {
+            throw new IllegalStateException("Receiving inputs failed", e);
+        }
+    }
+
+    private void receive(ByteBuffer datagram) {
+        datagrams++;
+        if (datagram.remaining() == 0 || datagram.remaining() % INPUT_BYTES != 0) {
+            malformed++;
+            return;
+        }
+
+        while (datagram.hasRemaining()) {
+            int matchId = datagram.getInt();
+            int side = datagram.get();
+            int sequence = datagram.getInt();
+            int controls = datagram.getInt();
+            if (matchId < 0 || matchId >= server.getCapacity() || side != MatchServer.PLAYER &&
+                    side != MatchServer.OPPONENT) {
+                malformed++;
+                continue;
+            }
+
+            // compare the difference, so the sequence numbers may wrap around
+            int fighter = matchId * 2 + side;
+            if (received[fighter] && sequence - sequences[fighter] <= 0) {
+                inputsDropped++;
+                continue;
+            }
+            received[fighter] = true;
+            sequences[fighter] = sequence;
+            server.submitControls(matchId, side, controls);
+            inputs++;
+        }
+    }
+
+    /**
+     * Stops receiving and closes the socket.
+     */
+    public void stop() throws IOException, InterruptedException {
+        channel.close();
+        if (thread != null) {
+            thread.join();
+        }
+    }
+
+    public long getDatagrams() {
+        return datagrams;
+    }
+
+    /**
+     * @return the number of inputs submitted to the server
+     */
+    public long getInputs() {
+        return inputs;
+    }
+
+    /**
+     * @return the number of inputs dropped because a newer one had already been received
+     */
+    public long getInputsDropped() {
+        return inputsDropped;
+    }
+
+    public long getMalformed() {
+        return malformed;
+    }
+}
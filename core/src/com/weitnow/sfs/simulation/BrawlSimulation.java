@@ -0,0 +1,181 @@
+package com.weitnow.sfs.simulation;
+
+import com.weitnow.sfs.objects.Fighter;
+
+/**
+ * A brawl between any number of fighters. The rules are the ones of a 1v1 match, applied to every pair of fighters
+ * within contact distance; the pairs are found with a {@link ContactGrid} instead of testing all of them. Fighters
+ * that have lost leave the grid, and the last fighter standing wins.
+ */
+public class BrawlSimulation {
+    private final Fighter[] fighters;
+    // the fighters that haven't lost yet, in the order of the fighters, the first fightersStanding of them
+    private final Fighter[] standing;
+    private final ContactGrid contactGrid;
+    // indices of the fighters in contact with the fighter being resolved
+    private final int[] contacts;
+
+    // hits, blocks, KOs and state changes of all fighters
+    private final CombatEvents combatEvents;
+
+    // number of fighters that haven't lost yet
+    private int fightersStanding;
+    // whether a fighter lost during the current tick, so it has to leave the standing fighters
+    private boolean knockedOut;
+    // number of updates simulated since the brawl started
+    private long tick;
+
+    public BrawlSimulation(Fighter... fighters) {
+        this.fighters = fighters.clone();
+        standing = fighters.clone();
+        contactGrid = new ContactGrid(fighters.length);
+        contacts = new int[fighters.length];
+
+        // every fighter can cause a few events per tick
+        combatEvents = new CombatEvents(Math.max(CombatEvents.DEFAULT_CAPACITY,
+                Integer.highestOneBit(fighters.length * 8 - 1) << 1));
+        for (Fighter fighter : fighters) {
+            fighter.setCombatEvents(combatEvents);
+        }
+
+        getReady();
+    }
+
+    public void getReady() {
+        // spread the fighters over a grid covering the ring
+        int columns = (int) Math.ceil(Math.sqrt(fighters.length));
+        int rows = (fighters.length + columns - 1) / columns;
+        for (int i = 0; i < fighters.length; i++) {
+            float x = MatchSimulation.PLAYER_START_POSITION_X + (MatchSimulation.OPPONENT_START_POSITION_X -
+                    MatchSimulation.PLAYER_START_POSITION_X) * (columns > 1 ? (i % columns) / (columns - 1f) : 0f);
+            float y = MatchSimulation.RING_MIN_Y + (MatchSimulation.RING_MAX_Y - MatchSimulation.RING_MIN_Y) *
+                    (rows > 1 ? (i / columns) / (rows - 1f) : 0.5f);
+            fighters[i].getReady(x, y);
+            MatchSimulation.keepWithinRingBounds(fighters[i]);
+        }
+        System.arraycopy(fighters, 0, standing, 0, fighters.length);
+        fightersStanding = fighters.length;
+        knockedOut = false;
+        tick = 0;
+        combatEvents.setTick(tick);
+    }
+
+    public Fighter[] getFighters() {
+        return fighters;
+    }
+
+    public CombatEvents getCombatEvents() {
+        return combatEvents;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public boolean isOver() {
+        return fightersStanding <= 1;
+    }
+
+    public void step() {
+        update(MatchSimulation.TICK_DURATION);
+    }
+
+    public void update(float deltaTime) {
+        tick++;
+        combatEvents.setTick(tick);
+
+        // update the fighters and keep them within the bounds of the ring
+        for (Fighter fighter : fighters) {
+            fighter.update(deltaTime);
+            MatchSimulation.keepWithinRingBounds(fighter);
+        }
+
+        // resolve the attacks between all standing fighters within contact distance, in the same order as testing
+        // every pair
+        int count = fightersStanding;
+        contactGrid.rebuild(standing, count);
+        for (int i = 0; i < count; i++) {
+            int contactCount = contactGrid.findContacts(i, contacts);
+            for (int j = 0; j < contactCount; j++) {
+                resolveContact(standing[i], standing[contacts[j]]);
+            }
+        }
+
+        // the fighters that lost leave the grid, the others keep their order
+        if (knockedOut) {
+            knockedOut = false;
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (!standing[i].hasLost()) {
+                    standing[kept++] = standing[i];
+                }
+            }
+            for (int i = kept; i < count; i++) {
+                standing[i] = null;
+            }
+        }
+    }
+
+    private void resolveContact(Fighter fighter1, Fighter fighter2) {
+        // make sure the fighters in contact are facing each other
+        if (fighter1.getPositionX() <= fighter2.getPositionX()) {
+            fighter1.faceRight();
+            fighter2.faceLeft();
+        } else {
+            fighter1.faceLeft();
+            fighter2.faceRight();
+        }
+
+        resolveAttack(fighter1, fighter2);
+        resolveAttack(fighter2, fighter1);
+    }
+
+    private void resolveAttack(Fighter attacker, Fighter defender) {
+        // fighters that have lost ignore hits, so only the hit knocking a fighter out counts
+        if (MatchSimulation.landAttack(attacker, defender) && defender.hasLost()) {
+            fightersStanding--;
+            knockedOut = true;
+
+            // if only one fighter is left standing, that fighter wins
+            if (fightersStanding == 1) {
+                for (Fighter fighter : fighters) {
+                    if (!fighter.hasLost()) {
+                        fighter.win();
+                    }
+                }
+            }
+        }
+    }
+
+    public int getFightersStanding() {
+        return fightersStanding;
+    }
+
+    /**
+     * Counts the pairs of standing fighters within contact distance by testing every pair. Only meant for verifying
+     * the contact grid, which must find exactly the same pairs.
+     */
+    public int countContactsPairwise() {
+        int count = 0;
+        for (int i = 0; i < fightersStanding; i++) {
+            for (int j = i + 1; j < fightersStanding; j++) {
+                if (MatchSimulation.areWithinContactDistance(standing[i], standing[j])) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the pairs of standing fighters within contact distance with the contact grid.
+     */
+    public int countContacts() {
+        contactGrid.rebuild(standing, fightersStanding);
+        int count = 0;
+        for (int i = 0; i < fightersStanding; i++) {
+            count += contactGrid.findContacts(i, contacts);
+        }
+        return count;
+    }
+}
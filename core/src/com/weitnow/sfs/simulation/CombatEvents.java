@@ -0,0 +1,133 @@
+package com.weitnow.sfs.simulation;
+
+import com.weitnow.sfs.objects.Fighter;
+
+/**
+ * A preallocated ring buffer of combat events. The simulation publishes into it without creating garbage, and
+ * consumers like logging, sound or the HUD drain it later, off the hot path. Publishing and draining may happen on
+ * different threads, as long as there is only one publishing and one draining thread. If the buffer is full, new
+ * events are dropped and counted instead of blocking the simulation.
+ */
+public class CombatEvents {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    public enum Type {
+        // a fighter got hit without blocking
+        HIT,
+        // a fighter got hit while blocking
+        BLOCK,
+        // a fighter has no life left
+        KO,
+        // a fighter changed its state
+        STATE_CHANGE
+    }
+
+    public interface Listener {
+        /**
+         * @param attacker the fighter that landed the hit, or null if the event wasn't caused by an attack
+         * @param defender the fighter the event happened to
+         * @param damage the damage actually inflicted, or 0 if the event isn't a hit
+         * @param state the defender's state after a KO or STATE_CHANGE; for a HIT or BLOCK, the state the defender
+         * was hit in, before it reacts to the hit
+         */
+        void onCombatEvent(Type type, long tick, Fighter attacker, Fighter defender, float damage, Fighter.State state);
+    }
+
+    private final int mask;
+    private final Type[] types;
+    private final long[] ticks;
+    private final Fighter[] attackers;
+    private final Fighter[] defenders;
+    private final float[] damages;
+    private final Fighter.State[] states;
+
+    // sequence number of the next event to publish, only written by the publishing thread
+    private volatile long head;
+    // sequence number of the next event to drain, only written by the draining thread
+    private volatile long tail;
+    // number of events dropped because the buffer was full
+    private long dropped;
+    // tick stamped onto published events
+    private long tick;
+
+    public CombatEvents() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the maximum number of undrained events, must be a power of two
+     */
+    public CombatEvents(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        mask = capacity - 1;
+        types = new Type[capacity];
+        ticks = new long[capacity];
+        attackers = new Fighter[capacity];
+        defenders = new Fighter[capacity];
+        damages = new float[capacity];
+        states = new Fighter.State[capacity];
+    }
+
+    public void setTick(long tick) {
+        this.tick = tick;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return the number of events waiting to be drained
+     */
+    public int size() {
+        return (int) (head - tail);
+    }
+
+    /**
+     * Publishes an event stamped with the current tick.
+     * @return false if the buffer was full and the event was dropped
+     */
+    public boolean publish(Type type, Fighter attacker, Fighter defender, float damage, Fighter.State state) {
+        long sequence = head;
+        if (sequence - tail > mask) {
+            dropped++;
+            return false;
+        }
+
+        int index = (int) (sequence & mask);
+        types[index] = type;
+        ticks[index] = tick;
+        attackers[index] = attacker;
+        defenders[index] = defender;
+        damages[index] = damage;
+        states[index] = state;
+
+        // make the event visible to the draining thread
+        head = sequence + 1;
+        return true;
+    }
+
+    /**
+     * Passes all published events to the listener, oldest first.
+     * @return the number of drained events
+     */
+    public int drain(Listener listener) {
+        long start = tail;
+        long end = head;
+        for (long sequence = start; sequence < end; sequence++) {
+            int index = (int) (sequence & mask);
+            listener.onCombatEvent(types[index], ticks[index], attackers[index], defenders[index], damages[index],
+                    states[index]);
+
+            // don't keep fighters reachable through old events
+            attackers[index] = null;
+            defenders[index] = null;
+        }
+
+        // hand the drained slots back to the publishing thread
+        tail = end;
+        return (int) (end - start);
+    }
+}
@@ -0,0 +1,114 @@
+package com.weitnow.sfs.simulation;
+
+import com.weitnow.sfs.objects.Fighter;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid over the ring, used to find the fighters within contact distance of each other without testing
+ * every pair. Cells are a hair larger than the contact distance, so fighters in contact are always in the same or in
+ * neighboring cells. The grid is rebuilt every tick with a counting sort into preallocated arrays, so rebuilding and
+ * querying it never allocates.
+ */
+public class ContactGrid {
+    // cells are slightly larger than the contact distance, so rounding can't push fighters in contact two cells apart
+    private static final float CELL_MARGIN = 1.001f;
+    private static final float CELL_WIDTH = MatchSimulation.FIGHTER_CONTACT_DISTANCE_X * CELL_MARGIN;
+    private static final float CELL_HEIGHT = MatchSimulation.FIGHTER_CONTACT_DISTANCE_Y * CELL_MARGIN;
+    private static final int COLUMNS =
+            (int) ((MatchSimulation.RING_MAX_X - MatchSimulation.RING_MIN_X) / CELL_WIDTH) + 1;
+    private static final int ROWS = (int) ((MatchSimulation.RING_MAX_Y - MatchSimulation.RING_MIN_Y) / CELL_HEIGHT) + 1;
+
+    private final Fighter[] fighters;
+
+    // cell of each fighter
+    private final int[] fighterCells;
+    // fighters sorted by cell; the fighters of a cell are stored from cellStarts[cell] to cellStarts[cell + 1]
+    private final int[] cellFighters;
+    private final int[] cellStarts = new int[COLUMNS * ROWS + 1];
+    // next free slot of each cell while placing the fighters
+    private final int[] cellCursors = new int[COLUMNS * ROWS];
+
+    public ContactGrid(int capacity) {
+        fighters = new Fighter[capacity];
+        fighterCells = new int[capacity];
+        cellFighters = new int[capacity];
+    }
+
+    public int getCapacity() {
+        return fighters.length;
+    }
+
+    /**
+     * Sorts the fighters into the grid cells of their current positions.
+     */
+    public void rebuild(Fighter[] fighters, int count) {
+        if (count > this.fighters.length) {
+            throw new IllegalArgumentException("the grid only has room for " + this.fighters.length + " fighters");
+        }
+        System.arraycopy(fighters, 0, this.fighters, 0, count);
+
+        // count the fighters in each cell
+        Arrays.fill(cellStarts, 0);
+        for (int i = 0; i < count; i++) {
+            int cell = getCell(fighters[i].getPositionX(), fighters[i].getPositionY());
+            fighterCells[i] = cell;
+            cellStarts[cell + 1]++;
+        }
+
+        // turn the counts into start indices
+        for (int cell = 0; cell < COLUMNS * ROWS; cell++) {
+            cellStarts[cell + 1] += cellStarts[cell];
+        }
+
+        // place the fighters, so the fighters of each cell end up in index order
+        System.arraycopy(cellStarts, 0, cellCursors, 0, cellCursors.length);
+        for (int i = 0; i < count; i++) {
+            cellFighters[cellCursors[fighterCells[i]]++] = i;
+        }
+    }
+
+    /**
+     * Finds the fighters with a higher index than the given fighter that are within contact distance of it.
+     * @param contacts receives the indices of those fighters in ascending order
+     * @return the number of fighters found
+     */
+    public int findContacts(int fighter, int[] contacts) {
+        Fighter self = fighters[fighter];
+        int cell = fighterCells[fighter];
+        int column = cell % COLUMNS;
+        int row = cell / COLUMNS;
+
+        int found = 0;
+        for (int otherRow = Math.max(row - 1, 0); otherRow <= Math.min(row + 1, ROWS - 1); otherRow++) {
+            for (int otherColumn = Math.max(column - 1, 0); otherColumn <= Math.min(column + 1, COLUMNS - 1);
+                 otherColumn++) {
+                int otherCell = otherRow * COLUMNS + otherColumn;
+                for (int i = cellStarts[otherCell]; i < cellStarts[otherCell + 1]; i++) {
+                    int other = cellFighters[i];
+                    if (other > fighter && MatchSimulation.areWithinContactDistance(self, fighters[other])) {
+                        // insertion sort, there are only ever a few fighters in contact
+                        int j = found++;
+                        while (j > 0 && contacts[j - 1] > other) {
+                            contacts[j] = contacts[j - 1];
+                            j--;
+                        }
+                        contacts[j] = other;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int getCell(float x, float y) {
+        int column = (int) ((x - MatchSimulation.RING_MIN_X) / CELL_WIDTH);
+        int row = (int) ((y - MatchSimulation.RING_MIN_Y) / CELL_HEIGHT);
+
+        // fighters are kept within the ring, but clamp anyway in case one is placed outside of it; clamping only
+        // moves cells closer together, so fighters in contact still end up in neighboring cells
+        column = Math.min(Math.max(column, 0), COLUMNS - 1);
+        row = Math.min(Math.max(row, 0), ROWS - 1);
+        return row * COLUMNS + column;
+    }
+}
@@ -0,0 +1,62 @@
+package com.weitnow.sfs.simulation;
+
+import com.weitnow.sfs.objects.Fighter;
+
+/**
+ * The buttons a fighter can hold, as bits of an int. A tick's input is the set of held buttons per fighter, and
+ * applying it to a fighter turns the buttons pressed and released since the previous tick into the same calls the
+ * keyboard handling makes, so recorded or remote input plays out exactly like local input.
+ */
+public final class Controls {
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1 << 1;
+    public static final int UP = 1 << 2;
+    public static final int DOWN = 1 << 3;
+    public static final int BLOCK = 1 << 4;
+    public static final int PUNCH = 1 << 5;
+    public static final int KICK = 1 << 6;
+
+    // number of bits used by the buttons
+    public static final int BITS = 7;
+    public static final int MASK = (1 << BITS) - 1;
+
+    private Controls() {
+    }
+
+    /**
+     * Lets the fighter react to the buttons that were pressed or released between two ticks.
+     */
+    public static void apply(Fighter fighter, int previous, int current) {
+        int pressed = current & ~previous;
+        int released = previous & ~current;
+        if (pressed == 0 && released == 0) return;
+
+        // if a movement or the block button was released, stop moving in that direction or stop blocking
+        if ((released & LEFT) != 0) fighter.stopMovingLeft();
+        if ((released & RIGHT) != 0) fighter.stopMovingRight();
+        if ((released & UP) != 0) fighter.stopMovingUp();
+        if ((released & DOWN) != 0) fighter.stopMovingDown();
+        if ((released & BLOCK) != 0) fighter.stopBlocking();
+
+        // start moving in the direction of pressed movement buttons
+        if ((pressed & LEFT) != 0) {
+            fighter.moveLeft();
+        } else if ((pressed & RIGHT) != 0) {
+            fighter.moveRight();
+        }
+        if ((pressed & UP) != 0) {
+            fighter.moveUp();
+        } else if ((pressed & DOWN) != 0) {
+            fighter.moveDown();
+        }
+
+        // block or attack
+        if ((pressed & BLOCK) != 0) {
+            fighter.block();
+        } else if ((pressed & PUNCH) != 0) {
+            fighter.punch();
+        } else if ((pressed & KICK) != 0) {
+            fighter.kick();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.weitnow.sfs.simulation;
+
+import com.badlogic.gdx.math.Vector2;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.objects.FighterWorld;
+
+/**
+ * The rules of a 1v1 match: facing, ring bounds, contact distance and hit resolution. The simulation only works
+ * on fighter state, so it needs neither a graphics backend nor loaded textures and can be stepped headless.
+ */
+public class MatchSimulation {
+    // duration of one fixed simulation tick
+    public static final float TICK_DURATION = 1f / 120f;
+
+    // ring
+    public static final float RING_MIN_X = 7f;
+    public static final float RING_MAX_X = 60f;
+    public static final float RING_MIN_Y = 4f;
+    public static final float RING_MAX_Y = 22f;
+    public static final float RING_SLOPE = 3.16f;
+
+    // fighters
+    public static final float PLAYER_START_POSITION_X = 16f;
+    public static final float OPPONENT_START_POSITION_X = 51f;
+    public static final float FIGHTER_START_POSITION_Y = 15f;
+    // fighters further apart than this can't hit each other: hitboxes and hurtboxes lie within a frame, which is 12.6
+    // units wide
+    public static final float FIGHTER_CONTACT_DISTANCE_X = 12.6f;
+    public static final float FIGHTER_CONTACT_DISTANCE_Y = 1.5f;
+
+    private final Fighter player;
+    private final Fighter opponent;
+
+    // hits, blocks, KOs and state changes of both fighters
+    private final CombatEvents combatEvents = new CombatEvents();
+
+    // number of updates simulated since the match started
+    private long tick;
+
+    // buttons held by the fighters during the last tick stepped with controls
+    private int playerControls;
+    private int opponentControls;
+    // records the controls of every tick, if set
+    private ReplayRecorder recorder;
+
+    public MatchSimulation(Fighter player, Fighter opponent) {
+        this.player = player;
+        this.opponent = opponent;
+        player.setCombatEvents(combatEvents);
+        opponent.setCombatEvents(combatEvents);
+
+        getReady();
+    }
+
+    public void getReady() {
+        // get the fighters ready
+        player.getReady(PLAYER_START_POSITION_X, FIGHTER_START_POSITION_Y);
+        opponent.getReady(OPPONENT_START_POSITION_X, FIGHTER_START_POSITION_Y);
+        tick = 0;
+        combatEvents.setTick(tick);
+        playerControls = opponentControls = 0;
+    }
+
+    /**
+     * Copies the complete state of the match into the given snapshot.
+     */
+    public void saveState(MatchState state) {
+        player.saveState(state.floats, 0, state.ints, 0);
+        opponent.saveState(state.floats, FighterWorld.STATE_FLOATS, state.ints, FighterWorld.STATE_INTS);
+        state.ints[2 * FighterWorld.STATE_INTS] = playerControls;
+        state.ints[2 * FighterWorld.STATE_INTS + 1] = opponentControls;
+        state.tick = tick;
+    }
+
+    /**
+     * Continues the match from the given snapshot.
+     */
+    public void restoreState(MatchState state) {
+        player.restoreState(state.floats, 0, state.ints, 0);
+        opponent.restoreState(state.floats, FighterWorld.STATE_FLOATS, state.ints, FighterWorld.STATE_INTS);
+        playerControls = state.ints[2 * FighterWorld.STATE_INTS];
+        opponentControls = state.ints[2 * FighterWorld.STATE_INTS + 1];
+        tick = state.tick;
+        combatEvents.setTick(tick);
+    }
+
+    /**
+     * Stops or resumes publishing combat events, e.g. while ticks that were already simulated are simulated again.
+     */
+    public void setCombatEventsEnabled(boolean enabled) {
+        player.setCombatEvents(enabled ? combatEvents : null);
+        opponent.setCombatEvents(enabled ? combatEvents : null);
+    }
+
+    public void setRecorder(ReplayRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public int getPlayerControls() {
+        return playerControls;
+    }
+
+    public int getOpponentControls() {
+        return opponentControls;
+    }
+
+    public Fighter getPlayer() {
+        return player;
+    }
+
+    public Fighter getOpponent() {
+        return opponent;
+    }
+
+    public CombatEvents getCombatEvents() {
+        return combatEvents;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public boolean isOver() {
+        return player.hasLost() || opponent.hasLost();
+    }
+
+    /**
+     * Advances the match by one fixed tick.
+     */
+    public void step() {
+        update(TICK_DURATION);
+    }
+
+    /**
+     * Lets the fighters react to the buttons they hold and advances the match by one fixed tick.
+     * @param playerControls the {@link Controls} held by the player
+     * @param opponentControls the {@link Controls} held by the opponent
+     */
+    public void step(int playerControls, int opponentControls) {
+        if (recorder != null) {
+            recorder.record(playerControls, opponentControls);
+        }
+
+        applyControls(playerControls, opponentControls);
+        step();
+    }
+
+    /**
+     * Lets the fighters react to the buttons they hold, without advancing the match.
+     * @param playerControls the {@link Controls} held by the player
+     * @param opponentControls the {@link Controls} held by the opponent
+     */
+    public void applyControls(int playerControls, int opponentControls) {
+        Controls.apply(player, this.playerControls, playerControls);
+        Controls.apply(opponent, this.opponentControls, opponentControls);
+        this.playerControls = playerControls;
+        this.opponentControls = opponentControls;
+    }
+
+    /**
+     * Advances the match by the given number of fixed ticks, stopping early if the match is over.
+     * @return the number of ticks actually simulated
+     */
+    public int step(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            if (isOver()) return i;
+            step();
+        }
+        return ticks;
+    }
+
+    public void update(float deltaTime) {
+        tick++;
+        combatEvents.setTick(tick);
+
+        player.update(deltaTime);
+        opponent.update(deltaTime);
+
+        // make sure the fighters are facing each other
+        if (player.getPositionX() <= opponent.getPositionX()) {
+            player.faceRight();
+            opponent.faceLeft();
+        } else {
+            player.faceLeft();
+            opponent.faceRight();
+        }
+
+        // keep the fighters within the bounds of the ring
+        keepWithinRingBounds(player);
+        keepWithinRingBounds(opponent);
+
+        // check if the fighters are within contact distance; both fighters' attacks land, not only the player's, so
+        // the opponent can fight back
+        if (areWithinContactDistance(player, opponent)) {
+            resolveAttack(player, opponent);
+            resolveAttack(opponent, player);
+        }
+    }
+
+    private void resolveAttack(Fighter attacker, Fighter defender) {
+        // check if the defender has lost
+        if (landAttack(attacker, defender) && defender.hasLost()) {
+            // if the defender has lost, the attacker wins
+            attacker.win();
+        }
+    }
+
+    /**
+     * Lets the defender get hit if the attacker is actively attacking and the attacker's hitbox overlaps the defender's
+     * hurtbox. The fighters must be within contact distance.
+     * @return whether the attack landed and hurt the defender, false if it missed or the defender ignored it, e.g.
+     * because the defender has lost already
+     */
+    static boolean landAttack(Fighter attacker, Fighter defender) {
+        if (!attacker.isAttackActive() || !attacker.hits(defender)) return false;
+
+        // if the attacker's active attack reaches the defender, the defender gets hit
+        boolean hurt = defender.getHit(attacker, Fighter.HIT_STRENGTH);
+
+        // deactivate the attacker's attack, even if the defender ignored it
+        attacker.makeContact();
+        return hurt;
+    }
+
+    public static void keepWithinRingBounds(Fighter fighter) {
+        // same rules as for a position vector
+        float x = fighter.getPositionX();
+        float y = fighter.getPositionY();
+        if (y < RING_MIN_Y) {
+            y = RING_MIN_Y;
+        } else if (y > RING_MAX_Y) {
+            y = RING_MAX_Y;
+        }
+        if (x < y / RING_SLOPE + RING_MIN_X) {
+            x = y / RING_SLOPE + RING_MIN_X;
+        } else if (x > y / -RING_SLOPE + RING_MAX_X) {
+            x = y / -RING_SLOPE + RING_MAX_X;
+        }
+        fighter.setPosition(x, y);
+    }
+
+    public static void keepWithinRingBounds(Vector2 position) {
+        if (position.y < RING_MIN_Y) {
+            position.y = RING_MIN_Y;
+        } else if (position.y > RING_MAX_Y) {
+            position.y = RING_MAX_Y;
+        }
+        if (position.x < position.y / RING_SLOPE + RING_MIN_X ) {
+            position.x = position.y / RING_SLOPE + RING_MIN_X;
+        } else if (position.x > position.y / -RING_SLOPE + RING_MAX_X) {
+            position.x = position.y / -RING_SLOPE + RING_MAX_X;
+        }
+    }
+
+    public static boolean areWithinContactDistance(Fighter fighter1, Fighter fighter2) {
+        return areWithinContactDistance(fighter1.getPositionX(), fighter1.getPositionY(), fighter2.getPositionX(),
+                fighter2.getPositionY());
+    }
+
+    public static boolean areWithinContactDistance(float x1, float y1, float x2, float y2) {
+        // determine if the positions are within the distance in which contact is possible
+        float xDistance = Math.abs(x1 - x2);
+        float yDistance = Math.abs(y1 - y2);
+        return xDistance <= FIGHTER_CONTACT_DISTANCE_X && yDistance <= FIGHTER_CONTACT_DISTANCE_Y;
+    }
+}
@@ -0,0 +1,40 @@
+package com.weitnow.sfs.simulation;
+
+import com.weitnow.sfs.objects.FighterWorld;
+
+/**
+ * A snapshot of everything a {@link MatchSimulation} needs to continue from a tick: both fighters' complete state,
+ * the held buttons and the tick. Snapshots are meant to be allocated once and overwritten, saving and restoring
+ * one only copies a few dozen primitives.
+ */
+public class MatchState {
+    // player's state first, then the opponent's
+    final float[] floats = new float[2 * FighterWorld.STATE_FLOATS];
+    // both fighters' states followed by the player's and the opponent's buttons
+    final int[] ints = new int[2 * FighterWorld.STATE_INTS + 2];
+    long tick;
+
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return a hash of the whole state, to find out if two simulations of the same tick have diverged
+     */
+    public long checksum() {
+        long hash = tick;
+        for (float value : floats) {
+            hash = hash * 31 + Float.floatToIntBits(value);
+        }
+        for (int value : ints) {
+            hash = hash * 31 + value;
+        }
+        return hash;
+    }
+
+    public void set(MatchState state) {
+        System.arraycopy(state.floats, 0, floats, 0, floats.length);
+        System.arraycopy(state.ints, 0, ints, 0, ints.length);
+        tick = state.tick;
+    }
+}
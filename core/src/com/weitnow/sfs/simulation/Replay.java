@@ -0,0 +1,145 @@
+package com.weitnow.sfs.simulation;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A recorded match, read from a {@link ReplayRecorder} encoding. Playing it back feeds the recorded buttons into
+ * a match simulation tick by tick; without rendering, that runs many times faster than real time.
+ */
+public class Replay {
+    private final ByteBuffer buffer;
+    private final int runsStart;
+
+    private final String playerName;
+    private final String opponentName;
+    private final float tickDuration;
+    private final long ticks;
+
+    // the run being played back
+    private int runControls;
+    private int runTicksLeft;
+    private long tick;
+
+    public Replay(ByteBuffer buffer) {
+        // replays are written big endian, but mapped buffers default to the native order
+        this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.getInt() != ReplayRecorder.MAGIC) {
+            throw new GdxRuntimeException("Not a replay");
+        }
+        int version = buffer.get();
+        if (version != ReplayRecorder.VERSION) {
+            throw new GdxRuntimeException("Unsupported replay version: " + version);
+        }
+        tickDuration = buffer.getFloat();
+        playerName = readString(buffer);
+        opponentName = readString(buffer);
+        ticks = buffer.getLong();
+        runsStart = buffer.position();
+    }
+
+    /**
+     * Reads a replay file through a memory mapping, so playback doesn't copy the file.
+     */
+    public static Replay load(FileHandle file) {
+        return new Replay(file.map(FileChannel.MapMode.READ_ONLY));
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public String getOpponentName() {
+        return opponentName;
+    }
+
+    public float getTickDuration() {
+        return tickDuration;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public boolean hasNext() {
+        return tick < ticks;
+    }
+
+    /**
+     * Reads the buttons of the next tick.
+     * @return both fighters' buttons; use {@link #getPlayerControls(int)} and {@link #getOpponentControls(int)}
+     */
+    public int next() {
+        if (runTicksLeft == 0) {
+            runTicksLeft = readVarInt();
+            runControls = readVarInt();
+        }
+        runTicksLeft--;
+        tick++;
+        return runControls;
+    }
+
+    /**
+     * Starts playing back from the first tick again.
+     */
+    public void rewind() {
+        buffer.position(runsStart);
+        runTicksLeft = 0;
+        tick = 0;
+    }
+
+    /**
+     * Plays back up to the given number of ticks into the simulation, as fast as possible.
+     * @return the number of ticks played back
+     * @throws GdxRuntimeException if the replay was recorded with another tick duration than the simulation's, the
+     * recorded buttons would be held for the wrong times
+     */
+    public int play(MatchSimulation match, int maxTicks) {
+        if (tickDuration != MatchSimulation.TICK_DURATION) {
+            throw new GdxRuntimeException("The replay was recorded at " + tickDuration + " s per tick, matches tick " +
+                    "every " + MatchSimulation.TICK_DURATION + " s");
+        }
+        int played = 0;
+        while (played < maxTicks && hasNext()) {
+            int controls = next();
+            match.step(getPlayerControls(controls), getOpponentControls(controls));
+            played++;
+        }
+        return played;
+    }
+
+    public static int getPlayerControls(int controls) {
+        return controls & Controls.MASK;
+    }
+
+    public static int getOpponentControls(int controls) {
+        return (controls >>> Controls.BITS) & Controls.MASK;
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,118 @@
+package com.weitnow.sfs.simulation;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Records the held buttons of both fighters for every tick of a match. Input rarely changes from one tick to the
+ * next, so the ticks are stored as runs: a varint with the number of ticks followed by a varint with both fighters'
+ * buttons packed into one number. A few minutes of play take a few kilobytes.
+ *
+ * <p>Layout: magic, version, tick duration, both fighter names, total number of ticks, then the runs.
+ */
+public class ReplayRecorder {
+    static final int MAGIC = 0x53465352; // "SFSR"
+    static final int VERSION = 1;
+    static final int MAX_NAME_LENGTH = 0xFFFF;
+
+    private final String playerName;
+    private final String opponentName;
+    private final float tickDuration;
+
+    // encoded runs
+    private byte[] runs = new byte[256];
+    private int runsLength;
+
+    // the run being recorded
+    private int runControls = -1;
+    private int runTicks;
+    private long ticks;
+
+    public ReplayRecorder(String playerName, String opponentName, float tickDuration) {
+        // the names are stored with an unsigned short length
+        if (playerName.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_LENGTH ||
+                opponentName.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_LENGTH) {
+            throw new GdxRuntimeException("Fighter names in replays are limited to " + MAX_NAME_LENGTH + " bytes");
+        }
+        this.playerName = playerName;
+        this.opponentName = opponentName;
+        this.tickDuration = tickDuration;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Records the buttons held during one tick.
+     */
+    public void record(int playerControls, int opponentControls) {
+        int controls = pack(playerControls, opponentControls);
+        if (controls != runControls && runTicks > 0) {
+            endRun();
+        }
+        runControls = controls;
+        runTicks++;
+        ticks++;
+    }
+
+    private void endRun() {
+        writeVarInt(runTicks);
+        writeVarInt(runControls);
+        runTicks = 0;
+    }
+
+    /**
+     * @return the encoded replay, including the run still being recorded
+     */
+    public byte[] toBytes() {
+        byte[] playerNameBytes = playerName.getBytes(StandardCharsets.UTF_8);
+        byte[] opponentNameBytes = opponentName.getBytes(StandardCharsets.UTF_8);
+
+        // encode the open run without ending it, so recording can continue afterwards
+        int savedLength = runsLength;
+        if (runTicks > 0) {
+            writeVarInt(runTicks);
+            writeVarInt(runControls);
+        }
+        int encodedRunsLength = runsLength;
+        runsLength = savedLength;
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 1 + 4 + 2 + playerNameBytes.length + 2 +
+                opponentNameBytes.length + 8 + encodedRunsLength);
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+        buffer.putFloat(tickDuration);
+        buffer.putShort((short) playerNameBytes.length);
+        buffer.put(playerNameBytes);
+        buffer.putShort((short) opponentNameBytes.length);
+        buffer.put(opponentNameBytes);
+        buffer.putLong(ticks);
+        buffer.put(runs, 0, encodedRunsLength);
+        return buffer.array();
+    }
+
+    public void save(FileHandle file) {
+        file.writeBytes(toBytes(), false);
+    }
+
+    static int pack(int playerControls, int opponentControls) {
+        return (playerControls & Controls.MASK) | (opponentControls & Controls.MASK) << Controls.BITS;
+    }
+
+    private void writeVarInt(int value) {
+        if (runsLength + 5 > runs.length) {
+            byte[] grown = new byte[runs.length * 2];
+            System.arraycopy(runs, 0, grown, 0, runsLength);
+            runs = grown;
+        }
+        while ((value & ~0x7F) != 0) {
+            runs[runsLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        runs[runsLength++] = (byte) value;
+    }
+}
@@ -0,0 +1,76 @@
+package com.weitnow.sfs.audio;
+
+import com.weitnow.sfs.audio.AudioEngine.Effect;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AudioEngineTest {
+    @Test
+    void limitsTheVoicesOfEachEffect() {
+        NullAudioBackend backend = new NullAudioBackend();
+        AudioEngine audio = new AudioEngine(backend, 16);
+
+        for (int i = 0; i < 10; i++) {
+            audio.play(Effect.HIT);
+            audio.play(Effect.BLOCK);
+        }
+
+        // the voices left aren't used for more of the same effect
+        assertEquals(Effect.HIT.maxVoices + Effect.BLOCK.maxVoices, audio.getActiveVoices());
+        assertEquals(Effect.HIT.maxVoices + Effect.BLOCK.maxVoices, backend.getPlays());
+        assertEquals(20 - audio.getPlayed(), audio.getDropped());
+        assertEquals(0, audio.getStolen());
+        assertEquals(0, backend.getStops());
+    }
+
+    @Test
+    void freesVoicesOnceTheirEffectHasFinished() {
+        AudioEngine audio = new AudioEngine(new NullAudioBackend(), 16);
+        for (int i = 0; i < Effect.HIT.maxVoices; i++) {
+            assertTrue(audio.play(Effect.HIT));
+        }
+        assertFalse(audio.play(Effect.HIT));
+
+        audio.update(Effect.HIT.duration / 2f);
+        assertFalse(audio.play(Effect.HIT));
+        audio.update(Effect.HIT.duration / 2f);
+        assertEquals(0, audio.getActiveVoices());
+        assertTrue(audio.play(Effect.HIT));
+    }
+
+    @Test
+    void stealsTheVoiceOfTheLeastImportantEffect() {
+        NullAudioBackend backend = new NullAudioBackend();
+        AudioEngine audio = new AudioEngine(backend, 2);
+        assertTrue(audio.play(Effect.HIT));
+        assertTrue(audio.play(Effect.HIT));
+
+        // the crowd is more important than a hit, and the click than the crowd
+        assertTrue(audio.play(Effect.BOO));
+        assertTrue(audio.play(Effect.CLICK));
+        assertEquals(2, audio.getStolen());
+        assertEquals(2, backend.getStops());
+
+        // the boo and the click are playing, neither is less important than another hit or the cheering
+        assertFalse(audio.play(Effect.HIT));
+        assertFalse(audio.play(Effect.CHEER));
+        assertEquals(2, audio.getDropped());
+        assertEquals(2, audio.getActiveVoices());
+    }
+
+    @Test
+    void stealsTheOldestVoiceOfEquallyImportantEffects() {
+        AudioEngine audio = new AudioEngine(new NullAudioBackend(), 2);
+        audio.play(Effect.HIT);
+        audio.update(0.1f);
+        audio.play(Effect.BLOCK);
+
+        // the click steals the hit's voice, which started first, though the block would end first
+        assertTrue(audio.play(Effect.CLICK));
+        audio.update(Effect.BLOCK.duration);
+        assertEquals(0, audio.getActiveVoices());
+    }
+}
@@ -0,0 +1,95 @@
+package com.weitnow.sfs.network;
+
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.Controls;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RollbackSessionTest {
+    // average ticks between two changes of the held buttons of a peer
+    private static final int TICKS_PER_INPUT_CHANGE = 20;
+
+    @Test
+    void peersInLockstepStayInSync() {
+        LoopbackTransport.Link link = new LoopbackTransport.Link(4, 2, 0.05f, 1L);
+        RollbackSession session1 = new RollbackSession(createMatch(), true, link.getEnd1());
+        RollbackSession session2 = new RollbackSession(createMatch(), false, link.getEnd2());
+
+        play(link, session1, session2, 3600, 0, new Random(1L));
+
+        assertTrue(session1.getRollbacks() > 0);
+        assertInSync(session1, session2);
+    }
+
+    @Test
+    void peerRunningBehindKeepsTheReceivedInputs() {
+        LoopbackTransport.Link link = new LoopbackTransport.Link(1, 0, 0f, 2L);
+        RollbackSession session1 = new RollbackSession(createMatch(), true, link.getEnd1());
+        RollbackSession session2 = new RollbackSession(createMatch(), false, link.getEnd2());
+
+        // the second peer starts later, so the first peer's inputs reach it before it simulates their ticks
+        play(link, session1, session2, 3600, RollbackSession.MAX_ROLLBACK_TICKS - 2, new Random(2L));
+
+        assertTrue(session1.getTick() > session2.getTick());
+        assertInSync(session1, session2);
+    }
+
+    @Test
+    void peersWithDifferentDelaysStayInSync() {
+        for (int delay = 1; delay <= RollbackSession.MAX_ROLLBACK_TICKS; delay++) {
+            LoopbackTransport.Link link = new LoopbackTransport.Link(delay % 3, delay % 2, 0.02f, delay);
+            RollbackSession session1 = new RollbackSession(createMatch(), true, link.getEnd1());
+            RollbackSession session2 = new RollbackSession(createMatch(), false, link.getEnd2());
+
+            play(link, session1, session2, 1200, delay, new Random(delay));
+
+            assertInSync(session1, session2);
+        }
+    }
+
+    /**
+     * Advances both peers once per frame with random buttons, the second peer only after the given number of frames.
+     */
+    private static void play(LoopbackTransport.Link link, RollbackSession session1, RollbackSession session2,
+                             int frames, int delayFrames, Random random) {
+        int controls1 = 0, controls2 = 0;
+        for (int i = 0; i < frames; i++) {
+            if (random.nextInt(TICKS_PER_INPUT_CHANGE) == 0) {
+                controls1 = randomControls(random);
+            }
+            if (random.nextInt(TICKS_PER_INPUT_CHANGE) == 0) {
+                controls2 = randomControls(random);
+            }
+            session1.advance(controls1);
+            if (i >= delayFrames) {
+                session2.advance(controls2);
+            }
+            link.update();
+        }
+    }
+
+    private static void assertInSync(RollbackSession session1, RollbackSession session2) {
+        // both sessions have received all inputs before this tick, so their matches must be identical there
+        long tick = Math.min(session1.getConfirmedTick(), session2.getConfirmedTick());
+        assertTrue(tick > 0);
+        assertEquals(session1.getChecksum(tick), session2.getChecksum(tick), "desync at tick " + tick);
+    }
+
+    private static int randomControls(Random random) {
+        int controls = random.nextInt(Controls.MASK + 1);
+        // opposite directions cancel out, keep only one of them
+        if ((controls & Controls.LEFT) != 0) controls &= ~Controls.RIGHT;
+        if ((controls & Controls.UP) != 0) controls &= ~Controls.DOWN;
+        return controls;
+    }
+
+    private static MatchSimulation createMatch() {
+        return new MatchSimulation(new Fighter("Slim Stallone", Color.WHITE), new Fighter("Thin Diesel", Color.WHITE));
+    }
+}
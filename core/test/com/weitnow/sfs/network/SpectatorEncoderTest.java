@@ -0,0 +1,128 @@
+package com.weitnow.sfs.network;
+
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.Controls;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpectatorEncoderTest {
+    private static final int KEYFRAME_INTERVAL = 30;
+
+    private final MatchSimulation match = new MatchSimulation(new Fighter("Slim Stallone", Color.WHITE),
+            new Fighter("Thin Diesel", Color.WHITE));
+    private final Fighter[] fighters = {match.getPlayer(), match.getOpponent()};
+    private final SpectatorEncoder encoder = new SpectatorEncoder(fighters);
+    private final ByteBuffer buffer = ByteBuffer.allocate(SpectatorEncoder.getMaxFrameBytes(fighters.length));
+
+    @Test
+    void deltasDecodeToTheEncodedState() {
+        SpectatorView view = new SpectatorView(fighters.length);
+        Random random = new Random(3L);
+        int playerControls = 0, opponentControls = 0;
+        int keyframeBytes = 0, deltaBytes = 0, deltas = 0;
+        for (long tick = 0; tick < 1200; tick++) {
+            if (random.nextInt(20) == 0) playerControls = randomControls(random);
+            if (random.nextInt(20) == 0) opponentControls = randomControls(random);
+            if (match.isOver()) match.getReady();
+            match.step(playerControls, opponentControls);
+
+            boolean keyframe = tick % KEYFRAME_INTERVAL == 0;
+            int size = encoder.encode(tick, keyframe, buffer);
+            assertEquals(size, buffer.remaining());
+            assertEquals(size - SpectatorEncoder.LENGTH_BYTES, buffer.getInt());
+            assertTrue(view.apply(buffer));
+            assertFalse(buffer.hasRemaining());
+            assertMatches(view, tick);
+
+            if (keyframe) {
+                keyframeBytes = size;
+            } else {
+                deltaBytes += size;
+                deltas++;
+            }
+        }
+        assertEquals(1200 / KEYFRAME_INTERVAL, view.getKeyframes());
+        assertEquals(deltas, view.getDeltas());
+        assertEquals(SpectatorEncoder.getMaxFrameBytes(fighters.length), keyframeBytes);
+        assertTrue(deltaBytes / deltas < keyframeBytes, "deltas are no smaller than keyframes");
+    }
+
+    @Test
+    void deltaOfAnUnchangedStateHasNoFields() {
+        encoder.encode(0, true, buffer);
+        int size = encoder.encode(1, false, buffer);
+        assertEquals(SpectatorEncoder.HEADER_BYTES + fighters.length, size);
+    }
+
+    @Test
+    void missedDeltasDontMatter() {
+        SpectatorView view = new SpectatorView(fighters.length);
+        encoder.encode(0, true, buffer);
+        buffer.getInt();
+        view.apply(buffer);
+
+        // only the last of a few deltas arrives, it still decodes to the current state
+        for (long tick = 1; tick <= 10; tick++) {
+            match.step(Controls.RIGHT | Controls.UP, Controls.LEFT);
+            encoder.encode(tick, false, buffer);
+        }
+        buffer.getInt();
+        assertTrue(view.apply(buffer));
+        assertMatches(view, 10);
+    }
+
+    @Test
+    void skipsDeltasOfMissedKeyframesAndOldFrames() {
+        SpectatorView view = new SpectatorView(fighters.length);
+        encoder.encode(0, true, buffer);
+        encoder.encode(1, false, buffer);
+        buffer.getInt();
+        // the view never got the keyframe the delta is based on
+        assertFalse(view.apply(buffer));
+
+        encoder.encode(5, true, buffer);
+        buffer.getInt();
+        assertTrue(view.apply(buffer));
+        encoder.encode(4, true, buffer);
+        buffer.getInt();
+        assertFalse(view.apply(buffer));
+        assertEquals(5, view.getTick());
+        assertEquals(2, view.getFramesSkipped());
+    }
+
+    @Test
+    void needsAKeyframeFirst() {
+        assertThrows(IllegalStateException.class, () -> encoder.encode(0, false, buffer));
+    }
+
+    private void assertMatches(SpectatorView view, long tick) {
+        assertEquals(tick, view.getTick());
+        assertEquals(fighters.length, view.getFighterCount());
+        for (int i = 0; i < fighters.length; i++) {
+            Fighter fighter = fighters[i];
+            assertEquals(fighter.getPositionX(), view.getPositionX(i));
+            assertEquals(fighter.getPositionY(), view.getPositionY(i));
+            assertEquals(fighter.getState(), view.getState(i));
+            assertEquals(fighter.getWorld().getStateTime(fighter.getIndex()), view.getStateTime(i));
+            assertEquals(fighter.getLife(), view.getLife(i));
+            assertEquals(fighter.getWorld().getFacing(fighter.getIndex()), view.getFacing(i));
+        }
+    }
+
+    private static int randomControls(Random random) {
+        int controls = random.nextInt(Controls.MASK + 1);
+        // opposite directions cancel out, keep only one of them
+        if ((controls & Controls.LEFT) != 0) controls &= ~Controls.RIGHT;
+        if ((controls & Controls.UP) != 0) controls &= ~Controls.DOWN;
+        return controls;
+    }
+}
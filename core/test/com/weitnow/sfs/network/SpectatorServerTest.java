@@ -0,0 +1,159 @@
+package com.weitnow.sfs.network;
+
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.Controls;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streams a match to a fast and a slow spectator over loopback sockets.
+ */
+class SpectatorServerTest {
+    private static final int KEYFRAME_INTERVAL = 30;
+    // small socket buffers, so a spectator that stops reading fills them quickly
+    private static final int SEND_BUFFER_BYTES = 4 * 1024;
+    private static final int RECEIVE_BUFFER_BYTES = 4 * 1024;
+    private static final int STALL_TICKS = 3000;
+    private static final long TIMEOUT_MILLIS = 10_000L;
+
+    private final MatchSimulation match = new MatchSimulation(new Fighter("Slim Stallone", Color.WHITE),
+            new Fighter("Thin Diesel", Color.WHITE));
+    private final Fighter[] fighters = {match.getPlayer(), match.getOpponent()};
+    // the fields streamed of both fighters, by tick
+    private final Map<Long, float[]> history = new HashMap<>();
+    private SpectatorServer server;
+    private SpectatorClient fast, slow;
+    private long tick;
+
+    @AfterEach
+    void close() throws IOException {
+        if (fast != null) fast.close();
+        if (slow != null) slow.close();
+        if (server != null) server.close();
+    }
+
+    @Test
+    void slowSpectatorFallsBackToKeyframes() throws IOException {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        server = new SpectatorServer(new InetSocketAddress(loopback, 0), KEYFRAME_INTERVAL, SEND_BUFFER_BYTES,
+                fighters);
+        InetSocketAddress address = new InetSocketAddress(loopback, server.getPort());
+        fast = new SpectatorClient(address, fighters.length, 0);
+        slow = new SpectatorClient(address, fighters.length, RECEIVE_BUFFER_BYTES);
+        waitFor(() -> {
+            server.flush();
+            return server.getSpectatorCount() == 2;
+        });
+
+        // both keep up at first
+        play(KEYFRAME_INTERVAL * 2, true);
+        assertEquals(0, server.getFallbacks());
+
+        // the slow spectator stops reading until its socket is full
+        for (int i = 0; i < STALL_TICKS && server.getLaggingSpectatorCount() == 0; i++) {
+            play(1, false);
+        }
+        assertEquals(1, server.getLaggingSpectatorCount());
+        assertEquals(1, server.getFallbacks());
+
+        // the frames it skipped aren't queued up for it, it only gets keyframes while it can't keep up
+        long dropped = server.getFramesDropped();
+        play(KEYFRAME_INTERVAL * 4, false);
+        assertTrue(server.getFramesDropped() > dropped);
+        assertTrue(server.getFrameBufferCount() <= 4, server.getFrameBufferCount() + " frame buffers");
+
+        // once it reads again, it catches up with the next keyframe it takes at once and gets deltas again
+        long slowDeltas = slow.getView().getDeltas();
+        waitFor(() -> {
+            play(1, true);
+            return server.getLaggingSpectatorCount() == 0;
+        });
+        play(KEYFRAME_INTERVAL * 2, true);
+        assertTrue(slow.getView().getDeltas() > slowDeltas);
+
+        // both end up at the final state
+        long finalTick = tick - 1;
+        server.requestKeyframe();
+        server.broadcast(finalTick);
+        waitFor(() -> {
+            server.flush();
+            poll(fast);
+            poll(slow);
+            return fast.getView().getTick() == finalTick && slow.getView().getTick() == finalTick;
+        });
+        assertEquals(0, fast.getView().getFramesSkipped());
+        assertTrue(fast.getView().getDeltas() > slow.getView().getDeltas());
+    }
+
+    /**
+     * Steps the match and broadcasts every tick, letting the fast spectator and optionally the slow one read.
+     */
+    private void play(int ticks, boolean slowReads) throws IOException {
+        for (int i = 0; i < ticks; i++, tick++) {
+            // walk around, so the deltas aren't empty
+            int controls = (tick / 40) % 2 == 0 ? Controls.RIGHT | Controls.UP : Controls.LEFT | Controls.DOWN;
+            match.step(controls, (tick / 20) % 2 == 0 ? Controls.PUNCH : 0);
+            history.put(tick, record());
+            server.broadcast(tick);
+            poll(fast);
+            if (slowReads) poll(slow);
+        }
+    }
+
+    private float[] record() {
+        float[] fields = new float[fighters.length * 6];
+        for (int i = 0; i < fighters.length; i++) {
+            Fighter fighter = fighters[i];
+            int index = fighter.getIndex();
+            fields[i * 6] = fighter.getPositionX();
+            fields[i * 6 + 1] = fighter.getPositionY();
+            fields[i * 6 + 2] = fighter.getState().ordinal();
+            fields[i * 6 + 3] = fighter.getWorld().getStateTime(index);
+            fields[i * 6 + 4] = fighter.getLife();
+            fields[i * 6 + 5] = fighter.getWorld().getFacing(index);
+        }
+        return fields;
+    }
+
+    /**
+     * Reads the frames that have arrived and checks that the spectator sees the match as it was at the frame's tick.
+     */
+    private void poll(SpectatorClient client) throws IOException {
+        if (client.poll() <= 0) return;
+        SpectatorView view = client.getView();
+        float[] fields = new float[fighters.length * 6];
+        for (int i = 0; i < fighters.length; i++) {
+            fields[i * 6] = view.getPositionX(i);
+            fields[i * 6 + 1] = view.getPositionY(i);
+            fields[i * 6 + 2] = view.getState(i).ordinal();
+            fields[i * 6 + 3] = view.getStateTime(i);
+            fields[i * 6 + 4] = view.getLife(i);
+            fields[i * 6 + 5] = view.getFacing(i);
+        }
+        assertArrayEquals(history.get(view.getTick()), fields, "spectator out of sync at tick " + view.getTick());
+    }
+
+    private interface Condition {
+        boolean check() throws IOException;
+    }
+
+    private static void waitFor(Condition condition) throws IOException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.check()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.weitnow.sfs.objects;
+
+import com.badlogic.gdx.graphics.Color;
+import org.junit.jupiter.api.Test;
+
+import static com.weitnow.sfs.objects.Fighter.State.BLOCK;
+import static com.weitnow.sfs.objects.Fighter.State.HURT;
+import static com.weitnow.sfs.objects.Fighter.State.IDLE;
+import static com.weitnow.sfs.objects.Fighter.State.KICK;
+import static com.weitnow.sfs.objects.Fighter.State.LOSE;
+import static com.weitnow.sfs.objects.Fighter.State.PUNCH;
+import static com.weitnow.sfs.objects.Fighter.State.WALK;
+import static com.weitnow.sfs.objects.Fighter.State.WIN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoveSetTest {
+    private static final Fighter.State[] STATES = Fighter.State.values();
+
+    private final MoveSet moves = MoveSet.getDefault();
+
+    @Test
+    void movesReproduceTheOldStateMachine() {
+        for (Fighter.State state : STATES) {
+            for (int command = 0; command < MoveSet.COMMAND_COUNT; command++) {
+                for (boolean moving : new boolean[]{false, true}) {
+                    Fighter.State expected = oldTransition(state, command, moving);
+                    byte actual = moves.getTransition(state.ordinal(), command, moving);
+                    assertEquals(expected == null ? MoveSet.NONE : expected.ordinal(), actual,
+                            state + " on command " + command + (moving ? " while moving" : ""));
+                }
+            }
+
+            assertEquals(state == WALK, moves.isWalking(state.ordinal()), state + " walking");
+            assertEquals(state == PUNCH || state == KICK, moves.isAttack(state.ordinal()), state + " attack");
+            assertEquals(state == BLOCK, moves.isBlocking(state.ordinal()), state + " blocking");
+            assertEquals(state == HURT || state == WIN || state == LOSE, moves.isInvulnerable(state.ordinal()),
+                    state + " invulnerable");
+            assertEquals(state == BLOCK || state == IDLE || state == WALK || state == WIN,
+                    moves.isLooping(state.ordinal()), state + " looping");
+        }
+        assertEquals(IDLE.ordinal(), moves.getNeutralState(false));
+        assertEquals(WALK.ordinal(), moves.getNeutralState(true));
+        assertEquals(LOSE.ordinal(), moves.getKnockoutState());
+    }
+
+    @Test
+    void hitOnBlockStaysBlocking() {
+        Fighter fighter = newFighter();
+        fighter.block();
+        assertTrue(fighter.getHit(10f));
+        assertEquals(BLOCK, fighter.getState());
+        assertTrue(fighter.getLife() < Fighter.MAX_LIFE);
+    }
+
+    @Test
+    void hurtWinAndLoseIgnoreHits() {
+        Fighter hurt = newFighter();
+        assertTrue(hurt.getHit(10f));
+        assertEquals(HURT, hurt.getState());
+        float life = hurt.getLife();
+        assertFalse(hurt.getHit(10f));
+        assertEquals(life, hurt.getLife());
+
+        Fighter winner = newFighter();
+        winner.win();
+        assertFalse(winner.getHit(10f));
+        assertEquals(WIN, winner.getState());
+
+        Fighter loser = newFighter();
+        loser.lose();
+        assertTrue(loser.hasLost());
+        assertFalse(loser.getHit(10f));
+        assertEquals(LOSE, loser.getState());
+    }
+
+    @Test
+    void finishedAnimationsGoToNeutral() {
+        for (boolean moving : new boolean[]{false, true}) {
+            Fighter puncher = newFighter();
+            puncher.punch();
+            finishAnimation(puncher, moving);
+            assertEquals(moving ? WALK : IDLE, puncher.getState());
+
+            Fighter kicker = newFighter();
+            kicker.kick();
+            finishAnimation(kicker, moving);
+            assertEquals(moving ? WALK : IDLE, kicker.getState());
+
+            Fighter hurt = newFighter();
+            hurt.getHit(10f);
+            finishAnimation(hurt, moving);
+            assertEquals(moving ? WALK : IDLE, hurt.getState());
+        }
+    }
+
+    @Test
+    void idleAndWalkCanBeCanceled() {
+        for (boolean moving : new boolean[]{false, true}) {
+            Fighter blocker = newFighter();
+            if (moving) blocker.moveRight();
+            assertEquals(moving ? WALK : IDLE, blocker.getState());
+            blocker.block();
+            assertEquals(BLOCK, blocker.getState());
+            blocker.stopBlocking();
+            assertEquals(moving ? WALK : IDLE, blocker.getState());
+
+            Fighter puncher = newFighter();
+            if (moving) puncher.moveRight();
+            puncher.punch();
+            assertEquals(PUNCH, puncher.getState());
+            // attacks can't be canceled
+            puncher.kick();
+            puncher.block();
+            assertEquals(PUNCH, puncher.getState());
+
+            Fighter kicker = newFighter();
+            if (moving) kicker.moveRight();
+            kicker.kick();
+            assertEquals(KICK, kicker.getState());
+        }
+    }
+
+    @Test
+    void attacksAreActiveInTheirFramesWithAHitbox() {
+        FrameData frameData = FrameData.getDefault();
+        for (Fighter.State attack : new Fighter.State[]{PUNCH, KICK}) {
+            Fighter fighter = newFighter();
+            if (attack == PUNCH) fighter.punch();
+            else fighter.kick();
+
+            // sample each frame in its middle, away from the rounding at its edges
+            float frameDuration = moves.getFrameDuration(attack.ordinal());
+            fighter.update(frameDuration / 2f);
+            boolean active = false;
+            for (int frame = 0; frame < Fighter.FRAME_COUNT; frame++) {
+                assertEquals(frame, fighter.getFrame());
+                boolean expected = moves.isActiveFrame(attack.ordinal(), frame) &&
+                        frameData.hasHitbox(attack.ordinal(), frame);
+                assertEquals(expected, fighter.isAttackActive(), attack + " frame " + frame);
+                active |= expected;
+                if (frame < Fighter.FRAME_COUNT - 1) fighter.update(frameDuration);
+            }
+            assertTrue(active, attack + " never hits");
+
+            // an attack only lands once
+            fighter.makeContact();
+            assertFalse(fighter.isAttackActive());
+        }
+    }
+
+    private static Fighter newFighter() {
+        Fighter fighter = new Fighter("Slim Stallone", Color.WHITE);
+        fighter.getReady(0f, 0f);
+        return fighter;
+    }
+
+    private static void finishAnimation(Fighter fighter, boolean moving) {
+        if (moving) fighter.moveRight();
+        for (int i = 0; i <= Fighter.FRAME_COUNT; i++) {
+            fighter.update(0.1f);
+        }
+    }
+
+    /**
+     * The transitions the fighters followed before their moves were defined by data.
+     * @return the state the command leads to, or null if the state ignores it
+     */
+    private static Fighter.State oldTransition(Fighter.State state, int command, boolean moving) {
+        Fighter.State neutral = moving ? WALK : IDLE;
+        boolean cancelable = state == IDLE || state == WALK;
+        switch (command) {
+            case MoveSet.MOVE:
+                return state == IDLE ? WALK : null;
+            case MoveSet.STOP:
+                return state == WALK ? IDLE : null;
+            case MoveSet.BLOCK:
+                return cancelable ? BLOCK : null;
+            case MoveSet.RELEASE_BLOCK:
+                return state == BLOCK ? neutral : null;
+            case MoveSet.PUNCH:
+                return cancelable ? PUNCH : null;
+            case MoveSet.KICK:
+                return cancelable ? KICK : null;
+            case MoveSet.FINISH:
+                return state == PUNCH || state == KICK || state == HURT ? neutral : null;
+            case MoveSet.HIT:
+                // blocking takes the hit standing, the others ignore it
+                return state == BLOCK || state == HURT || state == WIN || state == LOSE ? null : HURT;
+            case MoveSet.KO:
+                return LOSE;
+            case MoveSet.WIN:
+                return WIN;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+}
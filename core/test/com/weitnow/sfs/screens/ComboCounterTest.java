@@ -0,0 +1,90 @@
+package com.weitnow.sfs.screens;
+
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.CombatEvents;
+import com.weitnow.sfs.simulation.Controls;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ComboCounterTest {
+    // distance the player's punches reach the opponent from
+    private static final float PUNCH_DISTANCE = 8f;
+
+    private final Fighter player = new Fighter("Slim Stallone", Color.WHITE);
+    private final Fighter opponent = new Fighter("Thin Diesel", Color.WHITE);
+    private final ComboCounter combos = new ComboCounter(player, opponent);
+
+    @Test
+    void recoveringFromAHitKeepsTheCombo() {
+        hit(player, opponent, 10);
+        changeState(opponent, Fighter.State.IDLE, 30);
+        hit(player, opponent, 50);
+        changeState(opponent, Fighter.State.WALK, 70);
+        hit(player, opponent, 90);
+        combos.update(90);
+        assertEquals(3, combos.getPlayerCombo());
+        assertEquals(0, combos.getOpponentCombo());
+    }
+
+    @Test
+    void blockingOrAttackingEndsTheCombo() {
+        hit(player, opponent, 10);
+        hit(player, opponent, 50);
+        changeState(opponent, Fighter.State.PUNCH, 60);
+        assertEquals(0, combos.getPlayerCombo());
+
+        hit(player, opponent, 70);
+        hit(player, opponent, 90);
+        combos.onCombatEvent(CombatEvents.Type.BLOCK, 100, player, opponent, 1f, Fighter.State.BLOCK);
+        assertEquals(0, combos.getPlayerCombo());
+
+        hit(opponent, player, 110);
+        hit(opponent, player, 120);
+        changeState(player, Fighter.State.BLOCK, 130);
+        assertEquals(0, combos.getOpponentCombo());
+    }
+
+    @Test
+    void hitsTooFarApartStartANewCombo() {
+        hit(player, opponent, 10);
+        hit(player, opponent, 10 + ComboCounter.WINDOW_TICKS);
+        assertEquals(2, combos.getPlayerCombo());
+        hit(player, opponent, 11 + 2 * ComboCounter.WINDOW_TICKS);
+        assertEquals(1, combos.getPlayerCombo());
+
+        // and the combo shown ends once the window has passed
+        combos.update(11 + 3 * ComboCounter.WINDOW_TICKS);
+        assertEquals(1, combos.getPlayerCombo());
+        combos.update(12 + 3 * ComboCounter.WINDOW_TICKS);
+        assertEquals(0, combos.getPlayerCombo());
+    }
+
+    @Test
+    void punchingAnIdleOpponentRepeatedlyIsACombo() {
+        MatchSimulation match = new MatchSimulation(player, opponent);
+        int maxCombo = 0;
+        for (int i = 0; i < 1200 && !match.isOver(); i++) {
+            // walk up to the opponent, then tap the punch button
+            int controls = opponent.getPositionX() - player.getPositionX() < PUNCH_DISTANCE ?
+                    (i % 8 < 4 ? Controls.PUNCH : 0) : Controls.RIGHT;
+            match.step(controls, 0);
+            match.getCombatEvents().drain(combos);
+            combos.update(match.getTick());
+            maxCombo = Math.max(maxCombo, combos.getPlayerCombo());
+        }
+        assertTrue(maxCombo >= 3, "longest combo: " + maxCombo);
+    }
+
+    private void hit(Fighter attacker, Fighter defender, long tick) {
+        combos.onCombatEvent(CombatEvents.Type.HIT, tick, attacker, defender, 1f, Fighter.State.HURT);
+        combos.onCombatEvent(CombatEvents.Type.STATE_CHANGE, tick, null, defender, 0f, Fighter.State.HURT);
+    }
+
+    private void changeState(Fighter fighter, Fighter.State state, long tick) {
+        combos.onCombatEvent(CombatEvents.Type.STATE_CHANGE, tick, null, fighter, 0f, state);
+    }
+}
@@ -0,0 +1,89 @@
+package com.weitnow.sfs.simulation;
+
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.objects.FighterWorld;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plays seeded brawls of fighters attacking at random around the middle of the ring, and checks the contact grid and
+ * the fighters standing every tick.
+ */
+class BrawlSimulationTest {
+    private static final int BRAWLS = 100;
+    private static final int MAX_FIGHTERS = 16;
+    private static final int MAX_TICKS = Math.round(120f / MatchSimulation.TICK_DURATION);
+    // average ticks between two changes of the buttons a fighter holds
+    private static final int INPUT_CHANGE_TICKS = 8;
+    // the fighters meet around the middle of the ring
+    private static final float RING_MIDDLE_X = (MatchSimulation.RING_MIN_X + MatchSimulation.RING_MAX_X) / 2f;
+    private static final float RING_MIDDLE_Y = (MatchSimulation.RING_MIN_Y + MatchSimulation.RING_MAX_Y) / 2f;
+    private static final float MIDDLE_SIZE_X = 4f;
+    private static final float MIDDLE_SIZE_Y = 0.5f;
+
+    @Test
+    void gridFindsThePairsOfTestingEveryPairAndTheLastFighterStandingWins() {
+        int over = 0;
+        for (int seed = 0; seed < BRAWLS; seed++) {
+            Random random = new Random(seed);
+            int count = 2 + random.nextInt(MAX_FIGHTERS - 1);
+            FighterWorld world = new FighterWorld(count);
+            Fighter[] fighters = new Fighter[count];
+            for (int i = 0; i < count; i++) {
+                fighters[i] = new Fighter(world, "Fighter " + i, Color.WHITE);
+            }
+            BrawlSimulation brawl = new BrawlSimulation(fighters);
+
+            for (int tick = 0; tick < MAX_TICKS && !brawl.isOver(); tick++) {
+                for (Fighter fighter : fighters) {
+                    pressRandomButtons(fighter, random);
+                }
+                brawl.step();
+
+                int standing = 0;
+                for (Fighter fighter : fighters) {
+                    if (!fighter.hasLost()) standing++;
+                }
+                assertEquals(standing, brawl.getFightersStanding(), "fighters standing, seed " + seed);
+                assertEquals(brawl.countContactsPairwise(), brawl.countContacts(), "contacts, seed " + seed);
+            }
+
+            if (brawl.isOver()) {
+                over++;
+                int winners = 0;
+                for (Fighter fighter : fighters) {
+                    if (fighter.getState() == Fighter.State.WIN) winners++;
+                }
+                assertEquals(1, winners, "winners, seed " + seed);
+            }
+        }
+        assertTrue(over > BRAWLS / 2, "only " + over + " brawls ended");
+    }
+
+    /**
+     * Heads for the middle of the ring, where the other fighters are, and attacks now and then.
+     */
+    private static void pressRandomButtons(Fighter fighter, Random random) {
+        if (random.nextInt(INPUT_CHANGE_TICKS) != 0) return;
+
+        fighter.stopMovingLeft();
+        fighter.stopMovingRight();
+        fighter.stopMovingUp();
+        fighter.stopMovingDown();
+        float distanceX = RING_MIDDLE_X - fighter.getPositionX();
+        float distanceY = RING_MIDDLE_Y - fighter.getPositionY();
+        if (distanceX > MIDDLE_SIZE_X) fighter.moveRight();
+        else if (distanceX < -MIDDLE_SIZE_X) fighter.moveLeft();
+        if (distanceY > MIDDLE_SIZE_Y) fighter.moveUp();
+        else if (distanceY < -MIDDLE_SIZE_Y) fighter.moveDown();
+
+        int attack = random.nextInt(4);
+        if (attack == 0) fighter.punch();
+        else if (attack == 1) fighter.kick();
+    }
+}
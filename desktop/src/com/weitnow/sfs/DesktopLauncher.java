@@ -3,15 +3,32 @@ package com.weitnow.sfs;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
 import com.weitnow.sfs.SFS;
+import com.weitnow.sfs.profiling.JfrCombatEventRecorder;
+import com.weitnow.sfs.profiling.JvmMemoryCounters;
 import com.weitnow.sfs.ressources.GlobalVariables;
 
 // Please note that on macOS your application needs to be started with the -XstartOnFirstThread JVM argument
 public class DesktopLauncher {
 	public static void main (String[] arg) {
 		Lwjgl3ApplicationConfiguration config = new Lwjgl3ApplicationConfiguration();
-		config.setForegroundFPS(60);
+		// the match is simulated in fixed ticks, so -Dsfs.uncapped=true can render as fast as the display allows
+		if (Boolean.getBoolean("sfs.uncapped")) {
+			config.setForegroundFPS(0);
+			config.useVsync(false);
+		} else {
+			config.setForegroundFPS(60);
+		}
 		config.setTitle("Gemetzel");
 		config.setWindowedMode(GlobalVariables.WINDOW_WIDTH,GlobalVariables.WINDOW_HEIGHT);
-		new Lwjgl3Application(new SFS(), config);
+		SFS game = new SFS();
+		// -Dsfs.profile=true profiles every frame from the start and emits combat events to Flight Recorder
+		if (Boolean.getBoolean("sfs.profile")) {
+			game.profiler.setMemoryCounters(new JvmMemoryCounters());
+			game.profiler.setEnabled(true);
+			game.combatEventRecorder = new JfrCombatEventRecorder();
+		}
+		// -Dsfs.spectatorPort=<port> streams the match to spectators connecting on that port
+		game.spectatorPort = Integer.getInteger("sfs.spectatorPort", -1);
+		new Lwjgl3Application(game, config);
 	}
 }
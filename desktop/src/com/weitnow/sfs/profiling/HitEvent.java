@@ -0,0 +1,25 @@
+package com.weitnow.sfs.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A hit or a blocked hit, recorded by JDK Flight Recorder.
+ */
+@Name("com.weitnow.sfs.Hit")
+@Label("Hit")
+@Category({"SFS", "Combat"})
+class HitEvent extends Event {
+    @Label("Tick")
+    long tick;
+    @Label("Attacker")
+    String attacker;
+    @Label("Defender")
+    String defender;
+    @Label("Damage")
+    float damage;
+    @Label("Blocked")
+    boolean blocked;
+}
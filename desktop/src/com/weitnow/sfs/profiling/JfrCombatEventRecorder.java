@@ -0,0 +1,40 @@
+package com.weitnow.sfs.profiling;
+
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.CombatEvents;
+
+/**
+ * Emits hits and state changes as JDK Flight Recorder events, so they show up on the same timeline as the garbage
+ * collections and the CPU samples of a recording. Events are only created while a recording has them enabled.
+ */
+public class JfrCombatEventRecorder implements CombatEvents.Listener {
+    @Override
+    public void onCombatEvent(CombatEvents.Type type, long tick, Fighter attacker, Fighter defender, float damage,
+                              Fighter.State state) {
+        switch (type) {
+            case HIT:
+            case BLOCK:
+                HitEvent hit = new HitEvent();
+                if (hit.isEnabled()) {
+                    hit.tick = tick;
+                    hit.attacker = attacker != null ? attacker.getName() : null;
+                    hit.defender = defender.getName();
+                    hit.damage = damage;
+                    hit.blocked = type == CombatEvents.Type.BLOCK;
+                    hit.commit();
+                }
+                break;
+            case STATE_CHANGE:
+                StateChangeEvent stateChange = new StateChangeEvent();
+                if (stateChange.isEnabled()) {
+                    stateChange.tick = tick;
+                    stateChange.fighter = defender.getName();
+                    stateChange.state = state.name();
+                    stateChange.commit();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+}
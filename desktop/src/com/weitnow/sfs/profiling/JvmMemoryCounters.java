@@ -0,0 +1,52 @@
+package com.weitnow.sfs.profiling;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * Reads the garbage collection counters of all collectors and, on HotSpot, the bytes allocated by the calling
+ * thread.
+ */
+public class JvmMemoryCounters implements FrameProfiler.MemoryCounters {
+    private final GarbageCollectorMXBean[] collectors;
+    private final com.sun.management.ThreadMXBean threads;
+
+    public JvmMemoryCounters() {
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        this.collectors = collectors.toArray(new GarbageCollectorMXBean[0]);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean &&
+                ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            this.threads = (com.sun.management.ThreadMXBean) threads;
+            this.threads.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            this.threads = null;
+        }
+    }
+
+    @Override
+    public long getCollectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(collector.getCollectionCount(), 0L);
+        }
+        return count;
+    }
+
+    @Override
+    public long getCollectionTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            time += Math.max(collector.getCollectionTime(), 0L);
+        }
+        return time;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return threads != null ? threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1L;
+    }
+}
@@ -0,0 +1,21 @@
+package com.weitnow.sfs.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A fighter changing its state, recorded by JDK Flight Recorder.
+ */
+@Name("com.weitnow.sfs.StateChange")
+@Label("State Change")
+@Category({"SFS", "Combat"})
+class StateChangeEvent extends Event {
+    @Label("Tick")
+    long tick;
+    @Label("Fighter")
+    String fighter;
+    @Label("State")
+    String state;
+}
@@ -0,0 +1,65 @@
+package com.weitnow.sfs.tools;
+
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.ai.MatchSearch;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import com.weitnow.sfs.simulation.MatchState;
+
+import java.util.Random;
+
+/**
+ * Plays matches of the CPU opponent's search against a player pressing random buttons, with the search deciding
+ * every other tick like it does at 60 frames per second, and reports how often the CPU wins and how much it
+ * searched. {@code CpuOpponentTool [matches] [budget microseconds] [seed]}
+ */
+public class CpuOpponentTool {
+    // ticks between two decisions of the search
+    private static final int TICKS_PER_DECISION = 2;
+    // average ticks between two changes of the random player's buttons
+    private static final int TICKS_PER_INPUT_CHANGE = 40;
+    // matches still going on after this many ticks count as draws
+    private static final int MAX_TICKS = 120 * 120;
+
+    public static void main(String[] args) {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        long budgetNanos = (args.length > 1 ? Long.parseLong(args[1]) : 500L) * 1000L;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0L;
+
+        MatchSimulation match = new MatchSimulation(new Fighter("Slim Stallone", Color.WHITE),
+                new Fighter("Thin Diesel", Color.WHITE));
+        match.setCombatEventsEnabled(false);
+        MatchSearch search = new MatchSearch(seed + 1);
+        MatchState state = new MatchState();
+        Random random = new Random(seed);
+
+        int wins = 0, losses = 0;
+        long ticks = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < matches; i++) {
+            match.getReady();
+            int playerControls = 0, opponentControls = 0;
+            while (!match.isOver() && match.getTick() < MAX_TICKS) {
+                if (random.nextInt(TICKS_PER_INPUT_CHANGE) == 0) {
+                    playerControls = ReplayTool.randomControls(random);
+                }
+                if (match.getTick() % TICKS_PER_DECISION == 0) {
+                    match.saveState(state);
+                    opponentControls = search.search(state, budgetNanos);
+                }
+                match.step(playerControls, opponentControls);
+            }
+            if (match.getPlayer().hasLost()) wins++;
+            if (match.getOpponent().hasLost()) losses++;
+            ticks += match.getTick();
+        }
+        long nanos = System.nanoTime() - start;
+
+        System.out.println("matches: " + matches + ", CPU wins: " + wins + ", losses: " + losses + ", draws: " +
+                (matches - wins - losses));
+        System.out.println("average match length: " + ticks / matches + " ticks");
+        System.out.println("decisions: " + search.getSearches() + ", playouts per decision: " +
+                search.getPlayouts() / search.getSearches() + ", " + nanos / search.getSearches() / 1000 +
+                " us per decision");
+    }
+}
@@ -0,0 +1,222 @@
+package com.weitnow.sfs.tools;
+
+import com.weitnow.sfs.ressources.Assets;
+import com.weitnow.sfs.ressources.BakedFont;
+
+import javax.imageio.ImageIO;
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.LineMetrics;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bakes the game's font sizes into {@link BakedFont baked fonts}: rasterizes the glyphs of printable ASCII and Latin-1
+ * into one page each and writes their metrics and kerning. Fonts whose key still matches the font file, size and
+ * scale are left alone, so it can run on every build. Reports how long rasterizing took, which is what generating the
+ * fonts at startup would cost, and how long reading the baked metrics takes instead.
+ * Run it after changing the font file or sizes; the desktop project's bakeFonts task runs it whenever the font file
+ * changed, before the {@link GameplayAtlasPacker} packs the pages: {@code FontBaker [assets directory] [scale]}.
+ */
+public class FontBaker {
+    // the page of a font grows up to this size
+    private static final int MAX_PAGE_SIZE = 2048;
+    // space between glyphs on the page, so filtering doesn't bleed neighbors in
+    private static final int PADDING = 1;
+
+    private static class BakedGlyph {
+        final char id;
+        final GlyphVector vector;
+        final Rectangle bounds;
+        final float advance;
+        int srcX, srcY;
+
+        BakedGlyph(char id, GlyphVector vector, Rectangle bounds, float advance) {
+            this.id = id;
+            this.vector = vector;
+            this.bounds = bounds;
+            this.advance = advance;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, FontFormatException {
+        File assetsDirectory = new File(args.length > 0 ? args[0] : "assets");
+        float scale = args.length > 1 ? Float.parseFloat(args[1]) : Assets.FONT_SCALE;
+
+        byte[] fontFile = Files.readAllBytes(new File(assetsDirectory, Assets.ROBOTO_REGULAR).toPath());
+        Font font = Font.createFont(Font.TRUETYPE_FONT, new ByteArrayInputStream(fontFile));
+        int fontHash = BakedFont.hash(fontFile);
+
+        for (int size : Assets.FONT_SIZES) {
+            BakedFont.Key key = new BakedFont.Key(fontHash, size, scale);
+            File file = new File(assetsDirectory, BakedFont.getPath(Assets.ROBOTO_REGULAR, size, scale));
+            if (file.exists() && key.equals(BakedFont.readKey(Files.readAllBytes(file.toPath())))) {
+                System.out.println(file + " is up to date");
+            } else {
+                long start = System.nanoTime();
+                bake(font, key, file);
+                System.out.printf("Baked %s (%s) in %.1f ms%n", file, key, (System.nanoTime() - start) / 1e6);
+            }
+
+            long start = System.nanoTime();
+            byte[] metrics = Files.readAllBytes(file.toPath());
+            BakedFont.read(metrics, BakedFont.getPagePath(file.getPath()));
+            System.out.printf("Read the baked metrics of %d px in %.2f ms%n", size, (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    private static void bake(Font fontFile, BakedFont.Key key, File file) throws IOException {
+        Font font = fontFile.deriveFont(Font.PLAIN, (float) Math.round(key.size * key.scale));
+        Font kerningFont = font.deriveFont(Collections.singletonMap(TextAttribute.KERNING, TextAttribute.KERNING_ON));
+        FontRenderContext context = new FontRenderContext(null, true, false);
+
+        // the glyphs of printable ASCII and Latin-1, as far as the font has them
+        List<BakedGlyph> glyphs = new ArrayList<>();
+        for (char c = 32; c < 256; c++) {
+            if (c == 127) c = 160;
+            if (!font.canDisplay(c)) continue;
+            GlyphVector vector = font.createGlyphVector(context, String.valueOf(c));
+            glyphs.add(new BakedGlyph(c, vector, vector.getGlyphPixelBounds(0, context, 0f, 0f),
+                    vector.getGlyphMetrics(0).getAdvance()));
+        }
+
+        // pack the glyphs in rows, tallest first, onto the smallest page they fit on
+        List<BakedGlyph> byHeight = new ArrayList<>(glyphs);
+        byHeight.sort((a, b) -> b.bounds.height - a.bounds.height);
+        int pageSize = 64;
+        while (!pack(byHeight, pageSize)) {
+            pageSize *= 2;
+            if (pageSize > MAX_PAGE_SIZE) {
+                throw new IllegalStateException("The glyphs of " + key + " don't fit on one " + MAX_PAGE_SIZE + "x" +
+                        MAX_PAGE_SIZE + " page");
+            }
+        }
+
+        BufferedImage page = new BufferedImage(pageSize, pageSize, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = page.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(java.awt.Color.WHITE);
+        for (BakedGlyph glyph : glyphs) {
+            graphics.drawGlyphVector(glyph.vector, glyph.srcX - glyph.bounds.x, glyph.srcY - glyph.bounds.y);
+        }
+        graphics.dispose();
+
+        // the metrics the font data derives when it loads a font, from the top of the line down to the baseline
+        LineMetrics lineMetrics = font.getLineMetrics("Ag", context);
+        int baseLine = (int) Math.ceil(lineMetrics.getAscent());
+        int lineHeight = (int) Math.ceil(lineMetrics.getAscent() + lineMetrics.getDescent() +
+                lineMetrics.getLeading());
+        int capHeight = 0;
+        int xHeight = 0;
+        int descent = 0;
+        float spaceXadvance = 0f;
+        for (BakedGlyph glyph : glyphs) {
+            if (glyph.id >= 'A' && glyph.id <= 'Z') capHeight = Math.max(capHeight, glyph.bounds.height);
+            if (glyph.id == 'x') xHeight = glyph.bounds.height;
+            if (glyph.id == ' ') spaceXadvance = Math.round(glyph.advance);
+            if (glyph.bounds.height > 0) descent = Math.min(descent, -(glyph.bounds.y + glyph.bounds.height));
+        }
+
+        file.getParentFile().mkdirs();
+        ImageIO.write(page, "png", new File(BakedFont.getPagePath(file.getPath())));
+
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            output.writeInt(BakedFont.MAGIC);
+            output.writeShort(BakedFont.VERSION);
+            output.writeInt(key.fontHash);
+            output.writeShort(key.size);
+            output.writeFloat(key.scale);
+
+            output.writeFloat(lineHeight);
+            output.writeFloat(capHeight);
+            output.writeFloat(xHeight);
+            output.writeFloat(baseLine - capHeight);
+            output.writeFloat(descent);
+            output.writeFloat(spaceXadvance);
+
+            output.writeShort(glyphs.size());
+            for (BakedGlyph glyph : glyphs) {
+                output.writeChar(glyph.id);
+                output.writeShort(glyph.srcX);
+                output.writeShort(glyph.srcY);
+                output.writeShort(glyph.bounds.width);
+                output.writeShort(glyph.bounds.height);
+                output.writeShort(glyph.bounds.x);
+                // the font data measures down from the top of the line to the bottom of the glyph
+                output.writeShort(glyph.bounds.height > 0 ? -(baseLine + glyph.bounds.y + glyph.bounds.height) : 0);
+                output.writeShort(Math.round(glyph.advance));
+            }
+
+            writeKerning(output, glyphs, kerningFont, context);
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Assigns the glyphs their places on a page in rows.
+     * @return false if they don't fit
+     */
+    private static boolean pack(List<BakedGlyph> glyphs, int pageSize) {
+        int x = PADDING, y = PADDING, rowHeight = 0;
+        for (BakedGlyph glyph : glyphs) {
+            if (x + glyph.bounds.width + PADDING > pageSize) {
+                x = PADDING;
+                y += rowHeight + PADDING;
+                rowHeight = 0;
+            }
+            if (y + glyph.bounds.height + PADDING > pageSize) return false;
+            glyph.srcX = x;
+            glyph.srcY = y;
+            x += glyph.bounds.width + PADDING;
+            rowHeight = Math.max(rowHeight, glyph.bounds.height);
+        }
+        return true;
+    }
+
+    /**
+     * Writes the kerning between the printable ASCII glyphs, which is how far a pair's advance with kerning differs
+     * from the advances of its glyphs.
+     */
+    private static void writeKerning(DataOutputStream output, List<BakedGlyph> glyphs, Font kerningFont,
+                                     FontRenderContext context) throws IOException {
+        List<int[]> pairs = new ArrayList<>();
+        for (BakedGlyph first : glyphs) {
+            if (first.id <= ' ' || first.id > '~') continue;
+            for (BakedGlyph second : glyphs) {
+                if (second.id <= ' ' || second.id > '~') continue;
+                float advance = new TextLayout(new String(new char[]{first.id, second.id}), kerningFont, context)
+                        .getAdvance();
+                int amount = Math.round(advance - first.advance - second.advance);
+                if (amount != 0) {
+                    pairs.add(new int[]{first.id, second.id, Math.max(-128, Math.min(127, amount))});
+                }
+            }
+        }
+
+        output.writeInt(pairs.size());
+        for (int[] pair : pairs) {
+            output.writeChar(pair[0]);
+            output.writeChar(pair[1]);
+            output.writeByte(pair[2]);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.weitnow.sfs.tools;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonReader;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.objects.FrameData;
+import com.weitnow.sfs.objects.MoveSet;
+import com.weitnow.sfs.ressources.GlobalVariables;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Generates the {@link FrameData} of the fighter sprite sheets from their alpha channel. A frame's hurtbox is the
+ * bounding box of its opaque pixels. Attack frames get a hitbox where they reach in front of the idle fighter's body:
+ * the bounding box of the opaque pixels beyond it, if they reach far enough to be more than a pose. The sprite sheet
+ * of each state and which states attack come from the {@link MoveSet}. Run it after changing any of the sprite sheets
+ * or the moves; the desktop project's generateFrameData task runs it whenever they changed:
+ * {@code FrameDataGenerator [assets directory]}.
+ */
+public class FrameDataGenerator {
+    // pixels with more alpha than this are part of the fighter
+    private static final int ALPHA_THRESHOLD = 127;
+    // attack frames reaching less than this many pixels in front of the idle body, 1 world unit, don't hit
+    private static final int MIN_REACH = 20;
+
+    private static final Fighter.State[] STATES = Fighter.State.values();
+
+    public static void main(String[] args) throws IOException {
+        File assetsDirectory = new File(args.length > 0 ? args[0] : "assets");
+
+        // every animation and its sprite sheet, from the moves being edited rather than those on the classpath
+        MoveSet moves = new MoveSet(new JsonReader().parse(new FileHandle(new File(assetsDirectory,
+                MoveSet.MOVES_PATH))));
+        String[] spriteSheets = new String[STATES.length];
+        for (int i = 0; i < STATES.length; i++) {
+            spriteSheets[i] = moves.getSpriteSheet(i);
+        }
+
+        BufferedImage[] sheets = new BufferedImage[spriteSheets.length];
+        for (int i = 0; i < spriteSheets.length; i++) {
+            sheets[i] = ImageIO.read(new File(assetsDirectory, spriteSheets[i]));
+            if (sheets[i] == null) {
+                throw new IOException("Couldn't read " + spriteSheets[i]);
+            }
+        }
+        int frameWidth = sheets[0].getWidth() / Fighter.FRAME_COLS;
+        int frameHeight = sheets[0].getHeight() / Fighter.FRAME_ROWS;
+
+        // attacks hit beyond the front of the idle fighter's body
+        int[] idleBox = new int[4];
+        findBounds(sheets[Fighter.State.IDLE.ordinal()], 0, frameWidth, frameHeight, 0, idleBox);
+        int bodyFront = idleBox[2];
+
+        File file = new File(assetsDirectory, FrameData.FRAME_DATA_PATH);
+        file.getParentFile().mkdirs();
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            output.writeInt(FrameData.MAGIC);
+            output.writeShort(FrameData.VERSION);
+            output.writeShort(Fighter.FRAME_ROWS);
+            output.writeShort(Fighter.FRAME_COLS);
+            output.writeShort(frameWidth);
+            output.writeShort(frameHeight);
+            output.writeFloat(GlobalVariables.WORLD_SCALE);
+
+            output.writeByte(STATES.length);
+            int[] box = new int[4];
+            for (int i = 0; i < STATES.length; i++) {
+                BufferedImage sheet = sheets[i];
+                if (sheet.getWidth() != frameWidth * Fighter.FRAME_COLS ||
+                        sheet.getHeight() != frameHeight * Fighter.FRAME_ROWS) {
+                    throw new IOException(spriteSheets[i] + " doesn't have the size of the other sprite sheets");
+                }
+
+                output.writeUTF(STATES[i].name());
+                boolean attack = moves.isAttack(i);
+                StringBuilder log = new StringBuilder(STATES[i].name()).append(':');
+                for (int frame = 0; frame < Fighter.FRAME_COUNT; frame++) {
+                    // the hurtbox covers the whole fighter
+                    if (!findBounds(sheet, frame, frameWidth, frameHeight, 0, box)) {
+                        throw new IOException(spriteSheets[i] + " has an empty frame: " + frame);
+                    }
+                    writeBox(output, box);
+                    log.append(" [").append(box[0]).append('-').append(box[2]);
+
+                    // the hitbox covers what reaches in front of the body
+                    boolean hit = attack && findBounds(sheet, frame, frameWidth, frameHeight, bodyFront, box) &&
+                            box[2] - bodyFront >= MIN_REACH;
+                    output.writeBoolean(hit);
+                    if (hit) {
+                        writeBox(output, box);
+                        log.append(" hit ").append(box[0]).append('-').append(box[2]);
+                    }
+                    log.append(']');
+                }
+                System.out.println(log);
+            }
+        } finally {
+            output.close();
+        }
+        System.out.println("Wrote " + file);
+    }
+
+    /**
+     * Finds the bounding box of the opaque pixels of a frame that lie at or right of minX, in pixels from the top left
+     * of the frame, as min x, min y, exclusive max x and exclusive max y.
+     * @return false if there are no such pixels
+     */
+    private static boolean findBounds(BufferedImage sheet, int frame, int frameWidth, int frameHeight, int minX,
+                                      int[] box) {
+        // frames are numbered row by row, like the animations split them
+        int originX = frame % Fighter.FRAME_COLS * frameWidth;
+        int originY = frame / Fighter.FRAME_COLS * frameHeight;
+        box[0] = box[1] = Integer.MAX_VALUE;
+        box[2] = box[3] = Integer.MIN_VALUE;
+        for (int y = 0; y < frameHeight; y++) {
+            for (int x = minX; x < frameWidth; x++) {
+                if (sheet.getRGB(originX + x, originY + y) >>> 24 > ALPHA_THRESHOLD) {
+                    box[0] = Math.min(box[0], x);
+                    box[1] = Math.min(box[1], y);
+                    box[2] = Math.max(box[2], x + 1);
+                    box[3] = Math.max(box[3], y + 1);
+                }
+            }
+        }
+        return box[2] > box[0];
+    }
+
+    private static void writeBox(DataOutputStream output, int[] box) throws IOException {
+        for (int value : box) {
+            output.writeShort(value);
+        }
+    }
+}
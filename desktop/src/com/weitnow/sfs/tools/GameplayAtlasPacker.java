@@ -0,0 +1,114 @@
+package com.weitnow.sfs.tools;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+import com.weitnow.sfs.ressources.Assets;
+import com.weitnow.sfs.ressources.BakedFont;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Packs the gameplay textures, fighter sprite sheets, the regions of the blood atlas, the pages of the HUD fonts and a
+ * white pixel for the HUD's bars into the single page gameplay atlas, so the ring, all fighters, their blood and the
+ * HUD can be drawn without a texture switch. Run it after changing any of the source images or baking the fonts with
+ * the {@link FontBaker}; the desktop project's packGameplayAtlas task runs it whenever they changed:
+ * {@code GameplayAtlasPacker [assets directory]}.
+ */
+public class GameplayAtlasPacker {
+    // large enough to hold the background, the front ropes and all eight sprite sheets on one page
+    private static final int MAX_PAGE_WIDTH = 4096;
+    private static final int MAX_PAGE_HEIGHT = 2048;
+    // size of the white region, a few pixels so it can be stretched without sampling its neighbors
+    private static final int PIXEL_SIZE = 4;
+
+    public static void main(String[] args) throws IOException {
+        File assetsDirectory = new File(args.length > 0 ? args[0] : "assets");
+        File atlasFile = new File(assetsDirectory, Assets.GAMEPLAY_ATLAS);
+
+        TexturePacker.Settings settings = new TexturePacker.Settings();
+        settings.maxWidth = MAX_PAGE_WIDTH;
+        settings.maxHeight = MAX_PAGE_HEIGHT;
+        // the sprite sheets are split into frames of equal size at runtime, so the regions must keep their size
+        settings.stripWhitespaceX = false;
+        settings.stripWhitespaceY = false;
+        settings.rotation = false;
+        settings.duplicatePadding = true;
+
+        TexturePacker packer = new TexturePacker(settings);
+        for (String texture : Assets.GAMEPLAY_ATLAS_TEXTURES) {
+            BufferedImage image = ImageIO.read(new File(assetsDirectory, texture));
+            if (image == null) {
+                throw new IOException("Couldn't read " + texture);
+            }
+            packer.addImage(image, Assets.getRegionName(texture));
+        }
+        addAtlasRegions(packer, new File(assetsDirectory, Assets.BLOOD_ATLAS));
+        for (String font : Assets.GAMEPLAY_FONTS) {
+            String page = BakedFont.getPagePath(font);
+            BufferedImage image = ImageIO.read(new File(assetsDirectory, page));
+            if (image == null) {
+                throw new IOException("Couldn't read " + page);
+            }
+            packer.addImage(image, Assets.getRegionName(page));
+        }
+        BufferedImage pixel = new BufferedImage(PIXEL_SIZE, PIXEL_SIZE, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < PIXEL_SIZE; y++) {
+            for (int x = 0; x < PIXEL_SIZE; x++) {
+                pixel.setRGB(x, y, 0xffffffff);
+            }
+        }
+        packer.addImage(pixel, Assets.PIXEL_REGION);
+
+        // replace the previous atlas and its pages instead of appending to them; the packer never overwrites a page,
+        // it numbers the new one after the existing ones
+        String atlasName = Assets.getRegionName(Assets.GAMEPLAY_ATLAS);
+        deletePages(atlasFile);
+        atlasFile.delete();
+        packer.pack(atlasFile.getParentFile(), atlasName);
+
+        // the whole point of the atlas is a single texture, so fail the build if the images no longer fit on one page
+        FileHandle atlasHandle = new FileHandle(atlasFile);
+        int pages = new TextureAtlas.TextureAtlasData(atlasHandle, atlasHandle.parent(), false).getPages().size;
+        if (pages != 1) {
+            throw new IllegalStateException("The gameplay textures don't fit on one " + MAX_PAGE_WIDTH + "x"
+                    + MAX_PAGE_HEIGHT + " atlas page, they need " + pages);
+        }
+    }
+
+    /**
+     * Deletes the page images of an atlas, if it exists.
+     */
+    private static void deletePages(File atlasFile) {
+        if (!atlasFile.exists()) return;
+
+        FileHandle atlasHandle = new FileHandle(atlasFile);
+        TextureAtlas.TextureAtlasData data = new TextureAtlas.TextureAtlasData(atlasHandle, atlasHandle.parent(), false);
+        for (TextureAtlas.TextureAtlasData.Page page : data.getPages()) {
+            page.textureFile.delete();
+        }
+    }
+
+    /**
+     * Adds the regions of another atlas, keeping their names and indices.
+     */
+    private static void addAtlasRegions(TexturePacker packer, File atlasFile) throws IOException {
+        FileHandle atlasHandle = new FileHandle(atlasFile);
+        TextureAtlas.TextureAtlasData data = new TextureAtlas.TextureAtlasData(atlasHandle, atlasHandle.parent(), false);
+        for (TextureAtlas.TextureAtlasData.Page page : data.getPages()) {
+            BufferedImage image = ImageIO.read(page.textureFile.file());
+            if (image == null) {
+                throw new IOException("Couldn't read " + page.textureFile);
+            }
+            for (TextureAtlas.TextureAtlasData.Region region : data.getRegions()) {
+                if (region.page != page) continue;
+                // the packer reads the index from a name ending in an underscore and a number
+                String name = region.index >= 0 ? region.name + "_" + region.index : region.name;
+                packer.addImage(image.getSubimage(region.left, region.top, region.width, region.height), name);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.weitnow.sfs.tools;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * A GL20 stub that accepts every call and draws nothing. Installing it lets textures, shaders and sprite batches be
+ * created with the headless backend, so rendering code can be exercised and measured without a window.
+ */
+public class HeadlessGL implements InvocationHandler {
+    // number of GL calls made through the stub
+    private long calls;
+    // number of draw calls made through the stub
+    private long drawCalls;
+    // names handed out for textures, buffers, shaders and programs
+    private int nextName = 1;
+
+    /**
+     * Installs a new stub as {@link Gdx#gl} and {@link Gdx#gl20}.
+     */
+    public static HeadlessGL install() {
+        HeadlessGL handler = new HeadlessGL();
+        GL20 gl = (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[]{GL20.class}, handler);
+        Gdx.gl = Gdx.gl20 = gl;
+        Gdx.gl30 = null;
+
+        // the stub reports no active uniforms, so don't complain about them
+        ShaderProgram.pedantic = false;
+        return handler;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getDrawCalls() {
+        return drawCalls;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        calls++;
+        String name = method.getName();
+        switch (name) {
+            case "glDrawElements":
+            case "glDrawArrays":
+                drawCalls++;
+                return null;
+            case "glCreateShader":
+            case "glCreateProgram":
+            case "glGenTexture":
+            case "glGenBuffer":
+            case "glGenFramebuffer":
+            case "glGenRenderbuffer":
+                return nextName++;
+            case "glGetShaderiv":
+            case "glGetProgramiv":
+                // report every shader as compiled and every program as linked
+                int parameter = (Integer) args[1];
+                if (parameter == GL20.GL_COMPILE_STATUS || parameter == GL20.GL_LINK_STATUS) {
+                    ((IntBuffer) args[2]).put(0, 1);
+                }
+                return null;
+            case "glGetIntegerv":
+                // report a generous maximum texture size
+                if ((Integer) args[0] == GL20.GL_MAX_TEXTURE_SIZE) {
+                    ((IntBuffer) args[1]).put(0, 16384);
+                }
+                return null;
+            case "glCheckFramebufferStatus":
+                return GL20.GL_FRAMEBUFFER_COMPLETE;
+            default:
+                return defaultValue(method.getReturnType());
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == int.class) return 0;
+        if (type == boolean.class) return false;
+        if (type == float.class) return 0f;
+        if (type == long.class) return 0L;
+        if (type == String.class) return "";
+        return null;
+    }
+}
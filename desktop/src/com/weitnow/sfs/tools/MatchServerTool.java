@@ -0,0 +1,167 @@
+package com.weitnow.sfs.tools;
+
+import com.weitnow.sfs.profiling.Histogram;
+import com.weitnow.sfs.server.MatchServer;
+import com.weitnow.sfs.server.UdpInputReceiver;
+import com.weitnow.sfs.simulation.MatchSimulation;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hosts many matches on a headless {@link MatchServer} and feeds them random button presses, either as UDP datagrams
+ * over loopback to a {@link UdpInputReceiver} or straight from a local thread standing in for the network. Reports
+ * the match ticks simulated per second, how late the tick batches started, how long they took and the heap used per
+ * match. Must be run with the assets on the classpath, for the frame data.
+ * {@code MatchServerTool [matches] [threads] [seconds] [udp|local] [seed]}
+ */
+public class MatchServerTool {
+    // how often a client sends the buttons its fighter holds
+    private static final int INPUTS_PER_SECOND = 30;
+    // average inputs between two changes of the held buttons of a fighter
+    private static final int INPUTS_PER_CHANGE = 10;
+    // seconds the server runs before it is measured, to let the JIT compile the simulation
+    private static final int WARM_UP_SECONDS = 3;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) :
+                Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        boolean udp = !(args.length > 3 && args[3].equals("local"));
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 0L;
+
+        // measure the heap the matches take
+        long heapBefore = usedHeap();
+        MatchServer server = new MatchServer(threads, matches);
+        for (int i = 0; i < matches; i++) {
+            server.host("Slim Stallone", "Thin Diesel");
+        }
+        long heapPerMatch = (usedHeap() - heapBefore) / matches;
+
+        UdpInputReceiver receiver = null;
+        Clients clients;
+        if (udp) {
+            receiver = new UdpInputReceiver(server, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            receiver.start();
+            clients = new Clients(matches, seed, server, new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    receiver.getPort()));
+        } else {
+            clients = new Clients(matches, seed, server, null);
+        }
+        Thread clientThread = new Thread(clients, "clients");
+        clientThread.setDaemon(true);
+        clientThread.start();
+
+        // warm up, then measure
+        server.start();
+        Thread.sleep(WARM_UP_SECONDS * 1000L);
+        server.resetStatistics();
+        for (int i = 0; i < seconds; i++) {
+            Thread.sleep(1000L);
+            System.out.println(i + 1 + " s: " + server.getTicks() + " ticks");
+        }
+        server.stop();
+        clients.running = false;
+        clientThread.join();
+
+        double targetTicksPerSecond = matches / MatchSimulation.TICK_DURATION;
+        Histogram jitter = server.getJitter();
+        Histogram batchDuration = server.getBatchDuration();
+        System.out.println("matches: " + matches + " on " + threads + " threads, input over " +
+                (udp ? "UDP" : "a local thread"));
+        System.out.printf("ticks per second: %.0f of %.0f, %d ticks skipped, %d matches finished%n",
+                server.getTicksPerSecond(), targetTicksPerSecond, server.getTicksSkipped(),
+                server.getMatchesFinished());
+        System.out.println("tick jitter: p50 " + jitter.getPercentileNanos(50f) / 1000 + " us, p90 " +
+                jitter.getPercentileNanos(90f) / 1000 + " us, p99 " + jitter.getPercentileNanos(99f) / 1000 +
+                " us, p99.9 " + jitter.getPercentileNanos(99.9f) / 1000 + " us, max " + jitter.getMaxNanos() / 1000 +
+                " us");
+        System.out.println("batch duration: " + batchDuration);
+        System.out.println("heap per match: " + heapPerMatch + " bytes");
+        System.out.println("inputs sent: " + clients.inputsSent + (receiver != null ? ", received: " +
+                receiver.getInputs() + " in " + receiver.getDatagrams() + " datagrams, dropped as stale: " +
+                receiver.getInputsDropped() + ", malformed: " + receiver.getMalformed() : ""));
+        if (receiver != null) {
+            receiver.stop();
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The players of all matches, each sending the buttons its fighter holds at a fixed rate, with a sequence number.
+     */
+    private static class Clients implements Runnable {
+        final int matches;
+        final Random random;
+        final InetSocketAddress address;
+        final MatchServer server;
+        volatile boolean running = true;
+        final int[] controls;
+        int sequence;
+        long inputsSent;
+
+        Clients(int matches, long seed, MatchServer server, InetSocketAddress address) {
+            this.matches = matches;
+            random = new Random(seed);
+            this.server = server;
+            this.address = address;
+            controls = new int[matches * 2];
+        }
+
+        @Override
+        public void run() {
+            try (DatagramChannel channel = address != null ? DatagramChannel.open() : null) {
+                ByteBuffer datagram = ByteBuffer.allocateDirect(UdpInputReceiver.MAX_DATAGRAM_BYTES);
+                int inputsPerDatagram = UdpInputReceiver.MAX_DATAGRAM_BYTES / UdpInputReceiver.INPUT_BYTES;
+                long interval = 1_000_000_000L / INPUTS_PER_SECOND;
+                long next = System.nanoTime();
+                while (running) {
+                    // every fighter sends its buttons, some of them changed
+                    sequence++;
+                    for (int fighter = 0; fighter < controls.length; fighter++) {
+                        if (random.nextInt(INPUTS_PER_CHANGE) == 0) {
+                            controls[fighter] = ReplayTool.randomControls(random);
+                        }
+                        int matchId = fighter / 2;
+                        int side = fighter % 2;
+                        if (channel == null) {
+                            server.submitControls(matchId, side, controls[fighter]);
+                        } else {
+                            datagram.putInt(matchId).put((byte) side).putInt(sequence).putInt(controls[fighter]);
+                            if (datagram.position() / UdpInputReceiver.INPUT_BYTES == inputsPerDatagram ||
+                                    fighter == controls.length - 1) {
+                                datagram.flip();
+                                channel.send(datagram, address);
+                                datagram.clear();
+                            }
+                        }
+                        inputsSent++;
+                    }
+
+                    next += interval;
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    } else {
+                        next = System.nanoTime();
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Sending inputs failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.weitnow.sfs.tools;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.backends.headless.mock.graphics.MockGraphics;
+import com.weitnow.sfs.SFS;
+import com.weitnow.sfs.audio.NullAudioBackend;
+import com.weitnow.sfs.profiling.JvmMemoryCounters;
+
+/**
+ * Renders a few frames of the game at 60 frames per second with the headless backend and a stubbed GL, and reports
+ * how many times the sprite batch was flushed and how many draw calls reached GL per frame, along with the time to
+ * the first frame. Exits with a non-zero status if a frame needs more flushes or GL draw calls than allowed, so texture
+ * switches sneaking back into the frame fail the build; the desktop project's renderCallReport task runs it as part of
+ * check. Taps the punch key now and then to report the input latency as well, and profiles the frames. The combat
+ * sounds are played through a null audio backend. Must be run from the assets directory:
+ * {@code RenderCallReport [frames] [max render calls per frame] [max GL draw calls per frame]}.
+ */
+public class RenderCallReport {
+    // frames between two taps of the punch key
+    private static final int PUNCH_INTERVAL_FRAMES = 30;
+    // pace of the measured frames, so the match advances like it does on screen
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+
+    public static void main(String[] args) {
+        final int frames = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        final int maxRenderCalls = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        final int maxDrawCalls = args.length > 2 ? Integer.parseInt(args[2]) : maxRenderCalls;
+
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.updatesPerSecond = -1;
+        new HeadlessApplication(new ApplicationAdapter() {
+            @Override
+            public void create() {
+                HeadlessGL gl = HeadlessGL.install();
+                SFS game = new SFS();
+                game.profiler.setMemoryCounters(new JvmMemoryCounters());
+                game.audioBackend = new NullAudioBackend();
+                game.create();
+
+                // let the loading screen finish loading the assets
+                while (game.getScreen() != game.gameScreen) {
+                    game.render();
+                }
+
+                game.profiler.setEnabled(true);
+                int maxFrameRenderCalls = 0;
+                long maxFrameDrawCalls = 0;
+                long drawCallsBefore = gl.getDrawCalls();
+                for (int i = 0; i < frames; i++) {
+                    // tap the punch key now and then, to measure the input latency
+                    if (i % PUNCH_INTERVAL_FRAMES == 0) {
+                        game.gameScreen.keyDown(Input.Keys.F);
+                    } else if (i % PUNCH_INTERVAL_FRAMES == 1) {
+                        game.gameScreen.keyUp(Input.Keys.F);
+                    }
+                    long frameDrawCallsBefore = gl.getDrawCalls();
+                    renderAtFrameRate(game);
+                    // the sprite batch counts its flushes between begin and end
+                    maxFrameRenderCalls = Math.max(maxFrameRenderCalls, game.batch.renderCalls);
+                    maxFrameDrawCalls = Math.max(maxFrameDrawCalls, gl.getDrawCalls() - frameDrawCallsBefore);
+                }
+                float drawCallsPerFrame = (gl.getDrawCalls() - drawCallsBefore) / (float) frames;
+
+                System.out.println("time to first frame: " + game.timeToFirstFrameMillis + " ms");
+                System.out.println("frames: " + frames);
+                System.out.println("max render calls per frame: " + maxFrameRenderCalls);
+                System.out.println("total render calls: " + game.batch.totalRenderCalls);
+                System.out.println("max sprites in batch: " + game.batch.maxSpritesInBatch);
+                System.out.println("GL draw calls per frame: " + drawCallsPerFrame + ", max " + maxFrameDrawCalls);
+                System.out.println("input latency: " + game.gameScreen.getInputLatency());
+                System.out.println("frame profile: " + game.profiler);
+                System.out.println("sounds: " + game.audio);
+                game.dispose();
+
+                boolean regressed = false;
+                if (maxFrameRenderCalls > maxRenderCalls) {
+                    System.err.println("render calls per frame exceed the allowed " + maxRenderCalls);
+                    regressed = true;
+                }
+                if (maxFrameDrawCalls > maxDrawCalls) {
+                    System.err.println("GL draw calls per frame exceed the allowed " + maxDrawCalls);
+                    regressed = true;
+                }
+                if (regressed) {
+                    System.exit(1);
+                }
+                System.exit(0);
+            }
+        }, config);
+    }
+
+    private static void renderAtFrameRate(SFS game) {
+        long frameStart = System.nanoTime();
+        // rendering from within create bypasses the application loop, so advance the frame time here
+        ((MockGraphics) Gdx.graphics).updateTime();
+        game.render();
+        long sleepNanos = FRAME_NANOS - (System.nanoTime() - frameStart);
+        if (sleepNanos > 0) {
+            try {
+                Thread.sleep(sleepNanos / 1_000_000L, (int) (sleepNanos % 1_000_000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.weitnow.sfs.tools;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.Controls;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import com.weitnow.sfs.simulation.Replay;
+import com.weitnow.sfs.simulation.ReplayRecorder;
+
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Records scripted matches into replay files and plays replays back headless as fast as possible.
+ * <ul>
+ *     <li>{@code ReplayTool record <file> [seconds] [seed]} records a match of random button presses</li>
+ *     <li>{@code ReplayTool play <file>} plays a replay back and reports how much faster than real time it ran</li>
+ * </ul>
+ * No libGDX backend is needed, the files are accessed as absolute file handles.
+ */
+public class ReplayTool {
+    // average ticks between two changes of the held buttons of a scripted fighter
+    private static final int TICKS_PER_INPUT_CHANGE = 40;
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("usage: ReplayTool record <file> [seconds] [seed] | play <file>");
+            System.exit(1);
+        }
+        FileHandle file = new FileHandle(new File(args[1]));
+        if (args[0].equals("record")) {
+            int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 180;
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : 0L;
+            record(file, seconds, seed);
+        } else {
+            play(file);
+        }
+    }
+
+    private static void record(FileHandle file, int seconds, long seed) {
+        MatchSimulation match = new MatchSimulation(new Fighter("Slim Stallone", Color.WHITE),
+                new Fighter("Thin Diesel", Color.WHITE));
+        ReplayRecorder recorder = new ReplayRecorder(match.getPlayer().getName(), match.getOpponent().getName(),
+                MatchSimulation.TICK_DURATION);
+        match.setRecorder(recorder);
+
+        Random random = new Random(seed);
+        int ticks = Math.round(seconds / MatchSimulation.TICK_DURATION);
+        int playerControls = 0, opponentControls = 0;
+        for (int i = 0; i < ticks; i++) {
+            // keep playing after a knockout, the replay should be as long as requested
+            if (match.isOver()) {
+                match.getReady();
+            }
+            if (random.nextInt(TICKS_PER_INPUT_CHANGE) == 0) {
+                playerControls = randomControls(random);
+            }
+            if (random.nextInt(TICKS_PER_INPUT_CHANGE) == 0) {
+                opponentControls = randomControls(random);
+            }
+            match.step(playerControls, opponentControls);
+        }
+        recorder.save(file);
+
+        System.out.println("recorded " + recorder.getTicks() + " ticks into " + file.length() + " bytes");
+        printResult(match);
+    }
+
+    private static void play(FileHandle file) {
+        Replay replay = Replay.load(file);
+        MatchSimulation match = new MatchSimulation(new Fighter(replay.getPlayerName(), Color.WHITE),
+                new Fighter(replay.getOpponentName(), Color.WHITE));
+
+        long start = System.nanoTime();
+        while (replay.hasNext()) {
+            // matches in the replay continue after a knockout, just like they were recorded
+            if (match.isOver()) {
+                match.getReady();
+            }
+            replay.play(match, 1);
+        }
+        long nanos = System.nanoTime() - start;
+
+        double simulatedSeconds = replay.getTicks() * replay.getTickDuration();
+        System.out.println("played back " + replay.getTicks() + " ticks in " + nanos / 1_000_000 + " ms, " +
+                Math.round(simulatedSeconds / (nanos / 1e9)) + " times real time");
+        printResult(match);
+    }
+
+    static int randomControls(Random random) {
+        int controls = random.nextInt(Controls.MASK + 1);
+        // opposite directions cancel out, keep only one of them
+        if ((controls & Controls.LEFT) != 0) controls &= ~Controls.RIGHT;
+        if ((controls & Controls.UP) != 0) controls &= ~Controls.DOWN;
+        return controls;
+    }
+
+    private static void printResult(MatchSimulation match) {
+        printResult(match.getPlayer());
+        printResult(match.getOpponent());
+    }
+
+    private static void printResult(Fighter fighter) {
+        System.out.println(fighter.getName() + ": life " + fighter.getLife() + " at (" + fighter.getPositionX() + "," +
+                fighter.getPositionY() + ")");
+    }
+}
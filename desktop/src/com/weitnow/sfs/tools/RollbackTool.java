@@ -0,0 +1,99 @@
+package com.weitnow.sfs.tools;
+
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.network.LoopbackTransport;
+import com.weitnow.sfs.network.RollbackSession;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import com.weitnow.sfs.simulation.MatchState;
+
+import java.util.Random;
+
+/**
+ * Plays a match between two rollback sessions connected over a lossy {@link LoopbackTransport}, both pressing random
+ * buttons, and checks that both ended up with the same match. Reports the rollbacks, stalls and timings of saving,
+ * restoring and rolling back.
+ * {@code RollbackTool [frames] [latency frames] [jitter frames] [loss rate] [seed]}
+ */
+public class RollbackTool {
+    // average ticks between two changes of the held buttons of a peer
+    private static final int TICKS_PER_INPUT_CHANGE = 40;
+    // saves and restores timed
+    private static final int SNAPSHOT_ITERATIONS = 1_000_000;
+
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 7200;
+        int latencyFrames = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int jitterFrames = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        float lossRate = args.length > 3 ? Float.parseFloat(args[3]) : 0.05f;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 0L;
+
+        LoopbackTransport.Link link = new LoopbackTransport.Link(latencyFrames, jitterFrames, lossRate, seed);
+        RollbackSession session1 = new RollbackSession(createMatch(), true, link.getEnd1());
+        RollbackSession session2 = new RollbackSession(createMatch(), false, link.getEnd2());
+
+        Random random = new Random(seed);
+        int controls1 = 0, controls2 = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            if (random.nextInt(TICKS_PER_INPUT_CHANGE) == 0) {
+                controls1 = ReplayTool.randomControls(random);
+            }
+            if (random.nextInt(TICKS_PER_INPUT_CHANGE) == 0) {
+                controls2 = ReplayTool.randomControls(random);
+            }
+            session1.advance(controls1);
+            session2.advance(controls2);
+            link.update();
+        }
+        long nanos = System.nanoTime() - start;
+
+        // both sessions have received all inputs before this tick, so their matches must be identical there
+        long tick = Math.min(session1.getConfirmedTick(), session2.getConfirmedTick());
+        long checksum1 = session1.getChecksum(tick);
+        long checksum2 = session2.getChecksum(tick);
+
+        System.out.println("frames: " + frames + ", latency: " + latencyFrames + "+" + jitterFrames +
+                " frames, loss: " + lossRate);
+        System.out.println("ran " + frames + " frames of both peers in " + nanos / 1_000_000 + " ms");
+        System.out.println("packets sent: " + link.getEnd1().getPacketsSent() + " + " +
+                link.getEnd2().getPacketsSent() + ", lost: " + link.getEnd1().getPacketsLost() + " + " +
+                link.getEnd2().getPacketsLost());
+        printSession("peer 1", session1);
+        printSession("peer 2", session2);
+        timeSnapshots(session1.getMatch());
+
+        if (checksum1 != checksum2) {
+            System.err.println("desync at tick " + tick + ": " + Long.toHexString(checksum1) + " != " +
+                    Long.toHexString(checksum2));
+            System.exit(1);
+        }
+        System.out.println("in sync at tick " + tick);
+    }
+
+    private static MatchSimulation createMatch() {
+        return new MatchSimulation(new Fighter("Slim Stallone", Color.WHITE), new Fighter("Thin Diesel", Color.WHITE));
+    }
+
+    private static void printSession(String name, RollbackSession session) {
+        System.out.println(name + ": ticks " + session.getTick() + ", stalls " + session.getStalls() +
+                ", rollbacks " + session.getRollbacks() + ", ticks resimulated " + session.getTicksResimulated() +
+                ", longest rollback " + session.getMaxRollbackNanos() / 1000f + " us");
+    }
+
+    private static void timeSnapshots(MatchSimulation match) {
+        MatchState state = new MatchState();
+        long start = System.nanoTime();
+        for (int i = 0; i < SNAPSHOT_ITERATIONS; i++) {
+            match.saveState(state);
+        }
+        long saveNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < SNAPSHOT_ITERATIONS; i++) {
+            match.restoreState(state);
+        }
+        long restoreNanos = System.nanoTime() - start;
+        System.out.println("save: " + saveNanos / (float) SNAPSHOT_ITERATIONS + " ns, restore: " +
+                restoreNanos / (float) SNAPSHOT_ITERATIONS + " ns");
+    }
+}
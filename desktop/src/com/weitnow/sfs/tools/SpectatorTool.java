@@ -0,0 +1,185 @@
+package com.weitnow.sfs.tools;
+
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.network.SpectatorClient;
+import com.weitnow.sfs.network.SpectatorServer;
+import com.weitnow.sfs.network.SpectatorView;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.MatchSimulation;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Random;
+
+/**
+ * Streams a match of random button presses from a {@link SpectatorServer} to many spectators connected over loopback,
+ * some of which stall for long stretches, and checks that every frame a spectator applied matches the match at that
+ * tick, and that all of them end up at the final state. Reports the size of keyframes and deltas, the frames slow
+ * spectators dropped and how long a broadcast took.
+ * {@code SpectatorTool [spectators] [slow spectators] [ticks] [seed]}
+ */
+public class SpectatorTool {
+    // average ticks between two changes of the held buttons of a fighter
+    private static final int TICKS_PER_INPUT_CHANGE = 40;
+    // slow spectators alternately stall and read for this many ticks
+    private static final int STALL_TICKS = 600;
+    // small socket buffers, so stalled spectators fill them quickly
+    private static final int SEND_BUFFER_BYTES = 8 * 1024;
+    private static final int SLOW_RECEIVE_BUFFER_BYTES = 4 * 1024;
+    // how long the spectators get to catch up with the final keyframe
+    private static final long CATCH_UP_MILLIS = 10_000L;
+
+    public static void main(String[] args) throws IOException {
+        int spectatorCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int slowCount = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 7200;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0L;
+
+        MatchSimulation match = new MatchSimulation(new Fighter("Slim Stallone", Color.WHITE),
+                new Fighter("Thin Diesel", Color.WHITE));
+        Fighter[] fighters = {match.getPlayer(), match.getOpponent()};
+        SpectatorServer server = new SpectatorServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                SpectatorServer.DEFAULT_KEYFRAME_INTERVAL, SEND_BUFFER_BYTES, fighters);
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+
+        // the last spectators are the slow ones
+        SpectatorClient[] spectators = new SpectatorClient[spectatorCount];
+        for (int i = 0; i < spectatorCount; i++) {
+            boolean slow = i >= spectatorCount - slowCount;
+            spectators[i] = new SpectatorClient(address, fighters.length, slow ? SLOW_RECEIVE_BUFFER_BYTES : 0);
+            server.flush();
+        }
+
+        // the fighters' fields at every tick, to check the spectators against
+        History history = new History(ticks + 1, fighters.length);
+        Random random = new Random(seed);
+        int playerControls = 0, opponentControls = 0;
+        long mismatches = 0;
+        long broadcastNanos = 0;
+        long tick = 0;
+        for (; tick < ticks; tick++) {
+            if (random.nextInt(TICKS_PER_INPUT_CHANGE) == 0) {
+                playerControls = ReplayTool.randomControls(random);
+            }
+            if (random.nextInt(TICKS_PER_INPUT_CHANGE) == 0) {
+                opponentControls = ReplayTool.randomControls(random);
+            }
+            if (match.isOver()) {
+                // start over, which the spectators see in the next keyframe
+                match.getReady();
+                server.requestKeyframe();
+            }
+            match.step(playerControls, opponentControls);
+            history.record(tick, fighters);
+
+            long start = System.nanoTime();
+            server.broadcast(tick);
+            broadcastNanos += System.nanoTime() - start;
+
+            for (int i = 0; i < spectatorCount; i++) {
+                boolean slow = i >= spectatorCount - slowCount;
+                if (slow && (tick / STALL_TICKS) % 2 == 0) continue;
+                if (spectators[i].poll() > 0 && !history.matches(spectators[i].getView())) {
+                    mismatches++;
+                }
+            }
+        }
+
+        // send everyone a final keyframe and give them time to get it
+        long finalTick = tick - 1;
+        server.requestKeyframe();
+        server.broadcast(finalTick);
+        long deadline = System.currentTimeMillis() + CATCH_UP_MILLIS;
+        int caughtUp = 0;
+        while (caughtUp < spectatorCount && System.currentTimeMillis() < deadline) {
+            server.flush();
+            caughtUp = 0;
+            for (SpectatorClient spectator : spectators) {
+                if (spectator.poll() > 0 && !history.matches(spectator.getView())) {
+                    mismatches++;
+                }
+                if (spectator.getView().getKeyframeTick() == finalTick) caughtUp++;
+            }
+        }
+
+        long keyframes = 0, deltas = 0, skipped = 0;
+        for (SpectatorClient spectator : spectators) {
+            keyframes += spectator.getView().getKeyframes();
+            deltas += spectator.getView().getDeltas();
+            skipped += spectator.getView().getFramesSkipped();
+        }
+
+        System.out.println("spectators: " + spectatorCount + " (" + slowCount + " slow), ticks: " + ticks);
+        System.out.println("encoded " + server.getKeyframesEncoded() + " keyframes and " +
+                server.getDeltasEncoded() + " deltas, " +
+                server.getBytesEncoded() / (float) (server.getKeyframesEncoded() + server.getDeltasEncoded()) +
+                " bytes per frame on average");
+        System.out.println("sent " + server.getFramesSent() + " frames, " + server.getBytesSent() / 1024 +
+                " KiB, dropped " + server.getFramesDropped() + " frames, " + server.getFallbacks() +
+                " fallbacks to keyframes, " + server.getFrameBufferCount() + " frame buffers");
+        System.out.println("spectators applied " + keyframes + " keyframes and " + deltas + " deltas, skipped " +
+                skipped);
+        System.out.println("broadcast: " + broadcastNanos / 1000f / ticks + " us on average, " +
+                server.getMaxBroadcastNanos() / 1000f + " us at most");
+
+        for (SpectatorClient spectator : spectators) {
+            spectator.close();
+        }
+        server.close();
+
+        if (mismatches > 0 || caughtUp < spectatorCount) {
+            System.err.println(mismatches + " frames didn't match the match, " + (spectatorCount - caughtUp) +
+                    " spectators didn't catch up");
+            System.exit(1);
+        }
+        System.out.println("all spectators in sync at tick " + finalTick);
+    }
+
+    /**
+     * The fields streamed to spectators, of every fighter at every tick.
+     */
+    private static class History {
+        private final int fighterCount;
+        private final float[] positionX, positionY, stateTime, life;
+        private final Fighter.State[] state;
+        private final int[] facing;
+
+        History(int ticks, int fighterCount) {
+            this.fighterCount = fighterCount;
+            int size = ticks * fighterCount;
+            positionX = new float[size];
+            positionY = new float[size];
+            stateTime = new float[size];
+            life = new float[size];
+            state = new Fighter.State[size];
+            facing = new int[size];
+        }
+
+        void record(long tick, Fighter[] fighters) {
+            for (int i = 0; i < fighterCount; i++) {
+                int slot = (int) tick * fighterCount + i;
+                int index = fighters[i].getIndex();
+                positionX[slot] = fighters[i].getWorld().getPositionX(index);
+                positionY[slot] = fighters[i].getWorld().getPositionY(index);
+                state[slot] = fighters[i].getWorld().getState(index);
+                stateTime[slot] = fighters[i].getWorld().getStateTime(index);
+                life[slot] = fighters[i].getWorld().getLife(index);
+                facing[slot] = fighters[i].getWorld().getFacing(index);
+            }
+        }
+
+        boolean matches(SpectatorView view) {
+            if (view.getFighterCount() != fighterCount) return false;
+            for (int i = 0; i < fighterCount; i++) {
+                int slot = (int) view.getTick() * fighterCount + i;
+                if (view.getPositionX(i) != positionX[slot] || view.getPositionY(i) != positionY[slot] ||
+                        view.getState(i) != state[slot] || view.getStateTime(i) != stateTime[slot] ||
+                        view.getLife(i) != life[slot] || view.getFacing(i) != facing[slot]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.weitnow.sfs.tools;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.Array;
+import com.weitnow.sfs.ressources.Assets;
+import com.weitnow.sfs.ressources.FighterChoice;
+import com.weitnow.sfs.ressources.TextureCache;
+
+import java.util.Random;
+
+/**
+ * Plays a series of matches between random fighters with the headless backend and a stubbed GL, acquiring the skins
+ * of both fighters from the skin cache for each match and releasing them afterwards. Reports the cache's hits, misses
+ * and evictions. Fighters of the roster that don't have a skin wear one of the sprite sheets instead, so there are
+ * enough textures to exceed the budget. Exits with a non-zero status if the cache keeps more than the budget resident
+ * once no skin is referenced, or unloads a skin that is still referenced.
+ * Must be run from the assets directory: {@code TextureCacheReport [matches] [budget in KiB] [seed]}.
+ */
+public class TextureCacheReport {
+    public static void main(String[] args) {
+        final int matches = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        final long budgetBytes = (args.length > 1 ? Long.parseLong(args[1]) : 2048L) * 1024L;
+        final long seed = args.length > 2 ? Long.parseLong(args[2]) : 0L;
+
+        new HeadlessApplication(new ApplicationAdapter() {
+            @Override
+            public void create() {
+                HeadlessGL.install();
+                Assets assets = new Assets(budgetBytes);
+                TextureCache skins = assets.skins;
+
+                // give every fighter of the roster a skin
+                Array<FighterChoice> roster = FighterChoice.loadRoster(Gdx.files.internal(Assets.FIGHTER_CHOICES));
+                String[] fighterSkins = new String[Math.max(roster.size, Assets.GAMEPLAY_ATLAS_TEXTURES.length)];
+                for (int i = 0; i < fighterSkins.length; i++) {
+                    String skin = i < roster.size ? roster.get(i).skin : null;
+                    fighterSkins[i] = skin != null ? skin
+                            : Assets.GAMEPLAY_ATLAS_TEXTURES[i % Assets.GAMEPLAY_ATLAS_TEXTURES.length];
+                }
+
+                boolean failed = false;
+                Random random = new Random(seed);
+                long start = System.nanoTime();
+                for (int i = 0; i < matches && !failed; i++) {
+                    String skin1 = fighterSkins[random.nextInt(fighterSkins.length)];
+                    String skin2 = fighterSkins[random.nextInt(fighterSkins.length)];
+                    Texture texture1 = skins.acquire(skin1);
+                    Texture texture2 = skins.acquire(skin2);
+
+                    // both skins must stay loaded while the match is going on
+                    if (!skins.isResident(skin1) || !assets.manager.isLoaded(skin1) || texture1.getWidth() == 0 ||
+                            !skins.isResident(skin2) || !assets.manager.isLoaded(skin2) || texture2.getWidth() == 0) {
+                        System.err.println("a skin was unloaded while it was referenced");
+                        failed = true;
+                    }
+
+                    skins.release(skin1);
+                    skins.release(skin2);
+                    if (skins.getResidentBytes() > skins.getBudgetBytes()) {
+                        System.err.println("unreferenced skins exceed the budget: " + skins);
+                        failed = true;
+                    }
+                }
+                double millis = (System.nanoTime() - start) / 1e6;
+
+                System.out.println("matches: " + matches);
+                System.out.println("skins: " + fighterSkins.length);
+                System.out.println("skin cache: " + skins);
+                System.out.printf("hit rate: %.1f%%%n", skins.getHitRate() * 100f);
+                System.out.printf("time: %.1f ms%n", millis);
+                assets.dispose();
+
+                System.exit(failed ? 1 : 0);
+            }
+        }, new HeadlessApplicationConfiguration());
+    }
+}
@@ -0,0 +1,192 @@
+package com.weitnow.sfs.tools;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.weitnow.sfs.ai.Policy;
+import com.weitnow.sfs.ai.RandomPolicy;
+import com.weitnow.sfs.ai.ScriptedPolicy;
+import com.weitnow.sfs.ai.SearchPolicy;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.ressources.Assets;
+import com.weitnow.sfs.ressources.FighterChoice;
+import com.weitnow.sfs.simulation.MatchSimulation;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays a headless round-robin tournament between the fighters of the roster: every pairing plays the given number
+ * of matches, half of them with each fighter as the player, spread over all cores with fork/join. Reports the win
+ * rates, the average match length and the matches played per second.
+ * <p>
+ * Every fighter of the roster is played by a policy, given as a comma separated list that is repeated over the roster:
+ * {@code random}, {@code scripted} or {@code search} (with a 100 microsecond budget per decision).
+ * Must be run from the assets directory: {@code TournamentRunner [matches per pairing] [policies] [seed]}
+ */
+public class TournamentRunner {
+    // ticks between two decisions of a policy, like a fighter reacting once per frame at 60 frames per second
+    private static final int TICKS_PER_DECISION = 2;
+    // matches still going on after two minutes count as draws
+    private static final int MAX_TICKS = Math.round(120f / MatchSimulation.TICK_DURATION);
+    // matches played by one task without splitting it further
+    private static final int MATCHES_PER_TASK = 32;
+    // time the search policy thinks about each decision
+    private static final long SEARCH_BUDGET_NANOS = 100_000L;
+
+    // indices into the results of a batch of matches
+    private static final int FIGHTER1_WINS = 0;
+    private static final int FIGHTER2_WINS = 1;
+    private static final int DRAWS = 2;
+    private static final int TICKS = 3;
+    private static final int RESULT_LENGTH = 4;
+
+    public static void main(String[] args) {
+        int matchesPerPairing = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        String[] policies = (args.length > 1 ? args[1] : "scripted").split(",");
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0L;
+
+        Array<FighterChoice> roster = FighterChoice.loadRoster(new FileHandle(new File(Assets.FIGHTER_CHOICES)));
+        String[] fighterPolicies = new String[roster.size];
+        for (int i = 0; i < roster.size; i++) {
+            fighterPolicies[i] = policies[i % policies.length];
+            // fail early on unknown policies
+            createPolicy(fighterPolicies[i], 0L);
+        }
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int pairings = roster.size * (roster.size - 1) / 2;
+        long[][] results = new long[pairings][];
+        long[] wins = new long[roster.size];
+        long[] played = new long[roster.size];
+        long totalTicks = 0;
+
+        long start = System.nanoTime();
+        int pairing = 0;
+        for (int i = 0; i < roster.size; i++) {
+            for (int j = i + 1; j < roster.size; j++) {
+                results[pairing] = pool.invoke(new MatchBatch(roster.get(i), roster.get(j), fighterPolicies[i],
+                        fighterPolicies[j], seed + (long) pairing * matchesPerPairing, 0, matchesPerPairing));
+                wins[i] += results[pairing][FIGHTER1_WINS];
+                wins[j] += results[pairing][FIGHTER2_WINS];
+                played[i] += matchesPerPairing;
+                played[j] += matchesPerPairing;
+                totalTicks += results[pairing][TICKS];
+                pairing++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long matches = (long) pairings * matchesPerPairing;
+
+        System.out.println("pairings:");
+        pairing = 0;
+        for (int i = 0; i < roster.size; i++) {
+            for (int j = i + 1; j < roster.size; j++) {
+                long[] result = results[pairing++];
+                System.out.println(String.format(Locale.ROOT, "  %s (%s) vs %s (%s): %d - %d, %d draws, " +
+                                "%.1f s per match", roster.get(i).name, fighterPolicies[i], roster.get(j).name,
+                        fighterPolicies[j], result[FIGHTER1_WINS], result[FIGHTER2_WINS], result[DRAWS],
+                        result[TICKS] * MatchSimulation.TICK_DURATION / matchesPerPairing));
+            }
+        }
+        System.out.println("win rates:");
+        for (int i = 0; i < roster.size; i++) {
+            System.out.println(String.format(Locale.ROOT, "  %s (%s): %.1f%%", roster.get(i).name,
+                    fighterPolicies[i], 100.0 * wins[i] / played[i]));
+        }
+        System.out.println(String.format(Locale.ROOT, "hit strength: %.1f, block damage factor: %.2f",
+                Fighter.HIT_STRENGTH, Fighter.BLOCK_DAMAGE_FACTOR));
+        System.out.println(String.format(Locale.ROOT, "%d matches, average length %.1f s, in %.2f s on %d threads: " +
+                        "%.0f matches/s", matches, totalTicks * MatchSimulation.TICK_DURATION / matches, seconds,
+                pool.getParallelism(), matches / seconds));
+    }
+
+    private static Policy createPolicy(String name, long seed) {
+        switch (name) {
+            case "random":
+                return new RandomPolicy(seed);
+            case "scripted":
+                return new ScriptedPolicy(seed);
+            case "search":
+                return new SearchPolicy(SEARCH_BUDGET_NANOS, seed);
+            default:
+                throw new IllegalArgumentException("unknown policy: " + name);
+        }
+    }
+
+    /**
+     * Plays a range of the matches of one pairing, splitting the range up until it is small enough.
+     */
+    private static class MatchBatch extends RecursiveTask<long[]> {
+        // fork/join tasks are serializable, but these are never serialized
+        private static final long serialVersionUID = 1L;
+
+        private final FighterChoice fighter1, fighter2;
+        private final String policy1, policy2;
+        private final long seed;
+        private final int start, end;
+
+        MatchBatch(FighterChoice fighter1, FighterChoice fighter2, String policy1, String policy2, long seed,
+                   int start, int end) {
+            this.fighter1 = fighter1;
+            this.fighter2 = fighter2;
+            this.policy1 = policy1;
+            this.policy2 = policy2;
+            this.seed = seed;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (end - start > MATCHES_PER_TASK) {
+                int middle = (start + end) >>> 1;
+                MatchBatch first = new MatchBatch(fighter1, fighter2, policy1, policy2, seed, start, middle);
+                first.fork();
+                long[] result = new MatchBatch(fighter1, fighter2, policy1, policy2, seed, middle, end).compute();
+                long[] firstResult = first.join();
+                for (int i = 0; i < RESULT_LENGTH; i++) {
+                    result[i] += firstResult[i];
+                }
+                return result;
+            }
+
+            long[] result = new long[RESULT_LENGTH];
+            Fighter headless1 = new Fighter(fighter1.name, fighter1.getColor());
+            Fighter headless2 = new Fighter(fighter2.name, fighter2.getColor());
+            for (int match = start; match < end; match++) {
+                // every match has its own seed, so the results don't depend on how the matches were split up
+                Policy fighter1Policy = createPolicy(policy1, seed * 31 + match * 2);
+                Policy fighter2Policy = createPolicy(policy2, seed * 31 + match * 2 + 1);
+
+                // alternate which fighter is the player, in case either side has an advantage
+                boolean fighter1IsPlayer = match % 2 == 0;
+                MatchSimulation simulation = fighter1IsPlayer ? new MatchSimulation(headless1, headless2) :
+                        new MatchSimulation(headless2, headless1);
+                simulation.setCombatEventsEnabled(false);
+                Policy playerPolicy = fighter1IsPlayer ? fighter1Policy : fighter2Policy;
+                Policy opponentPolicy = fighter1IsPlayer ? fighter2Policy : fighter1Policy;
+
+                int playerControls = 0, opponentControls = 0;
+                while (!simulation.isOver() && simulation.getTick() < MAX_TICKS) {
+                    if (simulation.getTick() % TICKS_PER_DECISION == 0) {
+                        playerControls = playerPolicy.decide(simulation, true);
+                        opponentControls = opponentPolicy.decide(simulation, false);
+                    }
+                    simulation.step(playerControls, opponentControls);
+                }
+
+                if (headless2.hasLost()) {
+                    result[FIGHTER1_WINS]++;
+                } else if (headless1.hasLost()) {
+                    result[FIGHTER2_WINS]++;
+                } else {
+                    result[DRAWS]++;
+                }
+                result[TICKS] += simulation.getTick();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.weitnow.sfs.ressources;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.Texture;
+import com.weitnow.sfs.tools.HeadlessGL;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Loads sprite sheets through the cache with the headless backend and a stubbed GL. The sprite sheets all have the
+ * same size, so the budget is given in sheets.
+ */
+class TextureCacheTest {
+    private static final String A = "sprites/BlockSpriteSheet.png";
+    private static final String B = "sprites/HurtSpriteSheet.png";
+    private static final String C = "sprites/IdleSpriteSheet.png";
+    private static final String D = "sprites/KickSpriteSheet.png";
+
+    private static HeadlessApplication application;
+    private AssetManager manager;
+    private long sheetBytes;
+
+    @BeforeAll
+    static void startHeadless() {
+        application = new HeadlessApplication(new ApplicationAdapter() {
+        }, new HeadlessApplicationConfiguration());
+        HeadlessGL.install();
+    }
+
+    @AfterAll
+    static void stopHeadless() {
+        application.exit();
+    }
+
+    @BeforeEach
+    void createManager() {
+        manager = new AssetManager();
+        TextureCache sizing = new TextureCache(manager, Long.MAX_VALUE);
+        sheetBytes = TextureCache.getBytes(sizing.acquire(A));
+        sizing.dispose();
+    }
+
+    @AfterEach
+    void disposeManager() {
+        manager.dispose();
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedTexture() {
+        TextureCache cache = new TextureCache(manager, 3 * sheetBytes);
+        use(cache, A);
+        use(cache, B);
+        use(cache, C);
+        assertEquals(3, cache.getResidentCount());
+
+        // using A again makes B the least recently used
+        use(cache, A);
+        use(cache, D);
+        assertFalse(cache.isResident(B));
+        assertFalse(manager.isLoaded(B));
+        assertTrue(cache.isResident(A) && cache.isResident(C) && cache.isResident(D));
+        assertEquals(1, cache.getEvictions());
+
+        // then C, then A
+        use(cache, B);
+        assertFalse(cache.isResident(C));
+        use(cache, C);
+        assertFalse(cache.isResident(A));
+        assertEquals(3, cache.getEvictions());
+        assertEquals(3 * sheetBytes, cache.getResidentBytes());
+    }
+
+    @Test
+    void hitsResidentTextures() {
+        TextureCache cache = new TextureCache(manager, 2 * sheetBytes);
+        Texture texture = cache.acquire(A);
+        cache.release(A);
+        assertSame(texture, cache.acquire(A));
+        cache.release(A);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void neverEvictsReferencedTextures() {
+        TextureCache cache = new TextureCache(manager, sheetBytes);
+        cache.acquire(A);
+        cache.acquire(B);
+        cache.acquire(C);
+        // all of them are drawn, so the budget is exceeded instead
+        assertEquals(3, cache.getResidentCount());
+        assertEquals(3 * sheetBytes, cache.getResidentBytes());
+        assertEquals(0, cache.getEvictions());
+
+        cache.setBudgetBytes(0);
+        cache.trim();
+        assertTrue(manager.isLoaded(A) && manager.isLoaded(B) && manager.isLoaded(C));
+
+        // a texture acquired twice stays referenced until both are released
+        cache.setBudgetBytes(sheetBytes);
+        cache.acquire(B);
+        cache.release(B);
+        cache.release(A);
+        assertFalse(cache.isResident(A));
+        assertTrue(cache.isResident(B) && cache.isResident(C));
+
+        cache.release(C);
+        assertFalse(cache.isResident(C));
+        assertTrue(cache.isResident(B));
+        cache.release(B);
+        assertTrue(cache.isResident(B));
+        assertEquals(sheetBytes, cache.getResidentBytes());
+    }
+
+    @Test
+    void rejectsReleasingTexturesNotAcquired() {
+        TextureCache cache = new TextureCache(manager, sheetBytes);
+        use(cache, A);
+        assertThrows(RuntimeException.class, () -> cache.release(A));
+        assertThrows(RuntimeException.class, () -> cache.release(B));
+    }
+
+    private static void use(TextureCache cache, String fileName) {
+        cache.acquire(fileName);
+        cache.release(fileName);
+    }
+}
@@ -0,0 +1,128 @@
+package com.weitnow.sfs.tools;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.backends.headless.mock.graphics.MockGraphics;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.weitnow.sfs.SFS;
+import com.weitnow.sfs.audio.NullAudioBackend;
+import com.weitnow.sfs.objects.Fighter;
+import com.weitnow.sfs.simulation.MatchSimulation;
+import com.weitnow.sfs.simulation.Replay;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plays the game headless without rendering, with scripted key presses, and plays the replay it saved back into a
+ * new match, which must end up in the same state. Runs from the assets directory, like the game.
+ */
+class HeadlessReplayTest {
+    // where the game screen saves the replay, relative to the working directory
+    private static final String REPLAY_FILE = "last_match.replay";
+    private static final int FRAMES = 180;
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+    // the scripted keys, each held for a number of frames
+    private static final int[] SCRIPT_KEYS = {Input.Keys.D, Input.Keys.F, Input.Keys.W, Input.Keys.V, Input.Keys.B};
+    private static final int SCRIPT_FRAMES = 12;
+
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private Throwable failure;
+    private long timeToFirstFrameMillis;
+    private float[] played;
+
+    @Test
+    void replayOfHeadlessRunPlaysBackToTheSameState() throws Exception {
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.updatesPerSecond = -1;
+        HeadlessApplication application = new HeadlessApplication(new ApplicationAdapter() {
+            @Override
+            public void create() {
+                try {
+                    play();
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    finished.countDown();
+                    Gdx.app.exit();
+                }
+            }
+        }, config);
+        FileHandle file = new FileHandle(REPLAY_FILE);
+        try {
+            assertTrue(finished.await(60, TimeUnit.SECONDS), "the game didn't finish in time");
+            application.exit();
+            if (failure != null) throw new AssertionError(failure);
+
+            assertTrue(timeToFirstFrameMillis >= 0, "no time to first frame without rendering");
+
+            Replay replay = Replay.load(file);
+            assertTrue(replay.getTicks() > 0);
+            MatchSimulation match = new MatchSimulation(new Fighter(replay.getPlayerName(), Color.WHITE),
+                    new Fighter(replay.getOpponentName(), Color.WHITE));
+            replay.play(match, Integer.MAX_VALUE);
+            assertEquals(replay.getTicks(), match.getTick());
+            assertArrayEquals(played, getState(match.getPlayer(), match.getOpponent()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private void play() {
+        HeadlessGL.install();
+        SFS game = new SFS();
+        game.audioBackend = new NullAudioBackend();
+        game.skipRendering = true;
+        game.create();
+
+        // let the loading screen finish loading the assets
+        while (game.getScreen() != game.gameScreen) {
+            game.render();
+        }
+
+        int heldKey = -1;
+        for (int i = 0; i < FRAMES; i++) {
+            int key = SCRIPT_KEYS[i / SCRIPT_FRAMES % SCRIPT_KEYS.length];
+            if (key != heldKey) {
+                if (heldKey >= 0) game.gameScreen.keyUp(heldKey);
+                game.gameScreen.keyDown(key);
+                heldKey = key;
+            }
+            renderAtFrameRate(game);
+        }
+
+        timeToFirstFrameMillis = game.timeToFirstFrameMillis;
+        played = getState(game.player, game.opponent);
+        // saves the replay
+        game.dispose();
+    }
+
+    private static float[] getState(Fighter player, Fighter opponent) {
+        return new float[]{player.getLife(), player.getPositionX(), player.getPositionY(), player.getState().ordinal(),
+                opponent.getLife(), opponent.getPositionX(), opponent.getPositionY(), opponent.getState().ordinal()};
+    }
+
+    private static void renderAtFrameRate(SFS game) {
+        long frameStart = System.nanoTime();
+        // rendering from within create bypasses the application loop, so advance the frame time here
+        ((MockGraphics) Gdx.graphics).updateTime();
+        game.render();
+        long sleepNanos = FRAME_NANOS - (System.nanoTime() - frameStart);
+        if (sleepNanos > 0) {
+            try {
+                Thread.sleep(sleepNanos / 1_000_000L, (int) (sleepNanos % 1_000_000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}